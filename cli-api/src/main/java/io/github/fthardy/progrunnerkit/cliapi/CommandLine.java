@@ -23,8 +23,11 @@ SOFTWARE.
  */
 package io.github.fthardy.progrunnerkit.cliapi;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Represents a parsed command line and defines the interface for the command line from the view point of the application programmer.
@@ -58,6 +61,20 @@ public interface CommandLine {
      */
     List<String> getUnparsedArguments();
 
+    /**
+     * Stream the remaining argument values which have not been parsed.
+     * <p>
+     * Use this method for a large number of arguments - e.g. from an argument file - which are processed one after the other. The default implementation
+     * streams the {@link #getUnparsedArguments() list of the unparsed arguments}, so if this list is a lazy view of the arguments no argument string is
+     * created before it is consumed.
+     * </p>
+     *
+     * @return a sequential stream of the unparsed argument values.
+     */
+    default Stream<String> streamUnparsedArguments() {
+        return this.getUnparsedArguments().stream();
+    }
+
     /**
      * Get the value of a parameter or the first value of a parameter list.
      * <p>
@@ -95,6 +112,33 @@ public interface CommandLine {
      * @return an optional containing the parameter object with the desired type. If the parameter is not available the optional is emtpy.
      * 
      * @throws ClassCastException when a parameter for the given identifier exists but the given type is not supported.
+     * @throws CommandLineParseException when the parameter value cannot be converted to the given type.
+     *
+     * @see ValueConverterRegistry
      */
     <T> Optional<T> getParameterValueAsType(Class<T> type, String id) throws ClassCastException;
+
+    /**
+     * Get the values of a parameter list converted to the given type.
+     * <p>
+     * The default implementation converts the {@link #getParameterList(String) raw values} with the {@link ValueConverterRegistry#getDefault() default
+     * registry} on every call. Implementations should memoize the converted values, e.g. by using {@link ConvertedParameterValues}.
+     * </p>
+     *
+     * @param elementType the type class of the list elements.
+     * @param id the identifier of the parameter.
+     * @param <T> the type of the list elements.
+     *
+     * @return an immutable list of the converted values. If the parameter is not available the list is empty.
+     *
+     * @throws ClassCastException when the given type is not supported.
+     * @throws CommandLineParseException when a parameter value cannot be converted to the given type.
+     */
+    default <T> List<T> getParameterListAsType(Class<T> elementType, String id) throws ClassCastException {
+        List<T> values = new ArrayList<>();
+        for (String value : this.getParameterList(id)) {
+            values.add(ValueConverterRegistry.getDefault().convert(elementType, id, value));
+        }
+        return Collections.unmodifiableList(values);
+    }
 }
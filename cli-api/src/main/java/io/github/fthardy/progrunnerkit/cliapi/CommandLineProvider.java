@@ -25,26 +25,46 @@ package io.github.fthardy.progrunnerkit.cliapi;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * A helper object, which parses given command line arguments and provides the resulting command line object for access.
  * <p>
- * Before the command line object is available {@link #parseCommandLineFrom(List)} has to be called first. Once the command line is parsed a 
+ * The command line is either parsed explicitly by calling {@link #parseCommandLineFrom(List)} or - when the provider has been created with a supplier of
+ * the arguments - lazily on the first call of {@link #getCommandLine()}. In both cases the arguments are parsed only once and all threads see the same
+ * command line object, so tasks which never access the command line don't have to wait for the parsing.
+ * </p>
+ * <p>
+ * This class is thread safe.
  * </p>
  */
 public class CommandLineProvider {
     
     private final CommandLineParser parser;
+    private final Supplier<List<String>> argumentSupplier;
 
-    private CommandLine commandLine;
+    private volatile CommandLine commandLine;
+    private CommandLineParseException parseFailure; // guarded by this
 
     /**
-     * Creates a new instance of this provider.
+     * Creates a new instance of this provider. The command line has to be parsed by calling {@link #parseCommandLineFrom(List)} before it is available.
      * 
      * @param parser the command line parser for creating the command line object.
      */
     public CommandLineProvider(CommandLineParser parser) {
         this.parser = Objects.requireNonNull(parser);
+        this.argumentSupplier = null;
+    }
+
+    /**
+     * Creates a new instance of this provider which parses the command line on the first access unless it has been parsed explicitly before.
+     *
+     * @param parser the command line parser for creating the command line object.
+     * @param argumentSupplier the supplier of the arguments to be parsed. It is called at most once.
+     */
+    public CommandLineProvider(CommandLineParser parser, Supplier<List<String>> argumentSupplier) {
+        this.parser = Objects.requireNonNull(parser);
+        this.argumentSupplier = Objects.requireNonNull(argumentSupplier);
     }
 
     /**
@@ -53,10 +73,10 @@ public class CommandLineProvider {
      * @param args the arguments to be parsed.
      *
      * @throws CommandLineParseException when parsing fails for some reason.
-     * @throws IllegalStateException when parsing has already been done and a command line object is already available.
+     * @throws IllegalStateException when parsing has already been done and a command line object is already available or lazy parsing has failed.
      */
-    public void parseCommandLineFrom(List<String> args) throws CommandLineParseException {
-        if (this.commandLine == null) {
+    public synchronized void parseCommandLineFrom(List<String> args) throws CommandLineParseException {
+        if (this.commandLine == null && this.parseFailure == null) {
             this.commandLine = this.parser.parseArguments(args);
         } else {
             throw new IllegalStateException("Command line has already been parsed and set!");
@@ -65,16 +85,43 @@ public class CommandLineProvider {
 
     /**
      * Provides access to the command line object.
+     * <p>
+     * When this provider has been created with a supplier of the arguments and the command line has not been parsed yet, the arguments are parsed by the
+     * first call. A parse failure is remembered and the same exception is thrown by all further calls.
+     * </p>
      *
      * @return the command line object.
      *
+     * @throws CommandLineParseException when the lazy parsing fails.
      * @throws IllegalStateException when the command line object is not available. This might be because the parsing has not yet been done or failed with an
      * exception.
      */
     public CommandLine getCommandLine() {
-        if (this.commandLine == null) {
+        CommandLine result = this.commandLine;
+        if (result == null) {
+            synchronized (this) {
+                result = this.commandLine;
+                if (result == null) {
+                    result = this.parseLazily();
+                }
+            }
+        }
+        return result;
+    }
+
+    private CommandLine parseLazily() {
+        if (this.argumentSupplier == null) {
             throw new IllegalStateException("No command line has been set!");
         }
+        if (this.parseFailure != null) {
+            throw this.parseFailure;
+        }
+        try {
+            this.commandLine = this.parser.parseArguments(this.argumentSupplier.get());
+        } catch (CommandLineParseException e) {
+            this.parseFailure = e;
+            throw e;
+        }
         return this.commandLine;
     }
-}
\ No newline at end of file
+}
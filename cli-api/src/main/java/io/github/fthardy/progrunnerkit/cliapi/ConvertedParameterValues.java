@@ -0,0 +1,140 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cliapi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Memoizes the converted parameter values of a {@link CommandLine}.
+ * <p>
+ * A parameter value is converted with the first request for a particular type and the result is kept for all further requests, so repeated typed lookups -
+ * e.g. within a loop - cost only a map lookup. Command line implementations use an instance of this class to implement
+ * {@link CommandLine#getParameterValueAsType(Class, String)} and {@link CommandLine#getParameterListAsType(Class, String)}. This class is thread safe.
+ * </p>
+ */
+public final class ConvertedParameterValues {
+
+    private final ValueConverterRegistry registry;
+    private final ConcurrentMap<ConversionKey, Object> convertedValues = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param registry the registry with the converters to use.
+     */
+    public ConvertedParameterValues(ValueConverterRegistry registry) {
+        this.registry = Objects.requireNonNull(registry);
+    }
+
+    /**
+     * Provides the converted value of a parameter.
+     *
+     * @param type the type to convert to.
+     * @param id the identifier of the parameter.
+     * @param rawValue a function providing the raw value of a parameter for its identifier. It is only called if the value has not been converted yet.
+     * @param <T> the type to convert to.
+     *
+     * @return an optional containing the converted value or an empty optional if the raw value is not available.
+     *
+     * @throws ClassCastException when no converter is available for the given type.
+     * @throws CommandLineParseException when the value cannot be converted.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> getValue(Class<T> type, String id, Function<String, Optional<String>> rawValue) {
+        ConversionKey key = new ConversionKey(type, id, false);
+        Object value = this.convertedValues.get(key);
+        if (value == null) {
+            Optional<T> convertedValue = rawValue.apply(id).map(raw -> this.registry.convert(type, id, raw));
+            value = this.remember(key, convertedValue);
+        }
+        return (Optional<T>) value;
+    }
+
+    /**
+     * Provides the converted values of a parameter list.
+     *
+     * @param elementType the type to convert each value to.
+     * @param id the identifier of the parameter.
+     * @param rawValues a function providing the raw values of a parameter for its identifier. It is only called if the values have not been converted yet.
+     * @param <T> the type to convert to.
+     *
+     * @return an immutable list of the converted values.
+     *
+     * @throws ClassCastException when no converter is available for the given type.
+     * @throws CommandLineParseException when a value cannot be converted.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getList(Class<T> elementType, String id, Function<String, List<String>> rawValues) {
+        ConversionKey key = new ConversionKey(elementType, id, true);
+        Object values = this.convertedValues.get(key);
+        if (values == null) {
+            List<T> convertedValues = new ArrayList<>();
+            for (String raw : rawValues.apply(id)) {
+                convertedValues.add(this.registry.convert(elementType, id, raw));
+            }
+            values = this.remember(key, Collections.unmodifiableList(convertedValues));
+        }
+        return (List<T>) values;
+    }
+
+    private Object remember(ConversionKey key, Object value) {
+        // a concurrent conversion of the same value may have won - all callers get the same instance
+        Object previous = this.convertedValues.putIfAbsent(key, value);
+        return previous != null ? previous : value;
+    }
+
+    private static final class ConversionKey {
+
+        private final Class<?> type;
+        private final String id;
+        private final boolean list;
+
+        ConversionKey(Class<?> type, String id, boolean list) {
+            this.type = Objects.requireNonNull(type);
+            this.id = Objects.requireNonNull(id);
+            this.list = list;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof ConversionKey)) {
+                return false;
+            }
+            ConversionKey otherKey = (ConversionKey) other;
+            return this.type == otherKey.type && this.list == otherKey.list && this.id.equals(otherKey.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * this.type.hashCode() + this.id.hashCode()) * 2 + (this.list ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cliapi;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * A command line parser for git-style programs, which delegates to the parser of a subcommand.
+ * <p>
+ * The first argument which doesn't start with a dash is the name of the subcommand. The remaining arguments are parsed by the parser of the subcommand. The
+ * parser of a subcommand is created when the subcommand is parsed the first time, so the option specifications of the other subcommands are never built.
+ * </p>
+ * <p>
+ * As the options are only known to the parser of the subcommand, an option in front of the subcommand must be given with its value in the form
+ * {@code --name=value}: {@code --port 80 import} would choose the subcommand {@code 80}.
+ * </p>
+ */
+public final class DispatchingCommandLineParser implements CommandLineParser {
+
+    private final Map<String, Supplier<? extends CommandLineParser>> parserSuppliers;
+    private final ConcurrentMap<String, CommandLineParser> parsers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance of this parser.
+     *
+     * @param parserSuppliers the suppliers of the parsers by the name of their subcommand.
+     */
+    public DispatchingCommandLineParser(Map<String, Supplier<? extends CommandLineParser>> parserSuppliers) {
+        this.parserSuppliers = Collections.unmodifiableMap(new LinkedHashMap<>(Objects.requireNonNull(parserSuppliers)));
+    }
+
+    @Override
+    public SubcommandCommandLine parseArguments(String[] arguments) throws CommandLineParseException {
+        return this.parseArguments(Arrays.asList(arguments));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws CommandLineParseException when the subcommand is missing or unknown or when the parser of the subcommand fails.
+     */
+    @Override
+    public SubcommandCommandLine parseArguments(List<String> arguments) throws CommandLineParseException {
+        int nameIndex = 0;
+        while (nameIndex < arguments.size() && arguments.get(nameIndex).startsWith("-")) {
+            nameIndex++;
+        }
+        if (nameIndex == arguments.size()) {
+            throw new CommandLineParseException("No subcommand given - expected one of " + this.parserSuppliers.keySet());
+        }
+        String name = arguments.get(nameIndex);
+        Supplier<? extends CommandLineParser> parserSupplier = this.parserSuppliers.get(name);
+        if (parserSupplier == null) {
+            String option = nameIndex > 0 && !arguments.get(nameIndex - 1).contains("=") ? arguments.get(nameIndex - 1) : null;
+            String hint = option == null ? "" : " - if '" + option + "' takes a value it must be given as " + option + "=<value>";
+            throw new CommandLineParseException("Unknown subcommand '" + name + "' - expected one of " + this.parserSuppliers.keySet() + hint);
+        }
+        CommandLineParser parser = this.parsers.computeIfAbsent(name, n -> Objects.requireNonNull(parserSupplier.get()));
+        return new SubcommandCommandLine(name, parser.parseArguments(new ArgumentsWithoutName(arguments, nameIndex)));
+    }
+
+    /**
+     * A view of the arguments without the subcommand name.
+     */
+    private static final class ArgumentsWithoutName extends AbstractList<String> {
+
+        private final List<String> arguments;
+        private final int nameIndex;
+
+        ArgumentsWithoutName(List<String> arguments, int nameIndex) {
+            this.arguments = arguments;
+            this.nameIndex = nameIndex;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= this.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+            }
+            return this.arguments.get(index < this.nameIndex ? index : index + 1);
+        }
+
+        @Override
+        public int size() {
+            return this.arguments.size() - 1;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cliapi;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * The command line of a subcommand as produced by a {@link DispatchingCommandLineParser}.
+ * <p>
+ * All calls are delegated to the command line produced by the parser of the subcommand. The arguments of this command line do not include the name of the
+ * subcommand, which is available through {@link #getSubcommandName()}.
+ * </p>
+ */
+public final class SubcommandCommandLine implements CommandLine {
+
+    private final String subcommandName;
+    private final CommandLine commandLine;
+
+    /**
+     * Creates a new instance of this command line.
+     *
+     * @param subcommandName the name of the subcommand.
+     * @param commandLine the command line produced by the parser of the subcommand.
+     */
+    public SubcommandCommandLine(String subcommandName, CommandLine commandLine) {
+        this.subcommandName = Objects.requireNonNull(subcommandName);
+        this.commandLine = Objects.requireNonNull(commandLine);
+    }
+
+    /**
+     * @return the name of the subcommand.
+     */
+    public String getSubcommandName() {
+        return this.subcommandName;
+    }
+
+    @Override
+    public boolean isSet(String id) {
+        return this.commandLine.isSet(id);
+    }
+
+    @Override
+    public List<String> getArguments() {
+        return this.commandLine.getArguments();
+    }
+
+    @Override
+    public List<String> getUnparsedArguments() {
+        return this.commandLine.getUnparsedArguments();
+    }
+
+    @Override
+    public Stream<String> streamUnparsedArguments() {
+        return this.commandLine.streamUnparsedArguments();
+    }
+
+    @Override
+    public Optional<String> getParameterValue(String id) {
+        return this.commandLine.getParameterValue(id);
+    }
+
+    @Override
+    public List<String> getParameterList(String id) {
+        return this.commandLine.getParameterList(id);
+    }
+
+    @Override
+    public <T> Optional<T> getParameterValueAsType(Class<T> type, String id) throws ClassCastException {
+        return this.commandLine.getParameterValueAsType(type, id);
+    }
+
+    @Override
+    public <T> List<T> getParameterListAsType(Class<T> elementType, String id) throws ClassCastException {
+        return this.commandLine.getParameterListAsType(elementType, id);
+    }
+}
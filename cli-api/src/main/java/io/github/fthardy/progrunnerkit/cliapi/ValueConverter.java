@@ -0,0 +1,53 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cliapi;
+
+/**
+ * Converts the raw string value of a command line parameter into a value of a particular type.
+ * <p>
+ * Converters for additional types are plugged in by declaring them as service implementations of this interface in
+ * {@code META-INF/services/io.github.fthardy.progrunnerkit.cliapi.ValueConverter}. A plugged in converter replaces a built-in converter for the same type.
+ * See {@link ValueConverterRegistry} for the built-in converters.
+ * </p>
+ *
+ * @param <T> the type of the converted values.
+ */
+public interface ValueConverter<T> {
+
+    /**
+     * @return the type of the converted values.
+     */
+    Class<T> getTargetType();
+
+    /**
+     * Converts a raw value.
+     *
+     * @param value the raw string value from the command line.
+     *
+     * @return the converted value.
+     *
+     * @throws IllegalArgumentException when the value cannot be converted.
+     */
+    T convert(String value) throws IllegalArgumentException;
+}
@@ -0,0 +1,234 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cliapi;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A registry of the {@link ValueConverter value converters} for the typed access to the parameters of a {@link CommandLine}.
+ * <p>
+ * Built-in converters exist for {@link String}, the primitive types and their wrappers, {@link BigInteger}, {@link BigDecimal}, {@link Path}, {@link File},
+ * {@link URI}, {@link Duration} and every enum type. A boolean value is either {@code true} or {@code false} regardless of the case. A duration is either
+ * given in the ISO-8601 format (e.g. {@code PT1M30S}) or as a whole number with one of the units {@code ms}, {@code s}, {@code m}, {@code h} or {@code d}
+ * (e.g. {@code 90s}). An enum constant is looked up by its name, ignoring the case if there is no exact match.
+ * </p>
+ * <p>
+ * The converter of a type is looked up once and then kept, so converting repeatedly costs only the conversion itself. This class is thread safe.
+ * </p>
+ */
+public final class ValueConverterRegistry {
+
+    private static final Pattern _durationWithUnit = Pattern.compile("(-?\\d+)(ms|s|m|h|d)");
+
+    private static final Map<Class<?>, Class<?>> _wrapperTypes = new HashMap<>();
+
+    static {
+        _wrapperTypes.put(boolean.class, Boolean.class);
+        _wrapperTypes.put(byte.class, Byte.class);
+        _wrapperTypes.put(short.class, Short.class);
+        _wrapperTypes.put(int.class, Integer.class);
+        _wrapperTypes.put(long.class, Long.class);
+        _wrapperTypes.put(float.class, Float.class);
+        _wrapperTypes.put(double.class, Double.class);
+        _wrapperTypes.put(char.class, Character.class);
+    }
+
+    private static final class DefaultRegistryHolder {
+
+        static final ValueConverterRegistry INSTANCE = createDefault();
+
+        @SuppressWarnings("rawtypes")
+        private static ValueConverterRegistry createDefault() {
+            List<ValueConverter<?>> converters = new ArrayList<>();
+            for (ValueConverter<?> converter : ServiceLoader.load(ValueConverter.class)) {
+                converters.add(converter);
+            }
+            return new ValueConverterRegistry(converters);
+        }
+    }
+
+    private final Map<Class<?>, Function<String, ?>> converters = new ConcurrentHashMap<>();
+
+    /**
+     * Provides the default registry with the built-in converters and the converters declared as service implementations of {@link ValueConverter}. The
+     * service implementations are loaded with the first call.
+     *
+     * @return the default registry.
+     */
+    public static ValueConverterRegistry getDefault() {
+        return DefaultRegistryHolder.INSTANCE;
+    }
+
+    /**
+     * Creates a new registry with the built-in converters and the given converters.
+     *
+     * @param converters the additional converters. They replace the built-in converters for the same type.
+     */
+    public ValueConverterRegistry(Collection<? extends ValueConverter<?>> converters) {
+        this.register(String.class, value -> value);
+        this.register(Boolean.class, ValueConverterRegistry::toBoolean);
+        this.register(Byte.class, Byte::valueOf);
+        this.register(Short.class, Short::valueOf);
+        this.register(Integer.class, Integer::valueOf);
+        this.register(Long.class, Long::valueOf);
+        this.register(Float.class, Float::valueOf);
+        this.register(Double.class, Double::valueOf);
+        this.register(Character.class, ValueConverterRegistry::toCharacter);
+        this.register(BigInteger.class, BigInteger::new);
+        this.register(BigDecimal.class, BigDecimal::new);
+        this.register(Path.class, Paths::get);
+        this.register(File.class, File::new);
+        this.register(URI.class, URI::create);
+        this.register(Duration.class, ValueConverterRegistry::toDuration);
+        for (ValueConverter<?> converter : converters) {
+            this.register(converter.getTargetType(), converter::convert);
+        }
+    }
+
+    private void register(Class<?> type, Function<String, ?> converter) {
+        this.converters.put(Objects.requireNonNull(type), converter);
+    }
+
+    /**
+     * Check if values of a particular type can be converted.
+     *
+     * @param type the type.
+     *
+     * @return {@code true} when a converter for the type is available.
+     */
+    public boolean supports(Class<?> type) {
+        return this.findConverter(type) != null;
+    }
+
+    /**
+     * Converts a raw value into a value of the given type.
+     *
+     * @param type the type to convert to. For a primitive type the value is returned as the corresponding wrapper type.
+     * @param id the identifier of the parameter the value belongs to.
+     * @param value the raw value.
+     * @param <T> the type to convert to.
+     *
+     * @return the converted value.
+     *
+     * @throws ClassCastException when no converter is available for the given type.
+     * @throws CommandLineParseException when the value cannot be converted.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T convert(Class<T> type, String id, String value) throws ClassCastException, CommandLineParseException {
+        Function<String, ?> converter = this.findConverter(type);
+        if (converter == null) {
+            throw new ClassCastException(String.format("No converter available for the type [%s]!", type.getName()));
+        }
+        try {
+            return (T) converter.apply(Objects.requireNonNull(value));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new CommandLineParseException(String.format("The value '%s' of the parameter '%s' is not a valid %s!", value, id, type.getSimpleName()), e);
+        }
+    }
+
+    private Function<String, ?> findConverter(Class<?> type) {
+        Class<?> lookupType = _wrapperTypes.containsKey(type) ? _wrapperTypes.get(type) : type;
+        Function<String, ?> converter = this.converters.get(lookupType);
+        if (converter == null && lookupType.isEnum()) {
+            converter = this.converters.computeIfAbsent(lookupType, ValueConverterRegistry::createEnumConverter);
+        }
+        return converter;
+    }
+
+    private static Function<String, ?> createEnumConverter(Class<?> enumType) {
+        Object[] constants = enumType.getEnumConstants();
+        return value -> {
+            Object caseInsensitiveMatch = null;
+            for (Object constant : constants) {
+                String name = ((Enum<?>) constant).name();
+                if (name.equals(value)) {
+                    return constant;
+                }
+                if (caseInsensitiveMatch == null && name.equalsIgnoreCase(value)) {
+                    caseInsensitiveMatch = constant;
+                }
+            }
+            if (caseInsensitiveMatch == null) {
+                throw new IllegalArgumentException("No constant " + value + " in " + enumType.getName());
+            }
+            return caseInsensitiveMatch;
+        };
+    }
+
+    private static Boolean toBoolean(String value) {
+        if ("true".equalsIgnoreCase(value)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException("Not a boolean: " + value);
+    }
+
+    private static Character toCharacter(String value) {
+        if (value.length() != 1) {
+            throw new IllegalArgumentException("Not a single character: " + value);
+        }
+        return value.charAt(0);
+    }
+
+    private static Duration toDuration(String value) {
+        Matcher matcher = _durationWithUnit.matcher(value.toLowerCase(Locale.ROOT));
+        if (!matcher.matches()) {
+            return Duration.parse(value);
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        switch (matcher.group(2)) {
+            case "ms":
+                return Duration.ofMillis(amount);
+            case "s":
+                return Duration.ofSeconds(amount);
+            case "m":
+                return Duration.ofMinutes(amount);
+            case "h":
+                return Duration.ofHours(amount);
+            default:
+                return Duration.ofDays(amount);
+        }
+    }
+}
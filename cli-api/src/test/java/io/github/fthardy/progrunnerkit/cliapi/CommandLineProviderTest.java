@@ -31,6 +31,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -103,4 +106,68 @@ class CommandLineProviderTest {
         verify(this.parserMock).parseArguments(arguments);
         verifyNoInteractions(commandLineMock);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void Lazy_parsing_is_done_once_on_first_access() throws Exception {
+
+        List<String> arguments = Collections.singletonList("-h");
+
+        CommandLine commandLineMock = mock(CommandLine.class);
+
+        when(this.parserMock.parseArguments(arguments)).thenReturn(commandLineMock);
+
+        CommandLineProvider provider = new CommandLineProvider(this.parserMock, () -> arguments);
+        verifyNoInteractions(this.parserMock);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CommandLine>> results = executor.invokeAll(Collections.nCopies(32, provider::getCommandLine));
+            for (Future<CommandLine> result : results) {
+                assertSame(commandLineMock, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThrows(IllegalStateException.class, () -> provider.parseCommandLineFrom(arguments));
+
+        verify(this.parserMock).parseArguments(arguments);
+        verifyNoInteractions(commandLineMock);
+    }
+
+    @Test
+    public void Lazy_parsing_failure_is_remembered() {
+
+        List<String> arguments = Collections.emptyList();
+
+        CommandLineParseException exception = new CommandLineParseException("TEST");
+        doThrow(exception).when(this.parserMock).parseArguments(arguments);
+
+        CommandLineProvider provider = new CommandLineProvider(this.parserMock, () -> arguments);
+
+        assertSame(exception, assertThrows(CommandLineParseException.class, provider::getCommandLine));
+        assertSame(exception, assertThrows(CommandLineParseException.class, provider::getCommandLine));
+        assertThrows(IllegalStateException.class, () -> provider.parseCommandLineFrom(arguments));
+
+        verify(this.parserMock).parseArguments(arguments);
+    }
+
+    @Test
+    public void Explicit_parsing_takes_precedence_over_lazy_parsing() {
+
+        List<String> arguments = Collections.emptyList();
+
+        CommandLine commandLineMock = mock(CommandLine.class);
+
+        when(this.parserMock.parseArguments(arguments)).thenReturn(commandLineMock);
+
+        CommandLineProvider provider = new CommandLineProvider(this.parserMock, () -> {
+            throw new AssertionError("The supplier must not be called!");
+        });
+
+        provider.parseCommandLineFrom(arguments);
+        assertSame(commandLineMock, provider.getCommandLine());
+
+        verify(this.parserMock).parseArguments(arguments);
+        verifyNoInteractions(commandLineMock);
+    }
+}
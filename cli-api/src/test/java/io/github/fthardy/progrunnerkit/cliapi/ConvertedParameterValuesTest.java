@@ -0,0 +1,87 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cliapi;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConvertedParameterValuesTest {
+
+    private final ConvertedParameterValues convertedValues = new ConvertedParameterValues(new ValueConverterRegistry(Collections.emptyList()));
+
+    @Test
+    public void Values_are_converted_once_per_type() {
+
+        AtomicInteger rawValueRequests = new AtomicInteger();
+
+        Optional<Duration> first = this.convertedValues.getValue(Duration.class, "t", id -> {
+            rawValueRequests.incrementAndGet();
+            return Optional.of("10s");
+        });
+        Optional<Duration> second = this.convertedValues.getValue(Duration.class, "t", id -> {
+            throw new AssertionError("The value must not be converted again!");
+        });
+        assertThat(first).contains(Duration.ofSeconds(10));
+        assertSame(first, second);
+        assertEquals(1, rawValueRequests.get());
+
+        assertThat(this.convertedValues.getValue(String.class, "t", id -> Optional.of("10s"))).contains("10s");
+    }
+
+    @Test
+    public void Missing_values_are_remembered_as_well() {
+
+        assertFalse(this.convertedValues.getValue(Integer.class, "n", id -> Optional.empty()).isPresent());
+        assertFalse(this.convertedValues.getValue(Integer.class, "n", id -> {
+            throw new AssertionError("The value must not be requested again!");
+        }).isPresent());
+    }
+
+    @Test
+    public void Lists_are_converted_once() {
+
+        List<Integer> values = this.convertedValues.getList(Integer.class, "n", id -> Arrays.asList("1", "2", "3"));
+        assertThat(values).containsExactly(1, 2, 3);
+        assertSame(values, this.convertedValues.getList(Integer.class, "n", id -> {
+            throw new AssertionError("The values must not be converted again!");
+        }));
+        assertThrows(UnsupportedOperationException.class, () -> values.add(4));
+    }
+
+    @Test
+    public void Failed_conversions_are_not_remembered() {
+
+        assertThrows(CommandLineParseException.class, () -> this.convertedValues.getValue(Integer.class, "n", id -> Optional.of("x")));
+        assertThat(this.convertedValues.getValue(Integer.class, "n", id -> Optional.of("5"))).contains(5);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cliapi;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DispatchingCommandLineParserTest {
+
+    @Test
+    public void Only_the_parser_of_the_chosen_subcommand_is_created() {
+
+        CommandLineParser importParser = mock(CommandLineParser.class);
+        CommandLine importCommandLine = mock(CommandLine.class);
+        when(importParser.parseArguments(Arrays.asList("-v", "--from", "a.csv"))).thenReturn(importCommandLine);
+        when(importCommandLine.isSet("from")).thenReturn(true);
+        AtomicInteger importParserCreations = new AtomicInteger();
+
+        Map<String, Supplier<? extends CommandLineParser>> parsers = new LinkedHashMap<>();
+        parsers.put("import", () -> {
+            importParserCreations.incrementAndGet();
+            return importParser;
+        });
+        parsers.put("export", () -> {
+            throw new AssertionError("The parser of another subcommand must not be created");
+        });
+        DispatchingCommandLineParser parser = new DispatchingCommandLineParser(parsers);
+
+        SubcommandCommandLine commandLine = parser.parseArguments(new String[] {"-v", "import", "--from", "a.csv"});
+        parser.parseArguments(Arrays.asList("-v", "import", "--from", "a.csv"));
+
+        assertEquals("import", commandLine.getSubcommandName());
+        assertTrue(commandLine.isSet("from"));
+        assertEquals(1, importParserCreations.get());
+        verify(importParser, times(2)).parseArguments(Arrays.asList("-v", "--from", "a.csv"));
+    }
+
+    @Test
+    public void Missing_subcommand_is_rejected() {
+
+        DispatchingCommandLineParser parser = new DispatchingCommandLineParser(singleParser("import"));
+
+        CommandLineParseException exception = assertThrows(CommandLineParseException.class, () -> parser.parseArguments(new String[] {"-v"}));
+        assertTrue(exception.getMessage().contains("[import]"));
+    }
+
+    @Test
+    public void Unknown_subcommand_is_rejected() {
+
+        DispatchingCommandLineParser parser = new DispatchingCommandLineParser(singleParser("import"));
+
+        CommandLineParseException exception = assertThrows(CommandLineParseException.class, () -> parser.parseArguments(new String[] {"delete"}));
+        assertTrue(exception.getMessage().contains("'delete'"));
+        assertTrue(exception.getMessage().contains("[import]"));
+    }
+
+    @Test
+    public void Option_in_front_of_the_subcommand_takes_its_value_with_equals_sign() {
+
+        CommandLineParser importParser = mock(CommandLineParser.class);
+        when(importParser.parseArguments(Arrays.asList("--port=80"))).thenReturn(mock(CommandLine.class));
+        Map<String, Supplier<? extends CommandLineParser>> parsers = new LinkedHashMap<>();
+        parsers.put("import", () -> importParser);
+        DispatchingCommandLineParser parser = new DispatchingCommandLineParser(parsers);
+
+        assertEquals("import", parser.parseArguments(new String[] {"--port=80", "import"}).getSubcommandName());
+        CommandLineParseException exception = assertThrows(CommandLineParseException.class,
+                () -> parser.parseArguments(new String[] {"--port", "80", "import"}));
+        assertTrue(exception.getMessage().contains("'80'"));
+        assertTrue(exception.getMessage().contains("--port=<value>"));
+    }
+
+    private static Map<String, Supplier<? extends CommandLineParser>> singleParser(String name) {
+        Map<String, Supplier<? extends CommandLineParser>> parsers = new LinkedHashMap<>();
+        parsers.put(name, () -> {
+            throw new AssertionError("No parser is expected to be created");
+        });
+        return parsers;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cliapi;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValueConverterRegistryTest {
+
+    public static final class Coordinate {
+
+        final int x;
+        final int y;
+
+        Coordinate(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    public static class CoordinateConverter implements ValueConverter<Coordinate> {
+
+        @Override
+        public Class<Coordinate> getTargetType() {
+            return Coordinate.class;
+        }
+
+        @Override
+        public Coordinate convert(String value) {
+            String[] parts = value.split(",");
+            return new Coordinate(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        }
+    }
+
+    private final ValueConverterRegistry registry = new ValueConverterRegistry(Collections.emptyList());
+
+    @Test
+    public void Built_in_conversions() {
+
+        assertEquals(42, this.registry.convert(int.class, "n", "42"));
+        assertEquals(Long.valueOf(-7L), this.registry.convert(Long.class, "n", "-7"));
+        assertEquals(Boolean.TRUE, this.registry.convert(boolean.class, "b", "TRUE"));
+        assertEquals(new BigDecimal("1.50"), this.registry.convert(BigDecimal.class, "d", "1.50"));
+        assertEquals(Paths.get("a", "b"), this.registry.convert(Path.class, "p", "a/b"));
+        assertEquals(URI.create("https://example.org/x"), this.registry.convert(URI.class, "u", "https://example.org/x"));
+        assertEquals('x', this.registry.convert(char.class, "c", "x"));
+    }
+
+    @Test
+    public void Durations_in_ISO_format_or_with_unit() {
+
+        assertEquals(Duration.ofSeconds(90), this.registry.convert(Duration.class, "t", "PT1M30S"));
+        assertEquals(Duration.ofMillis(250), this.registry.convert(Duration.class, "t", "250ms"));
+        assertEquals(Duration.ofSeconds(90), this.registry.convert(Duration.class, "t", "90s"));
+        assertEquals(Duration.ofMinutes(5), this.registry.convert(Duration.class, "t", "5m"));
+        assertEquals(Duration.ofDays(2), this.registry.convert(Duration.class, "t", "2d"));
+    }
+
+    @Test
+    public void Enum_constants_are_matched_ignoring_case() {
+
+        assertSame(TimeUnit.SECONDS, this.registry.convert(TimeUnit.class, "u", "SECONDS"));
+        assertSame(TimeUnit.MINUTES, this.registry.convert(TimeUnit.class, "u", "minutes"));
+        assertThrows(CommandLineParseException.class, () -> this.registry.convert(TimeUnit.class, "u", "fortnights"));
+    }
+
+    @Test
+    public void Invalid_values_cause_a_parse_exception() {
+
+        CommandLineParseException exception = assertThrows(CommandLineParseException.class, () -> this.registry.convert(int.class, "count", "ten"));
+        assertThat(exception).hasMessageContaining("count").hasMessageContaining("ten");
+        assertThrows(CommandLineParseException.class, () -> this.registry.convert(boolean.class, "b", "yes"));
+        assertThrows(CommandLineParseException.class, () -> this.registry.convert(Duration.class, "t", "soon"));
+    }
+
+    @Test
+    public void Unsupported_type() {
+
+        assertFalse(this.registry.supports(Thread.class));
+        assertThrows(ClassCastException.class, () -> this.registry.convert(Thread.class, "t", "main"));
+    }
+
+    @Test
+    public void Converters_are_plugged_in_as_services() {
+
+        assertFalse(this.registry.supports(Coordinate.class));
+
+        Coordinate coordinate = ValueConverterRegistry.getDefault().convert(Coordinate.class, "at", "3,4");
+        assertEquals(3, coordinate.x);
+        assertEquals(4, coordinate.y);
+    }
+
+    @Test
+    public void Plugged_in_converters_replace_built_in_converters() {
+
+        ValueConverterRegistry customRegistry = new ValueConverterRegistry(Collections.singletonList(new ValueConverter<Integer>() {
+            @Override
+            public Class<Integer> getTargetType() {
+                return Integer.class;
+            }
+
+            @Override
+            public Integer convert(String value) {
+                return Integer.decode(value);
+            }
+        }));
+
+        assertEquals(255, customRegistry.convert(int.class, "n", "0xFF"));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.commonsclisupport;
+
+import io.github.fthardy.progrunnerkit.cliapi.CommandLine;
+import io.github.fthardy.progrunnerkit.cliapi.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.OptionGroup;
+import org.apache.commons.cli.Options;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parses per second of a {@link CommonsCliCommandLineParser} shared by 1, 2, 4 and all available threads.
+ * <p>
+ * The per-thread parser ({@code perThread*}) is expected to scale with the number of cores, while the shared parser instance ({@code shared*}) is
+ * serialized and stays at the throughput of a single thread. The options contain an option group, which a commons-cli parser changes while parsing. Run
+ * with {@code gradle :commons-cli-support:jmh}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentParseBenchmark {
+
+    private static final String[] ARGUMENTS = {"-a", "--port", "8080", "-o", "out.txt", "-D", "mode=fast", "input.txt"};
+
+    private CommandLineParser perThreadParser;
+    private CommandLineParser sharedParser;
+
+    @Setup
+    public void setUp() {
+        Options options = new Options();
+        OptionGroup mode = new OptionGroup();
+        mode.addOption(new Option("a", "Mode A."));
+        mode.addOption(new Option("b", "Mode B."));
+        options.addOptionGroup(mode);
+        options.addOption("p", "port", true, "Port.");
+        options.addOption("o", "output", true, "Output.");
+        options.addOption(Option.builder("D").hasArgs().valueSeparator('=').build());
+
+        this.perThreadParser = new CommonsCliCommandLineParser(options);
+        this.sharedParser = new CommonsCliCommandLineParser(new DefaultParser(false), options);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public CommandLine perThread1() {
+        return this.perThreadParser.parseArguments(ARGUMENTS);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public CommandLine perThread2() {
+        return this.perThreadParser.parseArguments(ARGUMENTS);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public CommandLine perThread4() {
+        return this.perThreadParser.parseArguments(ARGUMENTS);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public CommandLine perThreadMax() {
+        return this.perThreadParser.parseArguments(ARGUMENTS);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public CommandLine shared1() {
+        return this.sharedParser.parseArguments(ARGUMENTS);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public CommandLine sharedMax() {
+        return this.sharedParser.parseArguments(ARGUMENTS);
+    }
+}
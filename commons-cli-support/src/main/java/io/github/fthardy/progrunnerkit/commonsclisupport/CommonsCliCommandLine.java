@@ -24,26 +24,46 @@ SOFTWARE.
 package io.github.fthardy.progrunnerkit.commonsclisupport;
 
 import io.github.fthardy.progrunnerkit.cliapi.CommandLine;
+import io.github.fthardy.progrunnerkit.cliapi.ConvertedParameterValues;
+import io.github.fthardy.progrunnerkit.cliapi.ValueConverterRegistry;
 
 import java.util.*;
 
 /**
  * The implementation of the commons-cli command line adapter. 
+ * <p>
+ * Typed parameter values are converted with a {@link ValueConverterRegistry} and memoized per parameter and type. The type {@link Properties} is supported
+ * for options with a value separator; a new properties object is returned for each call as it is mutable.
+ * </p>
  */
 public class CommonsCliCommandLine implements CommandLine {
     
     private final List<String> commandLineArguments;
     private final org.apache.commons.cli.CommandLine parsedCommandLine;
+    private final ConvertedParameterValues convertedValues;
 
     /**
-     * Create a new instance of this command line implementation.
+     * Create a new instance of this command line implementation which converts typed values with the {@link ValueConverterRegistry#getDefault() default
+     * registry}.
      * 
      * @param parsedCommandLine the command line object returned by the commons-cli parser.
      * @param args the arguments from the command line.
      */
     public CommonsCliCommandLine(String[] args, org.apache.commons.cli.CommandLine parsedCommandLine) {
+        this(args, parsedCommandLine, ValueConverterRegistry.getDefault());
+    }
+
+    /**
+     * Create a new instance of this command line implementation.
+     *
+     * @param parsedCommandLine the command line object returned by the commons-cli parser.
+     * @param args the arguments from the command line.
+     * @param converterRegistry the registry with the converters for typed values.
+     */
+    public CommonsCliCommandLine(String[] args, org.apache.commons.cli.CommandLine parsedCommandLine, ValueConverterRegistry converterRegistry) {
         this.commandLineArguments = Arrays.asList(Objects.requireNonNull(args));
         this.parsedCommandLine = Objects.requireNonNull(parsedCommandLine);
+        this.convertedValues = new ConvertedParameterValues(converterRegistry);
     }
     
     @Override
@@ -80,10 +100,14 @@ public class CommonsCliCommandLine implements CommandLine {
                 // even tho the api says that a non-null is returned we do not rely on this
                 return Optional.ofNullable(type.cast(this.parsedCommandLine.getOptionProperties(id)));
             } else {
-                throw new ClassCastException(String.format("The type [%s] is not supported by commons-cli. Only the type [%s] is supported.",
-                        type.getName(), Properties.class.getName()));
+                return this.convertedValues.getValue(type, id, this::getParameterValue);
             }
         }
         return Optional.empty();
     }
+
+    @Override
+    public <T> List<T> getParameterListAsType(Class<T> elementType, String id) {
+        return this.convertedValues.getList(elementType, id, this::getParameterList);
+    }
 }
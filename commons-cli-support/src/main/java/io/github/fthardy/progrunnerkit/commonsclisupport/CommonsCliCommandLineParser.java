@@ -27,14 +27,27 @@ import io.github.fthardy.progrunnerkit.cliapi.CommandLine;
 import io.github.fthardy.progrunnerkit.cliapi.CommandLineParseException;
 import io.github.fthardy.progrunnerkit.cliapi.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.OptionGroup;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * The implementation of the commons-cli command line parser adapter. 
+ * <p>
+ * This class is thread safe. A commons-cli parser is stateful while parsing and changes the state of the options - i.e. it selects the options of an
+ * {@link OptionGroup} - so the adapter never parses with the given options but with a copy. The options are copied when the adapter is created, changes of
+ * the options made afterwards are not seen by the adapter. When the adapter has been created with a factory for the commons-cli parser, each thread parses
+ * with its own parser and its own copy of the options, so parsing scales with the number of threads. When it has been created with a parser instance, this
+ * instance is shared and the threads parse one after the other.
+ * </p>
  */
 public class CommonsCliCommandLineParser implements CommandLineParser {
 
@@ -51,18 +64,37 @@ public class CommonsCliCommandLineParser implements CommandLineParser {
         void printCommandLineDescriptionForOptions(Options options);
     }
     
-    private final org.apache.commons.cli.CommandLineParser parser;
-    private final Options parserOptions;
+    /** The parser and the options shared by all threads or {@code null} when each thread parses with its own. */
+    private final ParserState sharedState;
+    /** The parser and the options of each thread or {@code null} when they are shared. */
+    private final ThreadLocal<ParserState> parserState;
 
     /**
      * Creates a new instance of this command line parser implementation.
+     * <p>
+     * The given parser instance is shared by all threads, so concurrent parsing is serialized. Use
+     * {@link #CommonsCliCommandLineParser(Supplier, Options)} for parsing concurrently.
+     * </p>
      *
      * @param parser the commons-cli parser instance to use for parsing the command line.
      * @param options the options for parsing.
      */
     public CommonsCliCommandLineParser(org.apache.commons.cli.CommandLineParser parser, Options options) {
-        this.parser = Objects.requireNonNull(parser);
-        this.parserOptions = Objects.requireNonNull(options);
+        this.sharedState = new ParserState(Objects.requireNonNull(parser), copyOf(Objects.requireNonNull(options)));
+        this.parserState = null;
+    }
+
+    /**
+     * Creates a new instance of this command line parser implementation which parses concurrently with a parser and a copy of the options per thread.
+     *
+     * @param parserFactory the factory creating the commons-cli parser for a thread.
+     * @param options the options for parsing.
+     */
+    public CommonsCliCommandLineParser(Supplier<? extends org.apache.commons.cli.CommandLineParser> parserFactory, Options options) {
+        Objects.requireNonNull(parserFactory);
+        Options optionsTemplate = copyOf(Objects.requireNonNull(options));
+        this.sharedState = null;
+        this.parserState = ThreadLocal.withInitial(() -> new ParserState(Objects.requireNonNull(parserFactory.get()), copyOf(optionsTemplate)));
     }
 
     /**
@@ -82,20 +114,26 @@ public class CommonsCliCommandLineParser implements CommandLineParser {
     /**
      * Creates a new instance of this command line parser implementation.
      * <p>
-     * A default parser instance with no partial matching is created implicitly.
+     * A default parser instance with no partial matching is created implicitly for each thread.
      * </p>
      *
      * @param options the options for parsing.
      */
     public CommonsCliCommandLineParser(Options options) {
-        this(new DefaultParser(false), options);
+        this(() -> new DefaultParser(false), options);
     }
     
     @Override
     public CommandLine parseArguments(String[] arguments) throws CommandLineParseException {
         Objects.requireNonNull(arguments);
         try {
-            return new CommonsCliCommandLine(arguments, this.parser.parse(this.parserOptions, arguments));
+            if (this.sharedState == null) {
+                ParserState state = this.parserState.get();
+                return new CommonsCliCommandLine(arguments, state.parser.parse(state.options, arguments));
+            }
+            synchronized (this.sharedState) {
+                return new CommonsCliCommandLine(arguments, this.sharedState.parser.parse(this.sharedState.options, arguments));
+            }
         } catch (ParseException e) {
             throw new CommandLineParseException(e); 
         }
@@ -105,4 +143,41 @@ public class CommonsCliCommandLineParser implements CommandLineParser {
     public CommandLine parseArguments(List<String> arguments) throws CommandLineParseException {
         return this.parseArguments(arguments.toArray(new String[0]));
     }
+
+    /**
+     * Creates a deep copy of the given options - including the option groups - which shares no mutable state with the given options.
+     */
+    static Options copyOf(Options options) {
+        Options copy = new Options();
+        // the groups are only accessible through their options
+        Set<OptionGroup> copiedGroups = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Option option : options.getOptions()) {
+            OptionGroup group = options.getOptionGroup(option);
+            if (group == null) {
+                copy.addOption((Option) option.clone());
+            } else if (copiedGroups.add(group)) {
+                OptionGroup groupCopy = new OptionGroup();
+                for (Option groupOption : group.getOptions()) {
+                    groupCopy.addOption((Option) groupOption.clone());
+                }
+                groupCopy.setRequired(group.isRequired());
+                copy.addOptionGroup(groupCopy);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * The parser and the options used for parsing.
+     */
+    private static final class ParserState {
+
+        final org.apache.commons.cli.CommandLineParser parser;
+        final Options options;
+
+        ParserState(org.apache.commons.cli.CommandLineParser parser, Options options) {
+            this.parser = parser;
+            this.options = options;
+        }
+    }
 }
@@ -25,10 +25,20 @@ package io.github.fthardy.progrunnerkit.commonsclisupport;
 
 import io.github.fthardy.progrunnerkit.cliapi.CommandLineParseException;
 import io.github.fthardy.progrunnerkit.cliapi.CommandLineParser;
+import io.github.fthardy.progrunnerkit.cliapi.CommandLine;
 import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.OptionGroup;
 import org.apache.commons.cli.Options;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class CommonsCliCommandLineParserTest {
@@ -66,4 +76,72 @@ class CommonsCliCommandLineParserTest {
         
         assertThrows(CommandLineParseException.class, () -> commandLineParser.parseArguments(new String[] {"-bla"}));
     }
-}
\ No newline at end of file
+
+    @Test
+    void Concurrent_parsing_with_option_groups() throws Exception {
+
+        Options options = new Options();
+        OptionGroup mode = new OptionGroup();
+        mode.addOption(new Option("a", "Mode A."));
+        mode.addOption(new Option("b", "Mode B."));
+        mode.setRequired(true);
+        options.addOptionGroup(mode);
+        options.addOption("p", "port", true, "Port.");
+
+        CommandLineParser commandLineParser = new CommonsCliCommandLineParser(options);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> parses = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                String selectedMode = i % 2 == 0 ? "-a" : "-b";
+                String port = Integer.toString(i);
+                parses.add(() -> {
+                    CommandLine commandLine = commandLineParser.parseArguments(new String[] {selectedMode, "--port", port});
+                    return commandLine.isSet(selectedMode.substring(1)) && commandLine.getParameterValue("p").get().equals(port);
+                });
+            }
+            for (Future<Boolean> result : executor.invokeAll(parses)) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertNull(mode.getSelected());
+    }
+
+    @Test
+    void Options_are_copied_deeply() {
+
+        Options options = new Options();
+        OptionGroup group = new OptionGroup();
+        group.addOption(new Option("a", "A."));
+        group.addOption(new Option("b", "B."));
+        group.setRequired(true);
+        options.addOptionGroup(group);
+        options.addOption(Option.builder("r").required().hasArg().build());
+
+        Options copy = CommonsCliCommandLineParser.copyOf(options);
+
+        assertEquals(3, copy.getOptions().size());
+        assertNotSame(options.getOption("a"), copy.getOption("a"));
+        OptionGroup groupCopy = copy.getOptionGroup(copy.getOption("a"));
+        assertNotSame(group, groupCopy);
+        assertTrue(groupCopy.isRequired());
+        assertSame(groupCopy, copy.getOptionGroup(copy.getOption("b")));
+        assertEquals(2, copy.getRequiredOptions().size());
+    }
+
+    @Test
+    void Parsing_with_a_shared_parser_instance() {
+
+        Options options = new Options();
+        options.addOption("v", "Verbose.");
+
+        CommandLineParser commandLineParser = new CommonsCliCommandLineParser(new DefaultParser(), options);
+        options.addOption("x", "Added later.");
+
+        assertTrue(commandLineParser.parseArguments(new String[] {"-v"}).isSet("v"));
+        assertThrows(CommandLineParseException.class, () -> commandLineParser.parseArguments(new String[] {"-x"}));
+    }
+}
@@ -30,6 +30,7 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -148,4 +149,25 @@ class CommonsCliCommandLineTest {
         
         assertThrows(ClassCastException.class, () -> commandLine.getParameterValueAsType(Map.class, "D"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void Option_with_typed_value() throws CommandLineParseException {
+
+        Options options = new Options();
+        options.addOption("n", "count", true, "Count.");
+        options.addOption("t", "timeout", true, "Timeout.");
+        options.addOption("h", "Help");
+
+        CommandLineParser commandLineParser = new CommonsCliCommandLineParser(options);
+
+        CommandLine commandLine = commandLineParser.parseArguments(new String[]{"-n", "12", "--timeout", "30s", "-h"});
+
+        assertThat(commandLine.getParameterValueAsType(int.class, "n")).contains(12);
+        assertThat(commandLine.getParameterValueAsType(Duration.class, "timeout")).contains(Duration.ofSeconds(30));
+        assertSame(commandLine.getParameterValueAsType(Duration.class, "t").get(), commandLine.getParameterValueAsType(Duration.class, "t").get());
+        assertThat(commandLine.getParameterListAsType(Integer.class, "n")).containsExactly(12);
+        assertFalse(commandLine.getParameterValueAsType(Integer.class, "h").isPresent());
+        assertFalse(commandLine.getParameterValueAsType(Integer.class, "x").isPresent());
+        assertThrows(CommandLineParseException.class, () -> commandLine.getParameterValueAsType(Duration.class, "n"));
+    }
+}
@@ -0,0 +1,225 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Expands argument files given as {@code @file} arguments.
+ * <p>
+ * An argument starting with {@code @} is replaced by the content of the file named by the rest of the argument. An argument file contains one argument per
+ * line encoded in UTF-8 - so arguments like file paths need no quoting. Line breaks may be {@code \n} or {@code \r\n}, the line break of the last line is
+ * optional. An argument starting with {@code @@} is not expanded but stands for itself without the first {@code @}.
+ * </p>
+ * <p>
+ * An argument file is not read into strings: it is mapped into memory and only the offsets of its lines are determined. An argument string is created on
+ * access, so hundreds of thousands of arguments need hardly more memory than the offsets as long as they are streamed instead of being collected.
+ * </p>
+ * <p>
+ * {@link Main} expands argument files only when the system property {@value ENABLED_PROPERTY} is {@code true}, so programs which take arguments starting
+ * with {@code @} are not affected unless they opt in. An argument file which cannot be read makes {@link Main} print an error and exit with status 2.
+ * </p>
+ */
+public final class ArgumentFiles {
+
+    /**
+     * The name of the system property which enables the expansion of argument files by {@link Main}.
+     */
+    public static final String ENABLED_PROPERTY = "progrunnerkit.argfiles.enabled";
+
+    private ArgumentFiles() {
+        // no instances
+    }
+
+    /**
+     * Expands the argument files among the given arguments.
+     *
+     * @param arguments the arguments.
+     *
+     * @return the given list if there is nothing to expand. Otherwise an immutable list with the argument files replaced by their arguments.
+     *
+     * @throws UncheckedIOException when an argument file cannot be read.
+     */
+    public static List<String> expand(List<String> arguments) {
+        if (arguments.stream().noneMatch(argument -> argument.startsWith("@"))) {
+            return arguments;
+        }
+        List<List<String>> segments = new ArrayList<>();
+        List<String> plainArguments = new ArrayList<>();
+        for (String argument : arguments) {
+            if (argument.startsWith("@@")) {
+                plainArguments.add(argument.substring(1));
+            } else if (argument.startsWith("@")) {
+                if (!plainArguments.isEmpty()) {
+                    segments.add(plainArguments);
+                    plainArguments = new ArrayList<>();
+                }
+                segments.add(map(Paths.get(argument.substring(1))));
+            } else {
+                plainArguments.add(argument);
+            }
+        }
+        if (!plainArguments.isEmpty()) {
+            segments.add(plainArguments);
+        }
+        return segments.size() == 1 ? Collections.unmodifiableList(segments.get(0)) : new ConcatenatedList(segments);
+    }
+
+    /**
+     * Maps an argument file.
+     *
+     * @param file the path of the argument file.
+     *
+     * @return an immutable list of the arguments in the file.
+     *
+     * @throws UncheckedIOException when the file cannot be read or is larger than 2 GB.
+     */
+    public static List<String> map(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The argument file " + file + " is larger than 2 GB!");
+            }
+            // the mapping stays valid after the channel has been closed
+            return new MappedArgumentList(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the argument file " + file, e);
+        }
+    }
+
+    /**
+     * The arguments of a mapped argument file. Only the line offsets are kept, an argument string is decoded on access.
+     */
+    private static final class MappedArgumentList extends AbstractList<String> implements RandomAccess {
+
+        private final ByteBuffer content;
+        /** The offset of the first byte of each line followed by the offset after the end of the content. */
+        private final int[] lineStarts;
+
+        MappedArgumentList(MappedByteBuffer content) {
+            this.content = content;
+            int limit = content.limit();
+            int[] starts = new int[1024];
+            int lines = 0;
+            int lineStart = 0;
+            for (int position = 0; position < limit; position++) {
+                if (content.get(position) == '\n') {
+                    starts = add(starts, lines++, lineStart);
+                    lineStart = position + 1;
+                }
+            }
+            if (lineStart < limit) {
+                starts = add(starts, lines++, lineStart);
+            }
+            // the end of the last line
+            starts = add(starts, lines, limit);
+            this.lineStarts = Arrays.copyOf(starts, lines + 1);
+        }
+
+        private static int[] add(int[] values, int index, int value) {
+            int[] target = index < values.length ? values : Arrays.copyOf(values, values.length * 2);
+            target[index] = value;
+            return target;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= this.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+            }
+            int start = this.lineStarts[index];
+            int end = this.lineStarts[index + 1];
+            // without the line break
+            if (end > start && this.content.get(end - 1) == '\n') {
+                end--;
+            }
+            if (end > start && this.content.get(end - 1) == '\r') {
+                end--;
+            }
+            byte[] bytes = new byte[end - start];
+            ByteBuffer line = this.content.duplicate();
+            line.position(start);
+            line.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int size() {
+            return this.lineStarts.length - 1;
+        }
+    }
+
+    /**
+     * A view of several lists as one list.
+     */
+    private static final class ConcatenatedList extends AbstractList<String> implements RandomAccess {
+
+        private final List<List<String>> segments;
+        /** The index of the first element of each segment followed by the total size. */
+        private final int[] segmentStarts;
+
+        ConcatenatedList(List<List<String>> segments) {
+            this.segments = segments;
+            this.segmentStarts = new int[segments.size() + 1];
+            for (int i = 0; i < segments.size(); i++) {
+                this.segmentStarts[i + 1] = this.segmentStarts[i] + segments.get(i).size();
+            }
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= this.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+            }
+            int segment = Arrays.binarySearch(this.segmentStarts, index);
+            if (segment < 0) {
+                segment = -segment - 2;
+            } else {
+                // skip empty segments starting at the same index
+                while (this.segmentStarts[segment + 1] == index) {
+                    segment++;
+                }
+            }
+            return this.segments.get(segment).get(index - this.segmentStarts[segment]);
+        }
+
+        @Override
+        public int size() {
+            return this.segmentStarts[this.segmentStarts.length - 1];
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Reads argument vectors from a character stream - one vector per line or, if requested, one vector per NUL-terminated record.
+ * <p>
+ * The arguments of a line are separated by whitespace. Single quotes enclose a literal argument, double quotes enclose an argument in which a backslash
+ * escapes the next character and outside of quotes a backslash escapes the next character as well. Blank lines and lines starting with {@code #} are
+ * skipped.
+ * </p>
+ * <p>
+ * A NUL-terminated record is taken literally as the single argument of its vector, like {@code xargs -0} does, so the output of {@code find -print0} can be
+ * processed whatever characters the file names contain. Only empty records are skipped.
+ * </p>
+ * <p>
+ * The vectors are read lazily one at a time, so the size of the input is not limited by the available memory. A line which cannot be split is not skipped:
+ * {@link #next()} throws an {@link IllegalArgumentException} for it and the following lines can still be read.
+ * </p>
+ */
+final class ArgumentVectorReader implements Iterator<List<String>> {
+
+    private final BufferedReader reader;
+    private final boolean nulTerminated;
+    private final StringBuilder record = new StringBuilder();
+    private List<String> next;
+    private IllegalArgumentException nextFailure;
+    private boolean endOfInput;
+
+    ArgumentVectorReader(BufferedReader reader) {
+        this(reader, false);
+    }
+
+    /**
+     * Creates a new instance of this reader.
+     *
+     * @param reader the reader to read the argument vectors from.
+     * @param nulTerminated {@code true} if each vector is a single argument terminated by a NUL character instead of a line of arguments.
+     */
+    ArgumentVectorReader(BufferedReader reader, boolean nulTerminated) {
+        this.reader = Objects.requireNonNull(reader);
+        this.nulTerminated = nulTerminated;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (this.next == null && this.nextFailure == null && !this.endOfInput) {
+            String line = this.readRecord();
+            if (line == null) {
+                this.endOfInput = true;
+            } else if (this.nulTerminated) {
+                if (!line.isEmpty()) {
+                    this.next = Collections.singletonList(line);
+                }
+            } else if (!line.trim().isEmpty() && !line.trim().startsWith("#")) {
+                try {
+                    this.next = split(line);
+                } catch (IllegalArgumentException e) {
+                    this.nextFailure = e;
+                }
+            }
+        }
+        return this.next != null || this.nextFailure != null;
+    }
+
+    /**
+     * @return the next argument vector.
+     *
+     * @throws NoSuchElementException when there are no more vectors.
+     * @throws IllegalArgumentException when the next line cannot be split. The line is consumed.
+     */
+
+    @Override
+    public List<String> next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (this.nextFailure != null) {
+            IllegalArgumentException failure = this.nextFailure;
+            this.nextFailure = null;
+            throw failure;
+        }
+        List<String> vector = this.next;
+        this.next = null;
+        return vector;
+    }
+
+    private String readRecord() {
+        try {
+            return this.nulTerminated ? this.readNulTerminatedRecord() : this.reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String readNulTerminatedRecord() throws IOException {
+        this.record.setLength(0);
+        int c = this.reader.read();
+        if (c < 0) {
+            return null;
+        }
+        while (c >= 0 && c != 0) {
+            this.record.append((char) c);
+            c = this.reader.read();
+        }
+        return this.record.toString();
+    }
+
+    /**
+     * Splits a line into its arguments.
+     *
+     * @param line the line to split.
+     *
+     * @return an immutable list of the arguments.
+     *
+     * @throws IllegalArgumentException when a quote is not closed.
+     */
+    static List<String> split(String line) {
+        List<String> arguments = new ArrayList<>();
+        StringBuilder argument = new StringBuilder();
+        boolean inArgument = false;
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quote == '\'') {
+                if (c == '\'') {
+                    quote = 0;
+                } else {
+                    argument.append(c);
+                }
+            } else if (c == '\\' && i + 1 < line.length() && (quote == 0 || line.charAt(i + 1) == '"' || line.charAt(i + 1) == '\\')) {
+                argument.append(line.charAt(++i));
+                inArgument = true;
+            } else if (quote == '"') {
+                if (c == '"') {
+                    quote = 0;
+                } else {
+                    argument.append(c);
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+                inArgument = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inArgument) {
+                    arguments.add(argument.toString());
+                    argument.setLength(0);
+                    inArgument = false;
+                }
+            } else {
+                argument.append(c);
+                inArgument = true;
+            }
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("Unclosed quote in argument line: " + line);
+        }
+        if (inArgument) {
+            arguments.add(argument.toString());
+        }
+        return Collections.unmodifiableList(arguments);
+    }
+}
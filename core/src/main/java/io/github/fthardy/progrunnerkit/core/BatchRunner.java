@@ -0,0 +1,357 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes many argument vectors as invocations of one {@link ProgramRunner.Session session}.
+ * <p>
+ * The session is opened once, so the start phase tasks which are not {@link PerInvocationTask per-invocation tasks} (i.e. the boot of a container) are run only
+ * once. The argument vectors are then processed concurrently by a fixed number of worker threads, each vector as one invocation. When all vectors are
+ * processed the session is closed which runs the end phase.
+ * </p>
+ * <p>
+ * The output written to {@code System.out} and {@code System.err} by the thread of an invocation is collected and written as a whole when the invocation is
+ * complete, so the output of concurrent invocations is never interleaved. The output is written in the order in which the invocations complete or, if
+ * requested, in the order of the input. Following the output of an invocation a status line with the index of the invocation (starting with 0), a tab and its
+ * exit status is written to the status stream.
+ * </p>
+ * <p>
+ * The number of invocations which are in process or whose output is waiting to be written is limited to twice the parallelism. Reading further argument vectors
+ * is suspended until there is room again, so the memory needed does not depend on the number of vectors.
+ * </p>
+ * <p>
+ * {@link Main} runs in batch mode when the system property {@value BATCH_FILE_PROPERTY} is set. When the system property {@value STDIN_PROPERTY} is set
+ * instead, the argument vectors are streamed from {@code System.in}. Since reading is suspended while the window is full, a slow consumer of the output
+ * throttles the producer of the input, which makes this mode suitable for pipelines of unlimited length.
+ * </p>
+ */
+public final class BatchRunner {
+
+    /**
+     * The name of the system property which defines the path of the file with the argument vectors. The file is read with the default charset.
+     */
+    public static final String BATCH_FILE_PROPERTY = "progrunnerkit.batch.file";
+
+    /**
+     * The name of the system property which enables reading the argument vectors from {@code System.in}. The value defines how the vectors are delimited:
+     * {@code lines} for one vector per line or {@code nul} for one vector per NUL-terminated record, which is taken literally as its only argument. The input
+     * is read with the default charset.
+     */
+    public static final String STDIN_PROPERTY = "progrunnerkit.batch.stdin";
+
+    /**
+     * The name of the system property which defines the number of invocations to be processed concurrently. Default is the number of available processors.
+     */
+    public static final String PARALLELISM_PROPERTY = "progrunnerkit.batch.parallelism";
+
+    /**
+     * The name of the system property which defines whether the output is written in the order of the input ({@code true}) or in the order of completion.
+     * Default is {@code false}.
+     */
+    public static final String ORDERED_PROPERTY = "progrunnerkit.batch.ordered";
+
+    /**
+     * The name of the system property which defines the path of the file to write the status lines to. Default is {@code System.err}.
+     */
+    public static final String STATUS_FILE_PROPERTY = "progrunnerkit.batch.status.file";
+
+    private final ProgramRunner programRunner;
+    private final int parallelism;
+    private final boolean ordered;
+
+    /**
+     * Creates a new instance of this batch runner.
+     *
+     * @param programRunner the program runner to open the session with.
+     * @param parallelism the number of invocations to be processed concurrently.
+     * @param ordered {@code true} to write the output in the order of the input. Otherwise the output is written in the order of completion.
+     */
+    public BatchRunner(ProgramRunner programRunner, int parallelism, boolean ordered) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be at least 1!");
+        }
+        this.programRunner = Objects.requireNonNull(programRunner);
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+    }
+
+    /**
+     * Runs the batch mode as configured by the system properties.
+     *
+     * @param programRunner the program runner to run the session with.
+     * @param arguments the arguments for the tasks which are run once for the session.
+     *
+     * @return the number of failed invocations or -1 when the start phase has been ended before the first invocation.
+     *
+     * @throws UncheckedIOException when the input cannot be read or the status file cannot be written.
+     * @throws IllegalArgumentException when the value of {@value STDIN_PROPERTY} is unknown.
+     */
+    static int runFromSystemProperties(ProgramRunner programRunner, List<String> arguments) {
+        int parallelism = Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors());
+        BatchRunner batchRunner = new BatchRunner(programRunner, parallelism, Boolean.getBoolean(ORDERED_PROPERTY));
+
+        String stdinDelimiter = System.getProperty(STDIN_PROPERTY);
+        if (stdinDelimiter != null && !"lines".equals(stdinDelimiter) && !"nul".equals(stdinDelimiter)) {
+            throw new IllegalArgumentException("Unknown delimiter '" + stdinDelimiter + "' for " + STDIN_PROPERTY + " - expected 'lines' or 'nul'!");
+        }
+        String statusFile = System.getProperty(STATUS_FILE_PROPERTY);
+        try (BufferedReader reader = stdinDelimiter != null ? new BufferedReader(new InputStreamReader(System.in, Charset.defaultCharset()))
+                : Files.newBufferedReader(Paths.get(System.getProperty(BATCH_FILE_PROPERTY)), Charset.defaultCharset());
+             PrintStream statusStream = statusFile == null ? null : new PrintStream(Files.newOutputStream(Paths.get(statusFile)), false, "UTF-8")) {
+            return batchRunner.run(arguments, new ArgumentVectorReader(reader, "nul".equals(stdinDelimiter)), statusStream == null ? System.err : statusStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Processes the given argument vectors.
+     * <p>
+     * {@code System.out} and {@code System.err} are replaced for the duration of the batch in order to collect the output of the invocations.
+     * </p>
+     *
+     * @param arguments the arguments for the tasks which are run once for the session.
+     * @param argumentVectors the argument vectors. Each vector is requested when there is room for another invocation. When requesting a vector throws an
+     * {@link IllegalArgumentException} (i.e. a line with an unclosed quote) the vector is reported as a failed invocation with the message of the exception
+     * and the batch continues with the next vector.
+     * @param statusStream the stream to write the status lines to.
+     *
+     * @return the number of invocations with an exit status other than 0 or -1 when the start phase has been ended before the first invocation.
+     */
+    public int run(List<String> arguments, Iterator<List<String>> argumentVectors, PrintStream statusStream) {
+        Objects.requireNonNull(argumentVectors);
+        Objects.requireNonNull(statusStream);
+
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        InvocationOutputRouter outRouter = new InvocationOutputRouter(originalOut);
+        InvocationOutputRouter errRouter = new InvocationOutputRouter(originalErr);
+        System.setOut(new PrintStream(outRouter, true));
+        System.setErr(new PrintStream(errRouter, true));
+
+        // permits for the invocations which are queued, running or waiting for their output to be written
+        int windowSize = 2 * this.parallelism;
+        AtomicInteger workerCount = new AtomicInteger();
+        // a permit is released before its worker returns, so the queue must be able to hold the whole window
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(this.parallelism, this.parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(windowSize), runnable -> {
+                    Thread worker = new Thread(runnable, "batch-invocation-" + workerCount.incrementAndGet());
+                    worker.setDaemon(true);
+                    return worker;
+                });
+        Semaphore window = new Semaphore(windowSize);
+        ResultWriter resultWriter = new ResultWriter(originalOut, originalErr, statusStream, window);
+
+        try (ProgramRunner.Session session = this.programRunner.openSession(arguments)) {
+            if (session.isStartPhaseEnded()) {
+                return -1;
+            }
+            int index = 0;
+            while (argumentVectors.hasNext()) {
+                int invocationIndex = index++;
+                List<String> argumentVector;
+                try {
+                    argumentVector = argumentVectors.next();
+                } catch (IllegalArgumentException e) {
+                    window.acquireUninterruptibly();
+                    byte[] message = (e.getMessage() + System.lineSeparator()).getBytes(Charset.defaultCharset());
+                    resultWriter.completed(new InvocationResult(invocationIndex, 1, new byte[0], message));
+                    continue;
+                }
+                window.acquireUninterruptibly();
+                executor.execute(() -> resultWriter.completed(invoke(session, invocationIndex, argumentVector, outRouter, errRouter)));
+            }
+            executor.shutdown();
+            awaitTermination(executor);
+        } finally {
+            executor.shutdownNow();
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+            statusStream.flush();
+        }
+        return resultWriter.failedInvocations;
+    }
+
+    private static InvocationResult invoke(ProgramRunner.Session session, int index, List<String> argumentVector,
+                                           InvocationOutputRouter outRouter, InvocationOutputRouter errRouter) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        outRouter.bind(out);
+        errRouter.bind(err);
+        int exitStatus;
+        try {
+            exitStatus = session.invoke(index, argumentVector);
+        } catch (Throwable e) {
+            // an error must not get lost either, otherwise the permit of the invocation would never be released
+            e.printStackTrace();
+            exitStatus = 1;
+        } finally {
+            System.out.flush();
+            System.err.flush();
+            outRouter.unbind();
+            errRouter.unbind();
+        }
+        return new InvocationResult(index, exitStatus, out.toByteArray(), err.toByteArray());
+    }
+
+    private static void awaitTermination(ThreadPoolExecutor executor) {
+        boolean interrupted = false;
+        while (!executor.isTerminated()) {
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class InvocationResult {
+
+        private final int index;
+        private final int exitStatus;
+        private final byte[] out;
+        private final byte[] err;
+
+        InvocationResult(int index, int exitStatus, byte[] out, byte[] err) {
+            this.index = index;
+            this.exitStatus = exitStatus;
+            this.out = out;
+            this.err = err;
+        }
+    }
+
+    /**
+     * Writes the results of the invocations and releases their permits.
+     */
+    private final class ResultWriter {
+
+        private final PrintStream out;
+        private final PrintStream err;
+        private final PrintStream statusStream;
+        private final Semaphore window;
+        private final Map<Integer, InvocationResult> pendingResults = new HashMap<>();
+        private int nextIndex;
+        private int failedInvocations;
+
+        ResultWriter(PrintStream out, PrintStream err, PrintStream statusStream, Semaphore window) {
+            this.out = out;
+            this.err = err;
+            this.statusStream = statusStream;
+            this.window = window;
+        }
+
+        synchronized void completed(InvocationResult result) {
+            if (!BatchRunner.this.ordered) {
+                this.write(result);
+                return;
+            }
+            this.pendingResults.put(result.index, result);
+            for (InvocationResult next = this.pendingResults.remove(this.nextIndex); next != null;
+                 next = this.pendingResults.remove(this.nextIndex)) {
+                this.write(next);
+                this.nextIndex++;
+            }
+        }
+
+        private void write(InvocationResult result) {
+            try {
+                this.out.write(result.out, 0, result.out.length);
+                this.out.flush();
+                this.err.write(result.err, 0, result.err.length);
+                this.err.flush();
+                this.statusStream.println(result.index + "\t" + result.exitStatus);
+                if (result.exitStatus != 0) {
+                    this.failedInvocations++;
+                }
+            } finally {
+                this.window.release();
+            }
+        }
+    }
+
+    /**
+     * An output stream which writes to the buffer bound to the current thread or to the original stream if no buffer is bound.
+     */
+    private static final class InvocationOutputRouter extends OutputStream {
+
+        private final OutputStream original;
+        private final ThreadLocal<OutputStream> boundBuffer = new ThreadLocal<>();
+
+        InvocationOutputRouter(OutputStream original) {
+            this.original = original;
+        }
+
+        void bind(OutputStream buffer) {
+            this.boundBuffer.set(buffer);
+        }
+
+        void unbind() {
+            this.boundBuffer.remove();
+        }
+
+        private OutputStream target() {
+            OutputStream buffer = this.boundBuffer.get();
+            return buffer == null ? this.original : buffer;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.target().write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            this.target().write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            this.target().flush();
+        }
+    }
+}
@@ -23,11 +23,14 @@ SOFTWARE.
  */
 package io.github.fthardy.progrunnerkit.core;
 
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.List;
 
 /**
  * This class provides a generic and extendable main-rountine-implementation. It can be used as entry-point for any kind of JavaSE program.
+ * 
+ * @see ProgramRunner
  */
 public final class Main {
     
@@ -68,47 +71,118 @@ public final class Main {
      * For each program phase the collection of tasks is collected by a {@link ServiceImplProvider}. The execution of the tasks is implemented by
      * {@link ProgramTaskRunner}. 
      * </p>
+     * <p>
+     * When the system property {@value TraceEventRecorder#TRACE_FILE_PROPERTY} is set the run is recorded by a {@link TraceEventRecorder} and written as
+     * trace event file after the end phase.
+     * </p>
+     * <p>
+     * The tasks and controllers are discovered anew for every call. Use a {@link ProgramRunner} to discover them once and to run the phases many times.
+     * </p>
+     * <p>
+     * The start phase tasks are run as a {@link ProgramInvocation} which is complete before the end phase is run, so per-invocation resources are not
+     * available to the end phase tasks. A task must not run the program again on its own thread. See {@link ProgramRunner#run(List)} for details.
+     * </p>
+     * <p>
+     * When the system property {@value ArgumentFiles#ENABLED_PROPERTY} is {@code true} arguments of the form {@code @file} are replaced by the arguments in
+     * the given file, one per line. See {@link ArgumentFiles} for details.
+     * </p>
+     * <p>
+     * When the system property {@value BatchRunner#BATCH_FILE_PROPERTY} is set the program runs in batch mode: The argument vectors from the batch file are
+     * processed concurrently as invocations of one session. When the system property {@value BatchRunner#STDIN_PROPERTY} is set the argument vectors are
+     * streamed from {@code System.in} instead. See {@link BatchRunner} for details.
+     * </p>
+     * <p>
+     * When the class path declares subcommands (see {@link SubcommandCatalog}) the first argument which doesn't start with a dash chooses the subcommand.
+     * Only the tasks and controllers of the chosen subcommand are loaded, in addition to those of the service configuration files. The arguments are passed
+     * on unchanged. An option in front of the subcommand must therefore be given with its value in the form {@code --name=value}. If the subcommand is
+     * missing or unknown the available subcommands are printed to {@code System.err}.
+     * </p>
+     * <p>
+     * The JVM is exited with status 1 when an invocation of a batch has failed and with status 2 when the subcommand is missing or unknown
+     * or an argument file cannot be read.
+     * </p>
      * 
      * @param args the arguments given at the command line.
      */
     public static void main(String[] args) {
+        int exitStatus = run(args);
+        if (exitStatus != 0) {
+            System.exit(exitStatus);
+        }
+    }
+
+    /**
+     * Runs the program as described by {@link #main(String[])} without exiting the JVM.
+     *
+     * @param args the arguments given at the command line.
+     *
+     * @return the exit status for the JVM.
+     */
+    static int run(String[] args) {
         
-        final List<String> arguments = Arrays.asList(args);
-        
-        boolean startPhaseTasksAvailable = true;
+        final List<String> arguments;
+        if (Boolean.getBoolean(ArgumentFiles.ENABLED_PROPERTY)) {
+            try {
+                arguments = ArgumentFiles.expand(Arrays.asList(args));
+            } catch (UncheckedIOException e) {
+                System.err.println(e.getMessage() + ": " + e.getCause());
+                return 2;
+            }
+        } else {
+            arguments = Arrays.asList(args);
+        }
         
-        ProgramPhaseController startPhaseController = 
-                _programPhaseControllerFactory.createInstance(StartPhaseController.class, new StartPhaseController() {});
+        final TraceEventRecorder traceRecorder = TraceEventRecorder.activateIfEnabled();
         try {
-            startPhaseController.onPhaseBegin();
-            
-            ProgramTaskRunner startPhaseRunner = _progamTaskRunnerFactory.createInstance(StartPhaseTask.class, startPhaseController);
-            startPhaseTasksAvailable = startPhaseRunner.runProgramTasks(arguments);
-            if (!startPhaseTasksAvailable) {
-                startPhaseController.noTaskAvailable();
+            SubcommandCatalog subcommands = SubcommandCatalog.load();
+            if (!subcommands.isEmpty()) {
+                return runSubcommand(subcommands, arguments);
             }
+            if (isBatchMode()) {
+                return batchExitStatus(BatchRunner.runFromSystemProperties(new ProgramRunner(), arguments));
+            }
+            ProgramRunner.runPhases(arguments,
+                    () -> _programPhaseControllerFactory.createInstance(StartPhaseController.class, new StartPhaseController() {}),
+                    controller -> _progamTaskRunnerFactory.createInstance(StartPhaseTask.class, controller),
+                    () -> _programPhaseControllerFactory.createInstance(EndPhaseController.class, new EndPhaseController() {}),
+                    controller -> _progamTaskRunnerFactory.createInstance(EndPhaseTask.class, controller));
+            return 0;
         } finally {
-            startPhaseController.onPhaseEnd();
-            
-            if (startPhaseTasksAvailable) {
-                
-                ProgramPhaseController endPhaseController =
-                        _programPhaseControllerFactory.createInstance(EndPhaseController.class, new EndPhaseController() {});
-                
-                endPhaseController.onPhaseBegin();
-                
-                try {
-                    ProgramTaskRunner endPhaseRunner = _progamTaskRunnerFactory.createInstance(EndPhaseTask.class, endPhaseController);
-                    if (!endPhaseRunner.runProgramTasks(arguments)) {
-                        endPhaseController.noTaskAvailable();
-                    }
-                } finally {
-                    endPhaseController.onPhaseEnd();
-                }
+            if (traceRecorder != null) {
+                TraceEventRecorder.deactivateAndWrite(traceRecorder);
             }
         }
     }
     
+    private static boolean isBatchMode() {
+        return System.getProperty(BatchRunner.BATCH_FILE_PROPERTY) != null || System.getProperty(BatchRunner.STDIN_PROPERTY) != null;
+    }
+
+    private static int batchExitStatus(int failedInvocations) {
+        return failedInvocations > 0 ? 1 : 0;
+    }
+
+    static int runSubcommand(SubcommandCatalog subcommands, List<String> arguments) {
+        int nameIndex = SubcommandCatalog.indexOfSubcommandName(arguments);
+        SubcommandDescriptor subcommand = nameIndex < 0 ? null : subcommands.find(arguments.get(nameIndex)).orElse(null);
+        if (subcommand == null) {
+            System.err.println(nameIndex < 0 ? "No subcommand given." : "Unknown subcommand '" + arguments.get(nameIndex) + "'.");
+            if (nameIndex > 0 && !arguments.get(nameIndex - 1).contains("=")) {
+                System.err.println("If '" + arguments.get(nameIndex - 1) + "' takes a value it must be given as " + arguments.get(nameIndex - 1) + "=<value>.");
+            }
+            System.err.println("Available subcommands:");
+            subcommands.getSubcommands().forEach(s -> System.err.println(String.format("  %-16s %s", s.getName(), s.getDescription())));
+            return 2;
+        }
+        SubcommandDescriptor.select(subcommand);
+        ProgramRunner programRunner = new ProgramRunner(subcommand);
+        if (isBatchMode()) {
+            return batchExitStatus(BatchRunner.runFromSystemProperties(programRunner, arguments));
+        }
+        programRunner.run(arguments);
+        return 0;
+    }
+
     // No instances 
     private Main() {
         // intentionally empty
@@ -0,0 +1,43 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+/**
+ * Defines the semantic type interface for a start phase task which belongs to the per-invocation part of the start phase.
+ * <p>
+ * Usually the start phase is run once for every program run and this interface makes no difference. When many invocations are processed within one
+ * {@link ProgramRunner.Session session} (i.e. in batch mode) the start phase is split: All other start phase tasks are run once when the session is opened
+ * (i.e. to boot a container) and the per-invocation tasks are run for every invocation with the arguments of the invocation (i.e. to parse the command line
+ * and to run the application). Invocations can be processed concurrently, so per-invocation tasks must be thread safe.
+ * </p>
+ * <p>
+ * Implementations are provided through the service configuration file of {@link StartPhaseTask}.
+ * </p>
+ *
+ * @see ProgramRunner.Session#invoke(int, java.util.List)
+ * @see ProgramInvocation
+ */
+public interface PerInvocationTask extends StartPhaseTask {
+    // intentionally empty
+}
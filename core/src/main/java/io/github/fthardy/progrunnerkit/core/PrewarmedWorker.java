@@ -0,0 +1,227 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The entry point of a worker JVM of a {@link PrewarmedWorkerPool}.
+ * <p>
+ * A worker opens a {@link ProgramRunner.Session session} which runs all start phase tasks except the {@link PerInvocationTask per-invocation tasks}, i.e. the
+ * boot of a container. Then it connects to the pool and waits for the arguments of exactly one invocation. The invocation is processed with the standard
+ * streams forwarded over the connection, the session is closed and the JVM exits with the exit status of the invocation.
+ * </p>
+ * <p>
+ * The output written while the session is opened goes to the standard error of the worker process, so that the standard output of the launcher is not
+ * polluted by a booting worker.
+ * </p>
+ */
+public final class PrewarmedWorker {
+
+    /** A frame from the worker with output for the standard output. */
+    static final byte STDOUT_FRAME = 1;
+
+    /** A frame from the worker with output for the standard error. */
+    static final byte STDERR_FRAME = 2;
+
+    /** A frame from the worker without payload which requests the next chunk of the standard input. */
+    static final byte STDIN_REQUEST_FRAME = 3;
+
+    private PrewarmedWorker() {
+        // no instances
+    }
+
+    /**
+     * Opens the session, waits for the invocation and processes it.
+     *
+     * @param args the port of the pool on the loopback interface, the token identifying the worker and the arguments for the session.
+     */
+    public static void main(String[] args) {
+        int port = Integer.parseInt(args[0]);
+        String token = args[1];
+        List<String> sessionArguments = Arrays.asList(args).subList(2, args.length);
+
+        PrintStream processErr = System.err;
+        System.setOut(processErr);
+
+        int exitStatus;
+        try (ProgramRunner.Session session = new ProgramRunner().openSession(sessionArguments)) {
+            if (session.isStartPhaseEnded()) {
+                processErr.println("The start phase has been ended before the worker was ready!");
+                exitStatus = 1;
+            } else {
+                exitStatus = process(session, port, token);
+            }
+        } catch (ConnectException | EOFException e) {
+            // the pool has been closed while this worker was booting or on standby
+            exitStatus = 1;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace(processErr);
+            exitStatus = 1;
+        }
+        System.out.flush();
+        System.err.flush();
+        System.exit(exitStatus);
+    }
+
+    private static int process(ProgramRunner.Session session, int port, String token) throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        DataOutputStream toPool = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DataInputStream fromPool = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+        // connecting signals the readiness - reading the arguments blocks until the worker is chosen for an invocation
+        toPool.writeUTF(token);
+        toPool.flush();
+        List<String> arguments = readArguments(fromPool);
+
+        System.setIn(new StdinFrameInputStream(fromPool, toPool));
+        System.setOut(new PrintStream(new OutputFrameOutputStream(toPool, STDOUT_FRAME), true));
+        System.setErr(new PrintStream(new OutputFrameOutputStream(toPool, STDERR_FRAME), true));
+        return session.invoke(0, arguments);
+    }
+
+    /**
+     * Writes the arguments of an invocation.
+     */
+    static void writeArguments(DataOutputStream out, List<String> arguments) throws IOException {
+        out.writeInt(arguments.size());
+        for (String argument : arguments) {
+            byte[] bytes = argument.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads the arguments of an invocation.
+     */
+    static List<String> readArguments(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<String> arguments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            arguments.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return arguments;
+    }
+
+    /**
+     * Sends everything written as a frame of the given type.
+     */
+    private static final class OutputFrameOutputStream extends OutputStream {
+
+        private final DataOutputStream out;
+        private final byte frameType;
+
+        OutputFrameOutputStream(DataOutputStream out, byte frameType) {
+            this.out = out;
+            this.frameType = frameType;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            // both streams share the connection
+            synchronized (this.out) {
+                this.out.writeByte(this.frameType);
+                this.out.writeInt(len);
+                this.out.write(b, off, len);
+                this.out.flush();
+            }
+        }
+    }
+
+    /**
+     * Reads the standard input from the frames sent by the pool. A frame is requested when the previous one has been consumed, so the pool reads no more of its
+     * input than the invocation asks for. A frame is a length followed by the data; a negative length marks the end of the input.
+     */
+    private static final class StdinFrameInputStream extends InputStream {
+
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private int remaining;
+        private boolean endOfInput;
+
+        StdinFrameInputStream(DataInputStream in, DataOutputStream out) {
+            this.in = in;
+            this.out = out;
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            byte[] b = new byte[1];
+            return this.read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (this.remaining == 0 && !this.endOfInput) {
+                // the output streams share the connection
+                synchronized (this.out) {
+                    this.out.writeByte(STDIN_REQUEST_FRAME);
+                    this.out.flush();
+                }
+                try {
+                    this.remaining = this.in.readInt();
+                } catch (EOFException e) {
+                    this.remaining = -1;
+                }
+                this.endOfInput = this.remaining < 0;
+            }
+            if (this.endOfInput) {
+                return -1;
+            }
+            int read = this.in.read(b, off, Math.min(len, this.remaining));
+            if (read < 0) {
+                this.endOfInput = true;
+                return -1;
+            }
+            this.remaining -= read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of worker JVMs on standby which process one invocation each.
+ * <p>
+ * Each worker is a JVM running {@link PrewarmedWorker} which has already run the start phase tasks that are not {@link PerInvocationTask per-invocation
+ * tasks}, i.e. the boot of a container, and waits for an invocation. An invocation is handed to a worker together with its standard streams over a socket on
+ * the loopback interface. The worker is retired afterwards and a replacement is started in the background as soon as a worker is taken from the pool, so an
+ * invocation pays only for its own work as long as invocations don't arrive faster than workers boot.
+ * </p>
+ * <p>
+ * Unlike a {@link BatchRunner} every invocation runs in its own process. This isolates invocations using native libraries or calling {@code System.exit}.
+ * The exit status of an invocation is the exit status of its worker process.
+ * </p>
+ * <p>
+ * The {@link #main(String[])} method is a launcher which reads argument vectors line by line from {@code System.in} - like {@link Main} does with the
+ * system property {@value BatchRunner#STDIN_PROPERTY} - and processes them one after the other with a pool of workers.
+ * </p>
+ */
+public final class PrewarmedWorkerPool implements AutoCloseable {
+
+    /**
+     * The name of the system property which defines the number of workers on standby of the launcher. Default is 2.
+     */
+    public static final String SIZE_PROPERTY = "progrunnerkit.workers.size";
+
+    /**
+     * The name of the system property which defines the arguments for the worker JVMs of the launcher. The value is split into arguments like an argument
+     * vector of the batch mode.
+     */
+    public static final String JVM_ARGUMENTS_PROPERTY = "progrunnerkit.workers.jvm.arguments";
+
+    private static final int ACCEPT_POLL_MILLIS = 200;
+
+    private final List<String> workerCommand;
+    private final List<String> sessionArguments;
+    private final BlockingQueue<CompletableFuture<Worker>> standby = new LinkedBlockingQueue<>();
+    private final ExecutorService workerStarter;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new pool and starts its workers in the background. The workers are started with the JVM and the class path of the current JVM.
+     *
+     * @param size the number of workers on standby.
+     * @param jvmArguments the arguments for the worker JVMs, e.g. system properties or memory settings.
+     * @param sessionArguments the arguments for the start phase tasks run by the workers before an invocation arrives.
+     */
+    public PrewarmedWorkerPool(int size, List<String> jvmArguments, List<String> sessionArguments) {
+        this(size, System.getProperty("java.class.path"), jvmArguments, sessionArguments);
+    }
+
+    PrewarmedWorkerPool(int size, String classPath, List<String> jvmArguments, List<String> sessionArguments) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The size must be at least 1!");
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArguments);
+        command.add("-cp");
+        command.add(Objects.requireNonNull(classPath));
+        command.add(PrewarmedWorker.class.getName());
+        this.workerCommand = Collections.unmodifiableList(command);
+        this.sessionArguments = Collections.unmodifiableList(new ArrayList<>(sessionArguments));
+
+        AtomicInteger starterCount = new AtomicInteger();
+        this.workerStarter = Executors.newCachedThreadPool(runnable -> {
+            Thread starter = new Thread(runnable, "worker-starter-" + starterCount.incrementAndGet());
+            starter.setDaemon(true);
+            return starter;
+        });
+        for (int i = 0; i < size; i++) {
+            this.startWorker();
+        }
+    }
+
+    private void startWorker() {
+        this.standby.add(CompletableFuture.supplyAsync(this::bootWorker, this.workerStarter));
+    }
+
+    private Worker bootWorker() {
+        String token = UUID.randomUUID().toString();
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            serverSocket.setSoTimeout(ACCEPT_POLL_MILLIS);
+            List<String> command = new ArrayList<>(this.workerCommand);
+            command.add(Integer.toString(serverSocket.getLocalPort()));
+            command.add(token);
+            command.addAll(this.sessionArguments);
+            Process process = new ProcessBuilder(command).inheritIO().redirectInput(ProcessBuilder.Redirect.PIPE).start();
+            process.getOutputStream().close();
+            try {
+                while (true) {
+                    if (this.closed || !process.isAlive()) {
+                        throw new IllegalStateException("The worker has terminated before it was ready!");
+                    }
+                    try {
+                        Socket socket = serverSocket.accept();
+                        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                        if (token.equals(in.readUTF())) {
+                            return new Worker(process, socket, in);
+                        }
+                        socket.close();
+                    } catch (SocketTimeoutException e) {
+                        // check the worker again
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                process.destroyForcibly();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Processes an invocation with a worker from the pool. If no worker is on standby the call waits until a worker is ready.
+     *
+     * @param arguments the arguments of the invocation.
+     * @param in the standard input of the invocation or {@code null} for an empty input. It is read only as far as the invocation reads its input.
+     * @param out the stream to write the standard output of the invocation to.
+     * @param err the stream to write the standard error of the invocation to.
+     *
+     * @return the exit status of the worker process.
+     *
+     * @throws IllegalStateException when the pool is closed or the worker could not be started.
+     * @throws UncheckedIOException when the communication with the worker has failed.
+     */
+    public int invoke(List<String> arguments, InputStream in, OutputStream out, OutputStream err) {
+        Objects.requireNonNull(arguments);
+        Objects.requireNonNull(out);
+        Objects.requireNonNull(err);
+        if (this.closed) {
+            throw new IllegalStateException("The pool has been closed!");
+        }
+
+        CompletableFuture<Worker> nextWorker;
+        synchronized (this) {
+            nextWorker = this.standby.poll();
+            if (nextWorker == null) {
+                throw new IllegalStateException("The pool has been closed!");
+            }
+            this.startWorker();
+        }
+        Worker worker;
+        try {
+            worker = nextWorker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a worker!", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("The worker could not be started!", e.getCause());
+        }
+        return worker.process(arguments, in, out, err);
+    }
+
+    /**
+     * Stops the workers on standby. Invocations in progress are not affected.
+     */
+    @Override
+    public synchronized void close() {
+        this.closed = true;
+        for (CompletableFuture<Worker> worker = this.standby.poll(); worker != null; worker = this.standby.poll()) {
+            worker.thenAccept(Worker::retire);
+        }
+        this.workerStarter.shutdown();
+    }
+
+    /**
+     * Reads argument vectors line by line from {@code System.in} and processes each with a worker. The arguments of this method are the arguments for the start
+     * phase tasks run by the workers. A status line with the index of the invocation, a tab and its exit status is written to {@code System.err} after each
+     * invocation.
+     *
+     * @param args the arguments for the start phase tasks run by the workers.
+     */
+    public static void main(String[] args) {
+        List<String> jvmArguments = ArgumentVectorReader.split(System.getProperty(JVM_ARGUMENTS_PROPERTY, ""));
+        try (PrewarmedWorkerPool pool = new PrewarmedWorkerPool(Integer.getInteger(SIZE_PROPERTY, 2), jvmArguments, Arrays.asList(args))) {
+            Iterator<List<String>> argumentVectors = new ArgumentVectorReader(new BufferedReader(new InputStreamReader(System.in, Charset.defaultCharset())));
+            for (int index = 0; argumentVectors.hasNext(); index++) {
+                int exitStatus = pool.invoke(argumentVectors.next(), null, System.out, System.err);
+                System.out.flush();
+                System.err.println(index + "\t" + exitStatus);
+            }
+        }
+    }
+
+    /**
+     * A worker process connected to the pool.
+     */
+    private static final class Worker {
+
+        private final Process process;
+        private final Socket socket;
+        private final DataInputStream fromWorker;
+
+        Worker(Process process, Socket socket, DataInputStream fromWorker) {
+            this.process = process;
+            this.socket = socket;
+            this.fromWorker = fromWorker;
+        }
+
+        int process(List<String> arguments, InputStream in, OutputStream out, OutputStream err) {
+            try {
+                DataOutputStream toWorker = new DataOutputStream(new BufferedOutputStream(this.socket.getOutputStream()));
+                PrewarmedWorker.writeArguments(toWorker, arguments);
+                toWorker.flush();
+                this.exchangeFrames(in, toWorker, out, err);
+                return this.process.waitFor();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the worker!", e);
+            } finally {
+                this.retire();
+                if (this.process.isAlive()) {
+                    this.process.destroy();
+                }
+            }
+        }
+
+        /**
+         * Forwards the output frames of the worker and answers its requests for input until the worker has terminated. The input is only read on request,
+         * so nothing is taken from it after the invocation.
+         */
+        private void exchangeFrames(InputStream in, DataOutputStream toWorker, OutputStream out, OutputStream err) throws IOException {
+            byte[] buffer = new byte[8192];
+            boolean endOfInput = in == null;
+            while (true) {
+                byte frameType;
+                try {
+                    frameType = this.fromWorker.readByte();
+                } catch (EOFException | SocketException e) {
+                    // the worker has terminated
+                    break;
+                }
+                if (frameType == PrewarmedWorker.STDIN_REQUEST_FRAME) {
+                    int read = endOfInput ? -1 : in.read(buffer);
+                    endOfInput = read < 0;
+                    try {
+                        toWorker.writeInt(endOfInput ? -1 : read);
+                        if (read > 0) {
+                            toWorker.write(buffer, 0, read);
+                        }
+                        toWorker.flush();
+                    } catch (SocketException e) {
+                        // the worker has terminated in the meantime
+                    }
+                    continue;
+                }
+                OutputStream target = frameType == PrewarmedWorker.STDOUT_FRAME ? out : err;
+                for (int remaining = this.fromWorker.readInt(); remaining > 0; ) {
+                    int read = this.fromWorker.read(buffer, 0, Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        throw new EOFException("The worker has terminated in the middle of a frame!");
+                    }
+                    target.write(buffer, 0, read);
+                    remaining -= read;
+                }
+                target.flush();
+            }
+        }
+
+        /**
+         * Disconnects from the worker. A worker on standby closes its session and terminates when it is disconnected.
+         */
+        void retire() {
+            try {
+                this.socket.close();
+            } catch (IOException e) {
+                // nothing to be done
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Represents a single invocation of the program - its arguments and its outcome.
+ * <p>
+ * An invocation is bound to the thread which runs its start phase tasks. During a regular program run these are all start phase tasks. Within a
+ * {@link ProgramRunner.Session session} it is the per-invocation part of the start phase. In both cases the invocation is complete before the end phase is
+ * run, and a thread can run only one invocation at a time. Tasks can access the invocation via {@link #current()} to set an exit
+ * status or to register handlers which are called when the invocation is complete (i.e. to release per-invocation resources).
+ * </p>
+ *
+ * @see PerInvocationTask
+ */
+public final class ProgramInvocation {
+
+    private static final ThreadLocal<ProgramInvocation> _currentInvocation = new ThreadLocal<>();
+
+    private final int index;
+    private final List<String> arguments;
+    private final List<Runnable> completionHandlers = new ArrayList<>();
+    private volatile Integer exitStatus;
+
+    ProgramInvocation(int index, List<String> arguments) {
+        this.index = index;
+        this.arguments = Collections.unmodifiableList(Objects.requireNonNull(arguments));
+    }
+
+    /**
+     * Provides access to the invocation which is bound to the current thread.
+     *
+     * @return an optional containing the current invocation or an empty optional when the current thread is not running an invocation.
+     */
+    public static Optional<ProgramInvocation> current() {
+        return Optional.ofNullable(_currentInvocation.get());
+    }
+
+    /**
+     * @return the index of the invocation within its session. The invocation of a regular program run has the index 0.
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * @return an immutable list of the arguments of the invocation.
+     */
+    public List<String> getArguments() {
+        return this.arguments;
+    }
+
+    /**
+     * Set the exit status of the invocation. When no exit status is set the status is 0 unless a task has thrown an exception.
+     *
+     * @param exitStatus the exit status.
+     */
+    public void setExitStatus(int exitStatus) {
+        this.exitStatus = exitStatus;
+    }
+
+    /**
+     * @return an optional containing the exit status set by a task or an empty optional when no exit status has been set.
+     */
+    public Optional<Integer> getExitStatus() {
+        return Optional.ofNullable(this.exitStatus);
+    }
+
+    /**
+     * Registers a handler to be called on the thread of the invocation when the invocation is complete. Handlers are called in the reverse order of their
+     * registration.
+     *
+     * @param handler the handler to call.
+     *
+     * @throws IllegalStateException when not called by the thread of the invocation.
+     */
+    public void onCompletion(Runnable handler) {
+        Objects.requireNonNull(handler);
+        if (_currentInvocation.get() != this) {
+            throw new IllegalStateException("Completion handlers can only be registered by the thread of the invocation!");
+        }
+        this.completionHandlers.add(handler);
+    }
+
+    void begin() {
+        if (_currentInvocation.get() != null) {
+            throw new IllegalStateException("The current thread is already running an invocation!");
+        }
+        _currentInvocation.set(this);
+    }
+
+    void complete() {
+        RuntimeException failure = null;
+        try {
+            for (int i = this.completionHandlers.size() - 1; i >= 0; i--) {
+                try {
+                    this.completionHandlers.get(i).run();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        } finally {
+            this.completionHandlers.clear();
+            _currentInvocation.remove();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
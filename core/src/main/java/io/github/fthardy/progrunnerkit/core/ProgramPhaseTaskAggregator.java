@@ -39,7 +39,6 @@ import java.util.Objects;
 public abstract class ProgramPhaseTaskAggregator<T extends ProgramPhaseTask> implements ProgramPhaseTask {
     
     private final List<T> tasks;
-    private ProgramPhaseController phaseController;
 
     /**
      * Initialise this instance with some tasks.
@@ -53,15 +52,26 @@ public abstract class ProgramPhaseTaskAggregator<T extends ProgramPhaseTask> imp
         this.tasks = tasks;
     } 
     
+    /**
+     * Run the aggregated tasks outside of a {@link ProgramTaskRunner}. A task runner passes the controller of the current phase to the aggregator; when
+     * the aggregator is run directly the tasks are run with the default controller of its phase instead, i.e. a {@link StartPhaseController} or an
+     * {@link EndPhaseController} without any overridden methods.
+     * 
+     * @param arguments the arguments from the OS command line.
+     */
     @Override
     public void run(List<String> arguments) {
-        if (this.phaseController == null) {
-            throw new IllegalStateException("Phase controller has not been set!");
-        }
-        new ProgramTaskRunner(this.tasks, this.phaseController).runProgramTasks(arguments);
+        this.run(arguments, this instanceof EndPhaseTask ? new EndPhaseController() {} : new StartPhaseController() {});
     }
 
-    void setProgramPhaseController(ProgramPhaseController controller) {
-        this.phaseController = controller;
+    /**
+     * Run the aggregated tasks with the given phase controller. The controller is passed with each call instead of being stored in the aggregator so that
+     * the same aggregator instance can be run by concurrent program runs.
+     * 
+     * @param arguments the arguments from the OS command line.
+     * @param phaseController the controller of the phase.
+     */
+    void run(List<String> arguments, ProgramPhaseController phaseController) {
+        new ProgramTaskRunner(this.tasks, phaseController).runProgramTasks(arguments);
     }
 }
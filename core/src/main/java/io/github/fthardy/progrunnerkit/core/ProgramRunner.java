@@ -0,0 +1,375 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * A reusable runner for the program phases.
+ * <p>
+ * In contrast to {@link Main#main(String[])}, which discovers the tasks and controllers anew for its single run, a program runner discovers them once when it
+ * is created. The run procedure - the start phase followed by the end phase - can then be repeated as often as needed with different arguments within the
+ * same JVM. This allows embedding hosts, test suites or batch drivers to skip the discovery and to keep the state of the tasks warm between runs.
+ * </p>
+ * <p>
+ * A program runner is immutable and {@link #run(List)} can be called from several threads at the same time. Tasks and controllers however are shared by all
+ * runs. Tasks and controllers which are used for concurrent runs must be thread safe themselves.
+ * </p>
+ * <p>
+ * To process many invocations with one start and end phase a {@link Session} can be {@link #openSession(List) opened}. 
+ * </p>
+ *
+ * @see Main#main(String[])
+ */
+public final class ProgramRunner {
+
+    private final List<StartPhaseTask> startPhaseTasks;
+    private final List<StartPhaseTask> sessionStartPhaseTasks;
+    private final List<StartPhaseTask> perInvocationTasks;
+    private final List<EndPhaseTask> endPhaseTasks;
+    private final ProgramPhaseController startPhaseController;
+    private final ProgramPhaseController endPhaseController;
+
+    /**
+     * Creates a new program runner with the tasks and controllers which are available through service configuration files.
+     *
+     * @see ServiceImplProvider
+     */
+    public ProgramRunner() {
+        this(new ServiceImplProvider<>(StartPhaseTask.class).provideImpls(),
+                new ServiceImplProvider<>(EndPhaseTask.class).provideImpls(),
+                new ServiceImplProvider<>(StartPhaseController.class).provideImpls(),
+                new ServiceImplProvider<>(EndPhaseController.class).provideImpls());
+    }
+
+    /**
+     * Creates a new program runner for a subcommand. The tasks and controllers of the subcommand are run together with those available through service
+     * configuration files, sorted by their priority.
+     *
+     * @param subcommand the subcommand.
+     *
+     * @throws IllegalStateException when a task or controller of the subcommand cannot be created.
+     *
+     * @see ServiceImplProvider
+     */
+    public ProgramRunner(SubcommandDescriptor subcommand) {
+        this(withSubcommandImpls(StartPhaseTask.class, subcommand, SubcommandDescriptor.START_PHASE_TASKS_KEY),
+                withSubcommandImpls(EndPhaseTask.class, subcommand, SubcommandDescriptor.END_PHASE_TASKS_KEY),
+                withSubcommandImpls(StartPhaseController.class, subcommand, SubcommandDescriptor.START_PHASE_CONTROLLERS_KEY),
+                withSubcommandImpls(EndPhaseController.class, subcommand, SubcommandDescriptor.END_PHASE_CONTROLLERS_KEY));
+    }
+
+    private static <T> Collection<T> withSubcommandImpls(Class<T> type, SubcommandDescriptor subcommand, String key) {
+        List<T> impls = new ArrayList<>();
+        ServiceLoader.load(type).forEach(impls::add);
+        impls.addAll(subcommand.instantiate(key, type));
+        return new ServiceImplProvider<>(impls).provideImpls();
+    }
+
+    /**
+     * Creates a new program runner with the given tasks and controllers.
+     *
+     * @param startPhaseTasks the tasks of the start phase in the order of their execution.
+     * @param endPhaseTasks the tasks of the end phase in the order of their execution.
+     * @param startPhaseControllers the controllers of the start phase. If empty the default behaviour of {@link StartPhaseController} is used.
+     * @param endPhaseControllers the controllers of the end phase. If empty the default behaviour of {@link EndPhaseController} is used.
+     */
+    public ProgramRunner(Collection<? extends StartPhaseTask> startPhaseTasks, Collection<? extends EndPhaseTask> endPhaseTasks,
+                         Collection<? extends StartPhaseController> startPhaseControllers, Collection<? extends EndPhaseController> endPhaseControllers) {
+        this.startPhaseTasks = Collections.unmodifiableList(new ArrayList<>(startPhaseTasks));
+        this.sessionStartPhaseTasks = Collections.unmodifiableList(this.startPhaseTasks.stream()
+                .filter(task -> !(task instanceof PerInvocationTask)).collect(Collectors.toList()));
+        this.perInvocationTasks = Collections.unmodifiableList(this.startPhaseTasks.stream()
+                .filter(task -> task instanceof PerInvocationTask).collect(Collectors.toList()));
+        this.endPhaseTasks = Collections.unmodifiableList(new ArrayList<>(endPhaseTasks));
+        this.startPhaseController = new ProgramPhaseControllerAggregator(
+                Collections.unmodifiableList(new ArrayList<>(startPhaseControllers)), new StartPhaseController() {});
+        this.endPhaseController = new ProgramPhaseControllerAggregator(
+                Collections.unmodifiableList(new ArrayList<>(endPhaseControllers)), new EndPhaseController() {});
+    }
+
+    /**
+     * Runs the start phase and the end phase with the given arguments.
+     *
+     * @param args the arguments for the tasks.
+     *
+     * @see #run(List)
+     */
+    public void run(String[] args) {
+        this.run(Arrays.asList(args));
+    }
+
+    /**
+     * Runs the start phase and the end phase with the given arguments.
+     * <p>
+     * The procedure is the same as for {@link Main#main(String[])}: The end phase is run after the start phase even if the start phase is interrupted by an
+     * exception, unless there is no task for the start phase at all.
+     * </p>
+     * <p>
+     * The start phase tasks are run as the {@link ProgramInvocation} with index 0, which is complete when the start phase tasks are done. The end phase is
+     * run without an invocation - just like the end phase of a {@link Session} - so per-invocation resources like a request context are no longer
+     * available to the end phase tasks. Since a thread can run only one invocation at a time, a task must not call this method or {@link Main#main(String[])}
+     * on its own thread; such a nested run fails with an {@link IllegalStateException}.
+     * </p>
+     *
+     * @param arguments the arguments for the tasks.
+     */
+    public void run(List<String> arguments) {
+        Objects.requireNonNull(arguments);
+        runPhases(arguments,
+                () -> this.startPhaseController, controller -> new ProgramTaskRunner(this.startPhaseTasks, controller),
+                () -> this.endPhaseController, controller -> new ProgramTaskRunner(this.endPhaseTasks, controller));
+    }
+
+    /**
+     * Opens a session to process many invocations with one start and end phase.
+     * <p>
+     * The start phase begins and all start phase tasks which are not {@link PerInvocationTask per-invocation tasks} are run with the given arguments. The
+     * per-invocation tasks are run by {@link Session#invoke(int, List)}. When the session is closed the start phase ends and the end phase is run.
+     * </p>
+     *
+     * @param arguments the arguments for the tasks which are run once for the session.
+     *
+     * @return the opened session.
+     */
+    public Session openSession(List<String> arguments) {
+        return new Session(Objects.requireNonNull(arguments));
+    }
+
+    /**
+     * Implements the procedure of a program run.
+     * <p>
+     * The controller and the task runner of the end phase are only requested when the start phase had tasks to run. When a {@link TraceEventRecorder} is
+     * active, the controllers are wrapped by a {@link TracingProgramPhaseController}. The start phase tasks are run as the {@link ProgramInvocation} with
+     * index 0, which is completed before the start phase ends and the end phase is run.
+     * </p>
+     *
+     * @param arguments the arguments for the tasks.
+     * @param startPhaseControllerSupplier provides the controller of the start phase.
+     * @param startPhaseRunnerFactory creates the task runner of the start phase for the controller.
+     * @param endPhaseControllerSupplier provides the controller of the end phase.
+     * @param endPhaseRunnerFactory creates the task runner of the end phase for the controller.
+     */
+    static void runPhases(List<String> arguments,
+                          Supplier<ProgramPhaseController> startPhaseControllerSupplier,
+                          Function<ProgramPhaseController, ProgramTaskRunner> startPhaseRunnerFactory,
+                          Supplier<ProgramPhaseController> endPhaseControllerSupplier,
+                          Function<ProgramPhaseController, ProgramTaskRunner> endPhaseRunnerFactory) {
+
+        final TraceEventRecorder traceRecorder = TraceEventRecorder.active().orElse(null);
+
+        boolean startPhaseTasksAvailable = true;
+
+        ProgramPhaseController startPhaseController = traced(traceRecorder, "Start phase", startPhaseControllerSupplier.get());
+        try {
+            startPhaseController.onPhaseBegin();
+
+            ProgramTaskRunner startPhaseRunner = startPhaseRunnerFactory.apply(startPhaseController);
+            ProgramInvocation invocation = new ProgramInvocation(0, arguments);
+            invocation.begin();
+            try {
+                startPhaseTasksAvailable = startPhaseRunner.runProgramTasks(arguments);
+            } finally {
+                invocation.complete();
+            }
+            if (!startPhaseTasksAvailable) {
+                startPhaseController.noTaskAvailable();
+            }
+        } finally {
+            startPhaseController.onPhaseEnd();
+
+            if (startPhaseTasksAvailable) {
+                runEndPhase(arguments, traceRecorder, endPhaseControllerSupplier, endPhaseRunnerFactory);
+            }
+        }
+    }
+
+    private static void runEndPhase(List<String> arguments, TraceEventRecorder traceRecorder,
+                                    Supplier<ProgramPhaseController> endPhaseControllerSupplier,
+                                    Function<ProgramPhaseController, ProgramTaskRunner> endPhaseRunnerFactory) {
+
+        ProgramPhaseController endPhaseController = traced(traceRecorder, "End phase", endPhaseControllerSupplier.get());
+
+        endPhaseController.onPhaseBegin();
+
+        try {
+            ProgramTaskRunner endPhaseRunner = endPhaseRunnerFactory.apply(endPhaseController);
+            if (!endPhaseRunner.runProgramTasks(arguments)) {
+                endPhaseController.noTaskAvailable();
+            }
+        } finally {
+            endPhaseController.onPhaseEnd();
+        }
+    }
+
+    private static ProgramPhaseController traced(TraceEventRecorder traceRecorder, String phaseName, ProgramPhaseController controller) {
+        return traceRecorder == null ? controller : new TracingProgramPhaseController(phaseName, controller, traceRecorder);
+    }
+
+    /**
+     * A session processes many invocations with one start and end phase.
+     * <p>
+     * The start phase spans the whole session: The tasks which are run once are run when the session is opened and the per-invocation tasks are run by
+     * {@link #invoke(int, List)}, which can be called from several threads at the same time. Closing the session ends the start phase and runs the end phase.
+     * </p>
+     *
+     * @see ProgramRunner#openSession(List)
+     * @see PerInvocationTask
+     */
+    public final class Session implements AutoCloseable {
+
+        private final List<String> arguments;
+        private final TraceEventRecorder traceRecorder = TraceEventRecorder.active().orElse(null);
+        private final ProgramPhaseController sessionStartPhaseController;
+        private final boolean startPhaseTasksAvailable;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean startPhaseEnded;
+
+        private Session(List<String> arguments) {
+            this.arguments = arguments;
+            this.sessionStartPhaseController = traced(this.traceRecorder, "Start phase", ProgramRunner.this.startPhaseController);
+            this.startPhaseTasksAvailable = !ProgramRunner.this.startPhaseTasks.isEmpty();
+            try {
+                this.sessionStartPhaseController.onPhaseBegin();
+                if (this.startPhaseTasksAvailable) {
+                    PhaseOutcomeTracker tracker = new PhaseOutcomeTracker(this.sessionStartPhaseController);
+                    new ProgramTaskRunner(ProgramRunner.this.sessionStartPhaseTasks, tracker).runProgramTasks(arguments);
+                    this.startPhaseEnded = tracker.phaseEnded;
+                } else {
+                    this.sessionStartPhaseController.noTaskAvailable();
+                    this.startPhaseEnded = true;
+                }
+            } catch (RuntimeException | Error e) {
+                this.close();
+                throw e;
+            }
+        }
+
+        /**
+         * @return {@code true} when a controller has ended the start phase while the session was opened or no start phase task exists. In this case no
+         * invocation can be processed.
+         */
+        public boolean isStartPhaseEnded() {
+            return this.startPhaseEnded;
+        }
+
+        /**
+         * Processes an invocation by running the per-invocation tasks with the given arguments on the current thread.
+         * <p>
+         * The tasks are reported to the controllers of the start phase. When a controller ends the phase due to an exception only the remaining tasks of
+         * this invocation are skipped.
+         * </p>
+         *
+         * @param index the index of the invocation.
+         * @param arguments the arguments of the invocation.
+         *
+         * @return the exit status of the invocation. This is the status set on the {@link ProgramInvocation} or otherwise 1 if a task has thrown an
+         * exception and 0 if not.
+         *
+         * @throws IllegalStateException when the session is closed or the start phase has been ended.
+         */
+        public int invoke(int index, List<String> arguments) {
+            if (this.closed.get()) {
+                throw new IllegalStateException("The session has been closed!");
+            }
+            if (this.startPhaseEnded) {
+                throw new IllegalStateException("The start phase has been ended!");
+            }
+            ProgramInvocation invocation = new ProgramInvocation(index, arguments);
+            PhaseOutcomeTracker tracker = new PhaseOutcomeTracker(this.sessionStartPhaseController);
+            invocation.begin();
+            try {
+                new ProgramTaskRunner(ProgramRunner.this.perInvocationTasks, tracker).runProgramTasks(invocation.getArguments());
+            } finally {
+                invocation.complete();
+            }
+            return invocation.getExitStatus().orElse(tracker.exceptionThrown ? 1 : 0);
+        }
+
+        /**
+         * Ends the start phase and runs the end phase. Closing an already closed session has no effect.
+         */
+        @Override
+        public void close() {
+            if (this.closed.compareAndSet(false, true)) {
+                try {
+                    this.sessionStartPhaseController.onPhaseEnd();
+                } finally {
+                    if (this.startPhaseTasksAvailable) {
+                        runEndPhase(this.arguments, this.traceRecorder,
+                                () -> ProgramRunner.this.endPhaseController,
+                                controller -> new ProgramTaskRunner(ProgramRunner.this.endPhaseTasks, controller));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Delegates to the controller of the start phase and keeps track of the exceptions thrown by the tasks of a single task runner.
+     */
+    private static final class PhaseOutcomeTracker implements ProgramPhaseController {
+
+        private final ProgramPhaseController controller;
+        private boolean exceptionThrown;
+        private boolean phaseEnded;
+
+        PhaseOutcomeTracker(ProgramPhaseController controller) {
+            this.controller = controller;
+        }
+
+        @Override
+        public void beforeTaskExecution(String taskID) {
+            this.controller.beforeTaskExecution(taskID);
+        }
+
+        @Override
+        public void afterTaskExecution(String taskID) {
+            this.controller.afterTaskExecution(taskID);
+        }
+
+        @Override
+        public boolean onExceptionFromTask(String fromTaskId, RuntimeException exception) {
+            this.exceptionThrown = true;
+            boolean endPhase = this.controller.onExceptionFromTask(fromTaskId, exception);
+            this.phaseEnded |= endPhase;
+            return endPhase;
+        }
+
+        @Override
+        public void noTaskAvailable() {
+            this.controller.noTaskAvailable();
+        }
+    }
+}
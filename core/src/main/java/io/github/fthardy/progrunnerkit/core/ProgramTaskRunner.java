@@ -63,14 +63,14 @@ public class ProgramTaskRunner {
         
         for (ProgramPhaseTask task : this.tasks) {
             
-            if (task instanceof ProgramPhaseTaskAggregator) {
-                ((ProgramPhaseTaskAggregator<?>) task).setProgramPhaseController(this.phaseController);
-            }
-            
             String identifier = task.getIdentifier();
             this.phaseController.beforeTaskExecution(identifier);
             try {
-                task.run(arguments);
+                if (task instanceof ProgramPhaseTaskAggregator) {
+                    ((ProgramPhaseTaskAggregator<?>) task).run(arguments, this.phaseController);
+                } else {
+                    task.run(arguments);
+                }
             } catch (RuntimeException e) {
                 if (this.phaseController.onExceptionFromTask(identifier, e)) {
                     break; // end the phase here - any other task of this phase is not going to be run
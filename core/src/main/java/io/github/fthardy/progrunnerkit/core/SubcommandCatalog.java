@@ -0,0 +1,174 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * The subcommands of a git-style program.
+ * <p>
+ * The subcommands are declared in the class path resources {@value INDEX_RESOURCE}. The keys of such a properties file start with the name of a
+ * subcommand followed by a dot and a key of the {@link SubcommandDescriptor descriptor}:
+ * </p>
+ * <pre>
+ * import.description=Imports the given files.
+ * import.startPhaseTasks=com.example.tool.ImportOptionsTask, com.example.tool.ImportTask
+ * export.description=Exports the data.
+ * export.startPhaseTasks=com.example.tool.ExportTask
+ * </pre>
+ * <p>
+ * Reading the catalog loads no class, so a program pays for class loading and initialization only for the subcommand which is actually run. When a catalog
+ * is not empty, {@link Main} takes the first argument which doesn't start with a dash as the name of the subcommand. The tasks and controllers available
+ * through service configuration files are run for every subcommand together with those of the chosen subcommand, sorted by their priority.
+ * </p>
+ */
+public final class SubcommandCatalog {
+
+    /**
+     * The name of the class path resources declaring the subcommands.
+     */
+    public static final String INDEX_RESOURCE = "META-INF/progrunnerkit/subcommands.properties";
+
+    private final Map<String, SubcommandDescriptor> subcommands;
+
+    private SubcommandCatalog(Map<String, SubcommandDescriptor> subcommands) {
+        this.subcommands = Collections.unmodifiableMap(subcommands);
+    }
+
+    /**
+     * Reads the subcommands declared in the resources found by the context class loader of the current thread.
+     *
+     * @return the catalog.
+     *
+     * @throws UncheckedIOException when a resource cannot be read.
+     * @throws IllegalStateException when a subcommand is declared by more than one resource.
+     */
+    public static SubcommandCatalog load() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return load(classLoader != null ? classLoader : SubcommandCatalog.class.getClassLoader());
+    }
+
+    /**
+     * Reads the subcommands declared in the resources found by the given class loader.
+     *
+     * @param classLoader the class loader to find the resources and to load the classes of the subcommands with.
+     *
+     * @return the catalog.
+     *
+     * @throws UncheckedIOException when a resource cannot be read.
+     * @throws IllegalStateException when a subcommand is declared by more than one resource.
+     */
+    public static SubcommandCatalog load(ClassLoader classLoader) {
+        Map<String, SubcommandDescriptor> subcommands = new TreeMap<>();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(INDEX_RESOURCE);
+            while (resources.hasMoreElements()) {
+                URL resource = resources.nextElement();
+                for (Map.Entry<String, Map<String, String>> subcommand : read(resource).entrySet()) {
+                    SubcommandDescriptor descriptor = new SubcommandDescriptor(subcommand.getKey(), subcommand.getValue(), classLoader);
+                    if (subcommands.put(subcommand.getKey(), descriptor) != null) {
+                        throw new IllegalStateException("The subcommand '" + subcommand.getKey() + "' is declared more than once - again in " + resource);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new SubcommandCatalog(subcommands);
+    }
+
+    private static Map<String, Map<String, String>> read(URL resource) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = resource.openStream()) {
+            properties.load(in);
+        }
+        Map<String, Map<String, String>> subcommands = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            int separator = key.indexOf('.');
+            if (separator <= 0 || separator == key.length() - 1) {
+                throw new IllegalStateException("Invalid key '" + key + "' in " + resource + " - expected <subcommand>.<key>");
+            }
+            subcommands.computeIfAbsent(key.substring(0, separator), name -> new HashMap<>())
+                    .put(key.substring(separator + 1), properties.getProperty(key));
+        }
+        return subcommands;
+    }
+
+    /**
+     * @return {@code true} if no subcommand is declared.
+     */
+    public boolean isEmpty() {
+        return this.subcommands.isEmpty();
+    }
+
+    /**
+     * Looks up a subcommand.
+     *
+     * @param name the name of the subcommand.
+     *
+     * @return an optional containing the descriptor of the subcommand or an empty optional if there is no such subcommand.
+     */
+    public Optional<SubcommandDescriptor> find(String name) {
+        return Optional.ofNullable(this.subcommands.get(name));
+    }
+
+    /**
+     * @return the descriptors of all subcommands sorted by their name.
+     */
+    public Collection<SubcommandDescriptor> getSubcommands() {
+        return this.subcommands.values();
+    }
+
+    /**
+     * Finds the position of the subcommand name within the given arguments.
+     * <p>
+     * As the options of the program are not known here, an option in front of the subcommand cannot take a separate value: {@code --port=80 import} chooses
+     * the subcommand {@code import} while {@code --port 80 import} chooses the subcommand {@code 80}.
+     * </p>
+     *
+     * @param arguments the program arguments.
+     *
+     * @return the index of the first argument which doesn't start with a dash or -1 if there is none.
+     */
+    static int indexOfSubcommandName(List<String> arguments) {
+        for (int i = 0; i < arguments.size(); i++) {
+            if (!arguments.get(i).startsWith("-")) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Describes a subcommand of a git-style program, e.g. the {@code import} of {@code tool import --from a.csv}.
+ * <p>
+ * A descriptor is read from a {@link SubcommandCatalog subcommand catalog} and names the classes of the tasks and controllers of the subcommand, which are
+ * loaded only when the subcommand is chosen. Besides the keys defined by this class a descriptor may contain any further entries, e.g. for the command line
+ * options of the subcommand.
+ * </p>
+ */
+public final class SubcommandDescriptor {
+
+    /** The key of the one line description of the subcommand. */
+    public static final String DESCRIPTION_KEY = "description";
+
+    /** The key of the comma separated class names of the start phase tasks of the subcommand. */
+    public static final String START_PHASE_TASKS_KEY = "startPhaseTasks";
+
+    /** The key of the comma separated class names of the end phase tasks of the subcommand. */
+    public static final String END_PHASE_TASKS_KEY = "endPhaseTasks";
+
+    /** The key of the comma separated class names of the start phase controllers of the subcommand. */
+    public static final String START_PHASE_CONTROLLERS_KEY = "startPhaseControllers";
+
+    /** The key of the comma separated class names of the end phase controllers of the subcommand. */
+    public static final String END_PHASE_CONTROLLERS_KEY = "endPhaseControllers";
+
+    private static volatile SubcommandDescriptor _selectedSubcommand;
+
+    private final String name;
+    private final Map<String, String> entries;
+    private final ClassLoader classLoader;
+
+    SubcommandDescriptor(String name, Map<String, String> entries, ClassLoader classLoader) {
+        this.name = Objects.requireNonNull(name);
+        this.entries = Collections.unmodifiableMap(entries);
+        this.classLoader = Objects.requireNonNull(classLoader);
+    }
+
+    /**
+     * Provides the subcommand which has been chosen for the current program run.
+     *
+     * @return an optional containing the chosen subcommand or an empty optional if the program has no subcommands.
+     */
+    public static Optional<SubcommandDescriptor> selected() {
+        return Optional.ofNullable(_selectedSubcommand);
+    }
+
+    static void select(SubcommandDescriptor subcommand) {
+        _selectedSubcommand = subcommand;
+    }
+
+    /**
+     * @return the name of the subcommand.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return the description of the subcommand or an empty string if there is none.
+     */
+    public String getDescription() {
+        return this.getEntry(DESCRIPTION_KEY).orElse("");
+    }
+
+    /**
+     * Provides an entry of the descriptor.
+     *
+     * @param key the key of the entry without the name of the subcommand.
+     *
+     * @return an optional containing the value of the entry or an empty optional if the entry doesn't exist.
+     */
+    public Optional<String> getEntry(String key) {
+        return Optional.ofNullable(this.entries.get(key));
+    }
+
+    /**
+     * Loads and instantiates the classes listed by an entry of the descriptor. Each class needs a public no-argument constructor.
+     *
+     * @param key the key of the entry with the comma separated class names.
+     * @param type the type the classes have to implement.
+     * @param <T> the type the classes have to implement.
+     *
+     * @return a list of the instances in the order of the class names. The list is empty if the entry doesn't exist.
+     *
+     * @throws IllegalStateException when a class cannot be loaded or instantiated or doesn't implement the given type.
+     */
+    public <T> List<T> instantiate(String key, Class<T> type) {
+        List<T> instances = new ArrayList<>();
+        for (String className : this.getClassNames(key)) {
+            try {
+                Class<?> implementation = Class.forName(className, true, this.classLoader);
+                instances.add(type.cast(implementation.getConstructor().newInstance()));
+            } catch (ReflectiveOperationException | ClassCastException | LinkageError e) {
+                throw new IllegalStateException(String.format("Cannot create the %s '%s' of the subcommand '%s'!", type.getSimpleName(), className, this.name),
+                        e);
+            }
+        }
+        return instances;
+    }
+
+    private List<String> getClassNames(String key) {
+        return this.getEntry(key).map(value -> Arrays.stream(value.split(",")).map(String::trim).filter(className -> !className.isEmpty())
+                .collect(Collectors.toList())).orElse(Collections.emptyList());
+    }
+}
@@ -0,0 +1,287 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Records the execution of a program run as events in the Chrome trace event format which can be loaded into {@code chrome://tracing} or the Perfetto UI.
+ * <p>
+ * Recording is enabled by setting the system property {@value TRACE_FILE_PROPERTY} to the path of the trace file to write. In this case {@link Main} activates
+ * a recorder, wraps the phase controllers with a {@link TracingProgramPhaseController} and writes the file when the program run has finished. When the
+ * property is not set no recorder exists and nothing is recorded at all.
+ * </p>
+ * <p>
+ * Each event is stamped with the id of the thread which has recorded it, so that work which is done concurrently shows up on separate tracks of the timeline.
+ * Recording an event only takes a timestamp and appends a small object to a lock-free queue. The conversion into JSON is deferred until the trace is written.
+ * Other modules can contribute their own slices by obtaining the {@link #active() active recorder}.
+ * </p>
+ *
+ * @see TracingProgramPhaseController
+ */
+public final class TraceEventRecorder {
+
+    /**
+     * The name of the system property which defines the path of the trace file to write.
+     */
+    public static final String TRACE_FILE_PROPERTY = "progrunnerkit.trace.file";
+
+    private static volatile TraceEventRecorder _activeRecorder;
+
+    private final long originNanos = System.nanoTime();
+    private final ConcurrentLinkedQueue<Event> events = new ConcurrentLinkedQueue<>();
+    private final Map<Long, String> threadNames = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new recorder. The moment of creation is taken as the origin of the timeline.
+     */
+    public TraceEventRecorder() {
+        // intentionally empty
+    }
+
+    /**
+     * Provides access to the recorder of the current program run.
+     *
+     * @return an optional containing the active recorder or an empty optional when tracing is not enabled.
+     */
+    public static Optional<TraceEventRecorder> active() {
+        return Optional.ofNullable(_activeRecorder);
+    }
+
+    /**
+     * Creates and activates a new recorder when the system property {@value TRACE_FILE_PROPERTY} is set.
+     *
+     * @return the activated recorder or {@code null} when tracing is not enabled.
+     */
+    static TraceEventRecorder activateIfEnabled() {
+        if (System.getProperty(TRACE_FILE_PROPERTY) == null) {
+            return null;
+        }
+        TraceEventRecorder recorder = new TraceEventRecorder();
+        _activeRecorder = recorder;
+        return recorder;
+    }
+
+    /**
+     * Deactivates the given recorder and writes its events to the file defined by the system property {@value TRACE_FILE_PROPERTY}.
+     * <p>
+     * A failure to write the file is reported on {@code System.err} and does not affect the program run.
+     * </p>
+     *
+     * @param recorder the recorder to complete.
+     */
+    static void deactivateAndWrite(TraceEventRecorder recorder) {
+        if (_activeRecorder == recorder) {
+            _activeRecorder = null;
+        }
+        String traceFile = System.getProperty(TRACE_FILE_PROPERTY);
+        if (traceFile != null) {
+            try {
+                recorder.writeTo(Paths.get(traceFile));
+            } catch (IOException e) {
+                System.err.printf("Failed to write the trace file [%s]: %s%n", traceFile, e);
+            }
+        }
+    }
+
+    /**
+     * Begins a slice on the timeline of the current thread. Slices which are begun while another slice of the same thread is open are nested into it.
+     *
+     * @param category the category of the slice (i.e. {@code "phase"} or {@code "task"}).
+     * @param name the name of the slice.
+     */
+    public void beginSlice(String category, String name) {
+        this.record(new Event('B', category, name, System.nanoTime(), 0L, null));
+    }
+
+    /**
+     * Ends the innermost open slice on the timeline of the current thread.
+     *
+     * @param category the category of the slice.
+     * @param name the name of the slice.
+     */
+    public void endSlice(String category, String name) {
+        this.record(new Event('E', category, name, System.nanoTime(), 0L, null));
+    }
+
+    /**
+     * Records a slice whose start and end are already known.
+     *
+     * @param category the category of the slice.
+     * @param name the name of the slice.
+     * @param startNanos the start of the slice as obtained from {@link System#nanoTime()}.
+     * @param endNanos the end of the slice as obtained from {@link System#nanoTime()}.
+     */
+    public void completeSlice(String category, String name, long startNanos, long endNanos) {
+        this.record(new Event('X', category, name, startNanos, endNanos - startNanos, null));
+    }
+
+    /**
+     * Records an instant event on the timeline of the current thread.
+     *
+     * @param category the category of the event.
+     * @param name the name of the event.
+     * @param arguments additional arguments to be shown with the event. Can be empty.
+     */
+    public void instant(String category, String name, Map<String, String> arguments) {
+        this.record(new Event('i', category, name, System.nanoTime(), 0L, Objects.requireNonNull(arguments)));
+    }
+
+    /**
+     * Writes the recorded events as trace event JSON to the given file.
+     *
+     * @param file the path of the file to write.
+     *
+     * @throws IOException when writing the file fails.
+     */
+    public void writeTo(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            this.writeTo(writer);
+        }
+    }
+
+    /**
+     * Writes the recorded events as trace event JSON to the given writer.
+     *
+     * @param writer the writer to write to.
+     *
+     * @throws IOException when writing fails.
+     */
+    public void writeTo(Writer writer) throws IOException {
+        writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+        writer.write("{\"ph\":\"M\",\"pid\":1,\"tid\":0,\"name\":\"process_name\",\"args\":{\"name\":\"ProgramRunnerKit\"}}");
+        for (Map.Entry<Long, String> threadName : this.threadNames.entrySet()) {
+            writer.write(",\n{\"ph\":\"M\",\"pid\":1,\"tid\":" + threadName.getKey() + ",\"name\":\"thread_name\",\"args\":{\"name\":");
+            writeString(writer, threadName.getValue());
+            writer.write("}}");
+        }
+        for (Event event : this.events) {
+            writer.write(",\n");
+            event.writeTo(writer, this.originNanos);
+        }
+        writer.write("\n]}\n");
+    }
+
+    private void record(Event event) {
+        if (!this.threadNames.containsKey(event.threadId)) {
+            this.threadNames.put(event.threadId, Thread.currentThread().getName());
+        }
+        this.events.add(event);
+    }
+
+    private static void writeString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+    private static final class Event {
+
+        private final char phase;
+        private final String category;
+        private final String name;
+        private final long threadId = Thread.currentThread().getId();
+        private final long timestampNanos;
+        private final long durationNanos;
+        private final Map<String, String> arguments;
+
+        Event(char phase, String category, String name, long timestampNanos, long durationNanos, Map<String, String> arguments) {
+            this.phase = phase;
+            this.category = category;
+            this.name = name;
+            this.timestampNanos = timestampNanos;
+            this.durationNanos = durationNanos;
+            this.arguments = arguments == null ? Collections.emptyMap() : arguments;
+        }
+
+        void writeTo(Writer writer, long originNanos) throws IOException {
+            writer.write("{\"ph\":\"" + this.phase + "\",\"pid\":1,\"tid\":" + this.threadId + ",\"ts\":" + toMicros(this.timestampNanos - originNanos));
+            if (this.phase == 'X') {
+                writer.write(",\"dur\":" + toMicros(this.durationNanos));
+            } else if (this.phase == 'i') {
+                writer.write(",\"s\":\"t\"");
+            }
+            writer.write(",\"cat\":");
+            writeString(writer, this.category);
+            writer.write(",\"name\":");
+            writeString(writer, this.name);
+            if (!this.arguments.isEmpty()) {
+                writer.write(",\"args\":{");
+                boolean first = true;
+                for (Map.Entry<String, String> argument : this.arguments.entrySet()) {
+                    if (!first) {
+                        writer.write(',');
+                    }
+                    writeString(writer, argument.getKey());
+                    writer.write(':');
+                    writeString(writer, String.valueOf(argument.getValue()));
+                    first = false;
+                }
+                writer.write('}');
+            }
+            writer.write('}');
+        }
+
+        private static String toMicros(long nanos) {
+            return String.format(Locale.ROOT, "%.3f", nanos / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A phase controller decorator which records the phase, its tasks and the controller callbacks as trace events.
+ * <p>
+ * The phase and each task become a slice on the timeline of the thread which runs them. Because a {@link ProgramPhaseTaskAggregator} runs its tasks with the
+ * controller of its phase, the aggregated tasks appear as slices nested into the slice of the aggregator. The time spent in the callbacks of the decorated
+ * controller is recorded as separate slices and exceptions thrown by tasks are recorded as instant events.
+ * </p>
+ *
+ * @see TraceEventRecorder
+ */
+public class TracingProgramPhaseController implements ProgramPhaseController {
+
+    private static final String PHASE_CATEGORY = "phase";
+    private static final String TASK_CATEGORY = "task";
+    private static final String CONTROLLER_CATEGORY = "controller";
+
+    private final String phaseName;
+    private final ProgramPhaseController controller;
+    private final TraceEventRecorder recorder;
+
+    /**
+     * Creates a new instance of this controller.
+     *
+     * @param phaseName the name of the phase for the timeline.
+     * @param controller the controller to decorate.
+     * @param recorder the recorder to record the events with.
+     */
+    public TracingProgramPhaseController(String phaseName, ProgramPhaseController controller, TraceEventRecorder recorder) {
+        this.phaseName = Objects.requireNonNull(phaseName);
+        this.controller = Objects.requireNonNull(controller);
+        this.recorder = Objects.requireNonNull(recorder);
+    }
+
+    @Override
+    public void onPhaseBegin() {
+        this.recorder.beginSlice(PHASE_CATEGORY, this.phaseName);
+        long start = System.nanoTime();
+        try {
+            this.controller.onPhaseBegin();
+        } finally {
+            this.recorder.completeSlice(CONTROLLER_CATEGORY, "onPhaseBegin", start, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onPhaseEnd() {
+        long start = System.nanoTime();
+        try {
+            this.controller.onPhaseEnd();
+        } finally {
+            this.recorder.completeSlice(CONTROLLER_CATEGORY, "onPhaseEnd", start, System.nanoTime());
+            this.recorder.endSlice(PHASE_CATEGORY, this.phaseName);
+        }
+    }
+
+    @Override
+    public void beforeTaskExecution(String taskID) {
+        long start = System.nanoTime();
+        try {
+            this.controller.beforeTaskExecution(taskID);
+        } finally {
+            this.recorder.completeSlice(CONTROLLER_CATEGORY, "beforeTaskExecution", start, System.nanoTime());
+            this.recorder.beginSlice(TASK_CATEGORY, taskID);
+        }
+    }
+
+    @Override
+    public void afterTaskExecution(String taskID) {
+        this.recorder.endSlice(TASK_CATEGORY, taskID);
+        long start = System.nanoTime();
+        try {
+            this.controller.afterTaskExecution(taskID);
+        } finally {
+            this.recorder.completeSlice(CONTROLLER_CATEGORY, "afterTaskExecution", start, System.nanoTime());
+        }
+    }
+
+    @Override
+    public boolean onExceptionFromTask(String fromTaskId, RuntimeException exception) {
+        Map<String, String> arguments = new LinkedHashMap<>();
+        arguments.put("task", fromTaskId);
+        arguments.put("exception", exception.getClass().getName());
+        arguments.put("message", String.valueOf(exception.getMessage()));
+        this.recorder.instant(TASK_CATEGORY, "exception", arguments);
+        long start = System.nanoTime();
+        try {
+            return this.controller.onExceptionFromTask(fromTaskId, exception);
+        } finally {
+            this.recorder.completeSlice(CONTROLLER_CATEGORY, "onExceptionFromTask", start, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void noTaskAvailable() {
+        this.recorder.instant(PHASE_CATEGORY, "noTaskAvailable", Collections.emptyMap());
+        long start = System.nanoTime();
+        try {
+            this.controller.noTaskAvailable();
+        } finally {
+            this.recorder.completeSlice(CONTROLLER_CATEGORY, "noTaskAvailable", start, System.nanoTime());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArgumentFilesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void Arguments_without_argument_files_are_returned_unchanged() {
+
+        List<String> arguments = Arrays.asList("-v", "file.txt");
+
+        assertSame(arguments, ArgumentFiles.expand(arguments));
+    }
+
+    @Test
+    public void Argument_files_are_expanded_in_place() throws IOException {
+
+        Path first = Files.write(this.tempDir.resolve("first.args"), "a b\r\n\n\u00fcml\u00e4ut\n".getBytes(StandardCharsets.UTF_8));
+        Path second = Files.write(this.tempDir.resolve("second.args"), "c\nd".getBytes(StandardCharsets.UTF_8));
+        Path empty = Files.write(this.tempDir.resolve("empty.args"), new byte[0]);
+
+        List<String> arguments = ArgumentFiles.expand(Arrays.asList("-v", "@" + first, "@" + empty, "@@literal", "@" + second));
+
+        assertThat(arguments).containsExactly("-v", "a b", "", "\u00fcml\u00e4ut", "@literal", "c", "d");
+        assertThat(arguments.subList(4, 7)).containsExactly("@literal", "c", "d");
+        assertThrows(UnsupportedOperationException.class, () -> arguments.set(0, "x"));
+        assertThrows(IndexOutOfBoundsException.class, () -> arguments.get(7));
+    }
+
+    @Test
+    public void A_large_argument_file_is_streamed() throws IOException {
+
+        List<String> lines = IntStream.range(0, 200_000).mapToObj(i -> "/data/input/file-" + i + ".txt").collect(Collectors.toList());
+        Path file = Files.write(this.tempDir.resolve("large.args"), lines);
+
+        List<String> arguments = ArgumentFiles.expand(Collections.singletonList("@" + file));
+
+        assertEquals(200_000, arguments.size());
+        assertEquals("/data/input/file-123456.txt", arguments.get(123_456));
+        assertEquals(200_000, arguments.stream().filter(argument -> argument.endsWith(".txt")).count());
+    }
+
+    @Test
+    public void Missing_argument_file() {
+
+        assertThrows(UncheckedIOException.class, () -> ArgumentFiles.expand(Collections.singletonList("@" + this.tempDir.resolve("missing"))));
+    }
+}
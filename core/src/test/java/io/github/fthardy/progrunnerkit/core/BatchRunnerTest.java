@@ -0,0 +1,325 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRunnerTest {
+
+    static class BootTask implements StartPhaseTask {
+
+        final AtomicInteger runs = new AtomicInteger();
+
+        @Override
+        public void run(List<String> arguments) {
+            this.runs.incrementAndGet();
+        }
+    }
+
+    static class EchoTask implements PerInvocationTask {
+
+        @Override
+        public void run(List<String> arguments) {
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextInt(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (arguments.contains("fail")) {
+                throw new IllegalStateException("TEST");
+            }
+            if (arguments.contains("exit")) {
+                ProgramInvocation.current().ifPresent(invocation -> invocation.setExitStatus(3));
+            }
+            System.out.println(String.join(" ", arguments));
+        }
+    }
+
+    static class SilentController implements StartPhaseController {
+
+        @Override
+        public boolean onExceptionFromTask(String fromTaskId, RuntimeException exception) {
+            System.err.println("failed: " + exception.getMessage());
+            return true;
+        }
+    }
+
+    @Test
+    public void Output_in_input_order_with_exit_statuses() {
+
+        BootTask bootTask = new BootTask();
+        ProgramRunner programRunner = new ProgramRunner(Arrays.asList(bootTask, new EchoTask()), Collections.<EndPhaseTask>singletonList(arguments -> {}),
+                Collections.singletonList(new SilentController()), Collections.emptyList());
+
+        List<List<String>> vectors = new ArrayList<>();
+        StringBuilder expectedOutput = new StringBuilder();
+        StringBuilder expectedStatus = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            String argument = i == 7 ? "fail" : i == 11 ? "exit" : "line" + i;
+            vectors.add(Arrays.asList(argument, "x"));
+            if (i != 7) {
+                expectedOutput.append(argument).append(" x").append(System.lineSeparator());
+            } else {
+                expectedOutput.append("failed: TEST").append(System.lineSeparator());
+            }
+            expectedStatus.append(i).append('\t').append(i == 7 ? 1 : i == 11 ? 3 : 0).append(System.lineSeparator());
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayOutputStream status = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        int failed;
+        try {
+            System.setOut(new PrintStream(output, true));
+            System.setErr(System.out);
+            failed = new BatchRunner(programRunner, 4, true).run(Collections.emptyList(), vectors.iterator(), new PrintStream(status, true));
+        } finally {
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+
+        assertEquals(2, failed);
+        assertEquals(1, bootTask.runs.get());
+        assertEquals(expectedOutput.toString(), output.toString());
+        assertEquals(expectedStatus.toString(), status.toString());
+    }
+
+    @Test
+    public void An_error_thrown_by_a_task_fails_only_its_invocation() throws Exception {
+
+        PerInvocationTask errorTask = arguments -> {
+            if (arguments.contains("error")) {
+                throw new LinkageError("TEST");
+            }
+        };
+        ProgramRunner programRunner = new ProgramRunner(Collections.singletonList(errorTask),
+                Collections.<EndPhaseTask>singletonList(arguments -> {}), Collections.emptyList(), Collections.emptyList());
+
+        List<List<String>> vectors = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            vectors.add(Collections.singletonList(i % 3 == 0 ? "error" : "ok"));
+        }
+
+        ByteArrayOutputStream status = new ByteArrayOutputStream();
+        PrintStream originalErr = System.err;
+        CompletableFuture<Integer> batch;
+        try {
+            System.setErr(new PrintStream(new ByteArrayOutputStream(), true));
+            batch = CompletableFuture.supplyAsync(() ->
+                    new BatchRunner(programRunner, 1, true).run(Collections.emptyList(), vectors.iterator(), new PrintStream(status, true)));
+            assertEquals(4, batch.get(10, TimeUnit.SECONDS));
+        } finally {
+            System.setErr(originalErr);
+        }
+        assertThat(status.toString().split(System.lineSeparator())).containsExactly(
+                "0\t1", "1\t0", "2\t0", "3\t1", "4\t0", "5\t0", "6\t1", "7\t0", "8\t0", "9\t1");
+    }
+
+    @Test
+    public void Output_of_invocations_is_not_interleaved_in_completion_order() {
+
+        ProgramRunner programRunner = new ProgramRunner(Collections.singletonList(new EchoTask()),
+                Collections.<EndPhaseTask>singletonList(arguments -> {}), Collections.emptyList(), Collections.emptyList());
+
+        List<List<String>> vectors = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            vectors.add(Arrays.asList("line", Integer.toString(i)));
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        try {
+            System.setOut(new PrintStream(output, true));
+            assertEquals(0, new BatchRunner(programRunner, 8, false)
+                    .run(Collections.emptyList(), vectors.iterator(), new PrintStream(new ByteArrayOutputStream())));
+        } finally {
+            System.setOut(originalOut);
+        }
+
+        String[] lines = output.toString().split(System.lineSeparator());
+        assertThat(lines).hasSize(100);
+        for (String line : lines) {
+            assertThat(line).matches("line \\d+");
+        }
+    }
+
+    @Test
+    public void Argument_vectors_are_split_like_a_shell_does() {
+
+        ArgumentVectorReader reader = new ArgumentVectorReader(new BufferedReader(new StringReader(
+                "a b  c\n\n# comment\n'single quoted' \"double \\\"quoted\\\"\" esc\\ aped\n")));
+
+        assertTrue(reader.hasNext());
+        assertThat(reader.next()).containsExactly("a", "b", "c");
+        assertThat(reader.next()).containsExactly("single quoted", "double \"quoted\"", "esc aped");
+        assertFalse(reader.hasNext());
+
+        assertThrows(IllegalArgumentException.class, () -> ArgumentVectorReader.split("'unclosed"));
+
+        ArgumentVectorReader readerWithMalformedLine = new ArgumentVectorReader(new BufferedReader(new StringReader("'unclosed\nnext\n")));
+        assertTrue(readerWithMalformedLine.hasNext());
+        assertThrows(IllegalArgumentException.class, readerWithMalformedLine::next);
+        assertThat(readerWithMalformedLine.next()).containsExactly("next");
+        assertFalse(readerWithMalformedLine.hasNext());
+    }
+
+    @Test
+    public void A_line_with_an_unclosed_quote_fails_only_its_invocation() {
+
+        ProgramRunner programRunner = new ProgramRunner(Collections.singletonList(new EchoTask()),
+                Collections.<EndPhaseTask>singletonList(arguments -> {}), Collections.emptyList(), Collections.emptyList());
+        ArgumentVectorReader reader = new ArgumentVectorReader(new BufferedReader(new StringReader("a\n'unclosed\nb\n")));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayOutputStream status = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        int failed;
+        try {
+            System.setOut(new PrintStream(output, true));
+            System.setErr(System.out);
+            failed = new BatchRunner(programRunner, 2, true).run(Collections.emptyList(), reader, new PrintStream(status, true));
+        } finally {
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+
+        assertEquals(1, failed);
+        assertThat(status.toString().split(System.lineSeparator())).containsExactly("0\t0", "1\t1", "2\t0");
+        assertThat(output.toString().split(System.lineSeparator())).containsExactly("a", "Unclosed quote in argument line: 'unclosed", "b");
+    }
+
+    @Test
+    public void The_failed_invocations_of_a_batch_file_are_counted(@TempDir Path tempDir) throws IOException {
+
+        ProgramRunner programRunner = new ProgramRunner(Collections.singletonList(new EchoTask()),
+                Collections.<EndPhaseTask>singletonList(arguments -> {}), Collections.singletonList(new SilentController()), Collections.emptyList());
+        Path batchFile = Files.write(tempDir.resolve("batch.txt"), Arrays.asList("a", "fail", "b", "fail"));
+        Path statusFile = tempDir.resolve("status.txt");
+
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        int failed;
+        try {
+            System.setProperty(BatchRunner.BATCH_FILE_PROPERTY, batchFile.toString());
+            System.setProperty(BatchRunner.STATUS_FILE_PROPERTY, statusFile.toString());
+            System.setProperty(BatchRunner.ORDERED_PROPERTY, "true");
+            System.setOut(new PrintStream(new ByteArrayOutputStream(), true));
+            System.setErr(System.out);
+            failed = BatchRunner.runFromSystemProperties(programRunner, Collections.emptyList());
+        } finally {
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+            System.clearProperty(BatchRunner.BATCH_FILE_PROPERTY);
+            System.clearProperty(BatchRunner.STATUS_FILE_PROPERTY);
+            System.clearProperty(BatchRunner.ORDERED_PROPERTY);
+        }
+
+        assertEquals(2, failed);
+        assertThat(Files.readAllLines(statusFile)).containsExactly("0\t0", "1\t1", "2\t0", "3\t1");
+    }
+
+    @Test
+    public void A_NUL_terminated_record_is_taken_literally_as_one_argument() {
+
+        ArgumentVectorReader reader = new ArgumentVectorReader(new BufferedReader(new StringReader("a\nb\u0000\u0000'c d'\u0000# \"e\u0000")), true);
+
+        assertThat(reader.next()).containsExactly("a\nb");
+        assertThat(reader.next()).containsExactly("'c d'");
+        assertThat(reader.next()).containsExactly("# \"e");
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void Reading_is_suspended_while_the_window_is_full() throws Exception {
+
+        CountDownLatch release = new CountDownLatch(1);
+        PerInvocationTask blockingTask = arguments -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        ProgramRunner programRunner = new ProgramRunner(Collections.singletonList(blockingTask),
+                Collections.<EndPhaseTask>singletonList(arguments -> {}), Collections.emptyList(), Collections.emptyList());
+
+        AtomicInteger requestedVectors = new AtomicInteger();
+        AtomicReference<Thread> readingThread = new AtomicReference<>();
+        Iterator<List<String>> endlessInput = new Iterator<List<String>>() {
+            @Override
+            public boolean hasNext() {
+                return requestedVectors.get() < 1000;
+            }
+
+            @Override
+            public List<String> next() {
+                readingThread.set(Thread.currentThread());
+                requestedVectors.incrementAndGet();
+                return Collections.emptyList();
+            }
+        };
+
+        BatchRunner batchRunner = new BatchRunner(programRunner, 2, false);
+        CompletableFuture<Integer> batch = CompletableFuture.supplyAsync(() ->
+                batchRunner.run(Collections.emptyList(), endlessInput, new PrintStream(new ByteArrayOutputStream())));
+        try {
+            // twice the parallelism in process and the one waiting for a permit, which blocks the reading thread for good
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (requestedVectors.get() < 5 || readingThread.get().getState() != Thread.State.WAITING) {
+                assertTrue(System.nanoTime() < deadline, "The reading thread is not blocked");
+                Thread.yield();
+            }
+            assertThat(requestedVectors.get()).isEqualTo(5);
+        } finally {
+            release.countDown();
+        }
+        assertEquals(0, batch.get(10, TimeUnit.SECONDS));
+        assertEquals(1000, requestedVectors.get());
+    }
+}
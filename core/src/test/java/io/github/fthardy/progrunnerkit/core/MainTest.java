@@ -139,4 +139,30 @@ class MainTest {
         verify(this.endPhaseProgramTaskRunnerMock).runProgramTasks(anyList());
         verify(this.endPhaseControllerMock).onPhaseEnd();
     }
+
+    @Test
+    public void Argument_files_are_not_expanded_by_default() {
+
+        when(this.startPhaseProgramTaskRunnerMock.runProgramTasks(anyList())).thenReturn(false);
+
+        assertEquals(0, Main.run(new String[] {"@does-not-exist.args"}));
+
+        verify(programPhaseControllerFactoryMock).createInstance(eq(StartPhaseController.class), any(StartPhaseController.class));
+        verify(this.startPhaseControllerMock).onPhaseBegin();
+        verify(programTaskRunnerFactoryMock).createInstance(StartPhaseTask.class, this.startPhaseControllerMock);
+        verify(this.startPhaseProgramTaskRunnerMock).runProgramTasks(anyList());
+        verify(this.startPhaseControllerMock).noTaskAvailable();
+        verify(this.startPhaseControllerMock).onPhaseEnd();
+    }
+
+    @Test
+    public void An_unreadable_argument_file_exits_with_status_2_before_any_phase() {
+
+        System.setProperty(ArgumentFiles.ENABLED_PROPERTY, "true");
+        try {
+            assertEquals(2, Main.run(new String[] {"@does-not-exist.args"}));
+        } finally {
+            System.clearProperty(ArgumentFiles.ENABLED_PROPERTY);
+        }
+    }
 }
\ No newline at end of file
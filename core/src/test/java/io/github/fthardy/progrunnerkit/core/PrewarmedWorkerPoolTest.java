@@ -0,0 +1,146 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrewarmedWorkerPoolTest {
+
+    public static class BootTask implements StartPhaseTask {
+
+        @Override
+        public void run(List<String> arguments) {
+            System.setProperty("test.session.arguments", String.join(",", arguments));
+        }
+    }
+
+    public static class EchoTask implements PerInvocationTask {
+
+        @Override
+        public void run(List<String> arguments) {
+            if (arguments.contains("exit")) {
+                System.exit(7);
+            }
+            if (arguments.contains("ignore-input")) {
+                return;
+            }
+            Scanner scanner = new Scanner(System.in, "UTF-8").useDelimiter("\\A");
+            System.out.println("session=" + System.getProperty("test.session.arguments") + " arguments=" + arguments
+                    + " input=" + (scanner.hasNext() ? scanner.next() : ""));
+            System.err.println(ManagementFactory.getRuntimeMXBean().getName());
+        }
+    }
+
+    public static class QuietEndTask implements EndPhaseTask {
+
+        @Override
+        public void run(List<String> arguments) {
+            // nothing to be done
+        }
+    }
+
+    private PrewarmedWorkerPool pool;
+
+    @BeforeEach
+    public void setUp(@TempDir Path serviceDir) throws IOException {
+        Path serviceFile = serviceDir.resolve("META-INF/services/" + StartPhaseTask.class.getName());
+        Files.createDirectories(serviceFile.getParent());
+        Files.write(serviceFile, Arrays.asList(BootTask.class.getName(), EchoTask.class.getName()));
+        Files.write(serviceDir.resolve("META-INF/services/" + EndPhaseTask.class.getName()), Collections.singletonList(QuietEndTask.class.getName()));
+        this.pool = new PrewarmedWorkerPool(2, serviceDir + File.pathSeparator + System.getProperty("java.class.path"),
+                Collections.emptyList(), Collections.singletonList("boot"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.pool.close();
+    }
+
+    @Test
+    public void Invocations_are_processed_by_separate_prewarmed_workers() {
+
+        ByteArrayOutputStream firstOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream firstErr = new ByteArrayOutputStream();
+        assertEquals(0, this.pool.invoke(Arrays.asList("a", "b"), new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)), firstOut, firstErr));
+        assertEquals("session=boot arguments=[a, b] input=hello" + System.lineSeparator(), firstOut.toString());
+
+        ByteArrayOutputStream secondOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream secondErr = new ByteArrayOutputStream();
+        assertEquals(0, this.pool.invoke(Collections.singletonList("c"), null, secondOut, secondErr));
+        assertEquals("session=boot arguments=[c] input=" + System.lineSeparator(), secondOut.toString());
+
+        assertThat(firstErr.toString()).isNotEmpty().isNotEqualTo(secondErr.toString());
+    }
+
+    @Test
+    public void The_exit_status_of_a_worker_calling_System_exit_is_returned() {
+
+        assertEquals(7, this.pool.invoke(Collections.singletonList("exit"), null, new ByteArrayOutputStream(), new ByteArrayOutputStream()));
+        assertEquals(0, this.pool.invoke(Collections.singletonList("next"), null, new ByteArrayOutputStream(), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void The_input_is_only_read_as_far_as_the_invocation_reads_it() {
+
+        AtomicInteger reads = new AtomicInteger();
+        InputStream endlessInput = new InputStream() {
+            @Override
+            public int read() {
+                reads.incrementAndGet();
+                return 'x';
+            }
+        };
+
+        assertEquals(0, this.pool.invoke(Collections.singletonList("ignore-input"), endlessInput, new ByteArrayOutputStream(), new ByteArrayOutputStream()));
+        assertEquals(0, reads.get());
+    }
+
+    @Test
+    public void No_invocation_after_close() {
+
+        this.pool.close();
+        assertThrows(IllegalStateException.class, () -> this.pool.invoke(Collections.emptyList(), null, System.out, System.err));
+    }
+}
@@ -0,0 +1,215 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProgramRunnerTest {
+
+    static class CountingTask implements StartPhaseTask {
+
+        final AtomicInteger runs = new AtomicInteger();
+
+        @Override
+        public void run(List<String> arguments) {
+            this.runs.incrementAndGet();
+        }
+    }
+
+    static class NestedTasks extends ProgramPhaseTaskAggregator<StartPhaseTask> implements StartPhaseTask {
+
+        NestedTasks(List<StartPhaseTask> tasks) {
+            super(tasks);
+        }
+    }
+
+    @Test
+    public void Phases_are_run_for_every_call_with_the_given_arguments() {
+
+        StartPhaseTask startPhaseTaskMock = mock(StartPhaseTask.class);
+        EndPhaseTask endPhaseTaskMock = mock(EndPhaseTask.class);
+        StartPhaseController startPhaseControllerMock = mock(StartPhaseController.class);
+        EndPhaseController endPhaseControllerMock = mock(EndPhaseController.class);
+        when(startPhaseTaskMock.getIdentifier()).thenReturn("start");
+        when(endPhaseTaskMock.getIdentifier()).thenReturn("end");
+
+        ProgramRunner runner = new ProgramRunner(Collections.singletonList(startPhaseTaskMock), Collections.singletonList(endPhaseTaskMock),
+                Collections.singletonList(startPhaseControllerMock), Collections.singletonList(endPhaseControllerMock));
+
+        runner.run(new String[] {"first"});
+        runner.run(new String[] {"second"});
+
+        InOrder inOrder = inOrder(startPhaseTaskMock, endPhaseTaskMock, startPhaseControllerMock, endPhaseControllerMock);
+        for (String argument : Arrays.asList("first", "second")) {
+            inOrder.verify(startPhaseControllerMock).onPhaseBegin();
+            inOrder.verify(startPhaseTaskMock).run(Collections.singletonList(argument));
+            inOrder.verify(startPhaseControllerMock).onPhaseEnd();
+            inOrder.verify(endPhaseControllerMock).onPhaseBegin();
+            inOrder.verify(endPhaseTaskMock).run(Collections.singletonList(argument));
+            inOrder.verify(endPhaseControllerMock).onPhaseEnd();
+        }
+    }
+
+    @Test
+    public void No_end_phase_without_start_phase_tasks() {
+
+        EndPhaseTask endPhaseTaskMock = mock(EndPhaseTask.class);
+        StartPhaseController startPhaseControllerMock = mock(StartPhaseController.class);
+        EndPhaseController endPhaseControllerMock = mock(EndPhaseController.class);
+
+        ProgramRunner runner = new ProgramRunner(Collections.emptyList(), Collections.singletonList(endPhaseTaskMock),
+                Collections.singletonList(startPhaseControllerMock), Collections.singletonList(endPhaseControllerMock));
+
+        runner.run(new String[0]);
+
+        verify(startPhaseControllerMock).onPhaseBegin();
+        verify(startPhaseControllerMock).noTaskAvailable();
+        verify(startPhaseControllerMock).onPhaseEnd();
+        verifyNoInteractions(endPhaseTaskMock, endPhaseControllerMock);
+    }
+
+    @Test
+    public void An_aggregator_can_be_run_directly() {
+
+        CountingTask nestedCountingTask = new CountingTask();
+
+        new NestedTasks(Arrays.asList(nestedCountingTask, nestedCountingTask)).run(Collections.emptyList());
+
+        assertEquals(2, nestedCountingTask.runs.get());
+    }
+
+    @Test
+    public void Concurrent_runs_share_the_tasks() throws Exception {
+
+        CountingTask countingTask = new CountingTask();
+        CountingTask nestedCountingTask = new CountingTask();
+
+        ProgramRunner runner = new ProgramRunner(
+                Arrays.asList(countingTask, new NestedTasks(Collections.singletonList(nestedCountingTask))),
+                Collections.<EndPhaseTask>singletonList(arguments -> {}), Collections.emptyList(), Collections.emptyList());
+
+        int threads = 8;
+        int runsPerThread = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int run = 0; run < runsPerThread; run++) {
+                        runner.run(Collections.emptyList());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(threads * runsPerThread, countingTask.runs.get());
+        assertEquals(threads * runsPerThread, nestedCountingTask.runs.get());
+    }
+
+    @Test
+    public void Session_runs_the_per_invocation_tasks_for_every_invocation() {
+
+        StartPhaseTask sessionTaskMock = mock(StartPhaseTask.class);
+        PerInvocationTask perInvocationTaskMock = mock(PerInvocationTask.class);
+        EndPhaseTask endPhaseTaskMock = mock(EndPhaseTask.class);
+        StartPhaseController startPhaseControllerMock = mock(StartPhaseController.class);
+        List<String> sessionArguments = Collections.singletonList("session");
+
+        doAnswer(invocation -> {
+            ProgramInvocation current = ProgramInvocation.current().orElseThrow(IllegalStateException::new);
+            current.setExitStatus(current.getIndex() + 10);
+            return null;
+        }).when(perInvocationTaskMock).run(anyList());
+
+        ProgramRunner runner = new ProgramRunner(Arrays.asList(sessionTaskMock, perInvocationTaskMock), Collections.singletonList(endPhaseTaskMock),
+                Collections.singletonList(startPhaseControllerMock), Collections.emptyList());
+
+        try (ProgramRunner.Session session = runner.openSession(sessionArguments)) {
+            assertFalse(session.isStartPhaseEnded());
+            assertEquals(11, session.invoke(1, Collections.singletonList("first")));
+            assertEquals(12, session.invoke(2, Collections.singletonList("second")));
+            verifyNoInteractions(endPhaseTaskMock);
+        }
+
+        InOrder inOrder = inOrder(sessionTaskMock, perInvocationTaskMock, endPhaseTaskMock, startPhaseControllerMock);
+        inOrder.verify(startPhaseControllerMock).onPhaseBegin();
+        inOrder.verify(sessionTaskMock).run(sessionArguments);
+        inOrder.verify(perInvocationTaskMock).run(Collections.singletonList("first"));
+        inOrder.verify(perInvocationTaskMock).run(Collections.singletonList("second"));
+        inOrder.verify(startPhaseControllerMock).onPhaseEnd();
+        inOrder.verify(endPhaseTaskMock).run(sessionArguments);
+        verify(sessionTaskMock, times(1)).run(anyList());
+        assertFalse(ProgramInvocation.current().isPresent());
+    }
+
+    @Test
+    public void The_invocation_is_complete_before_the_end_phase() {
+
+        List<String> events = new ArrayList<>();
+        StartPhaseTask startPhaseTask = arguments -> ProgramInvocation.current().orElseThrow(IllegalStateException::new)
+                .onCompletion(() -> events.add("completed"));
+        EndPhaseTask endPhaseTask = arguments -> events.add("end phase - invocation present: " + ProgramInvocation.current().isPresent());
+
+        new ProgramRunner(Collections.singletonList(startPhaseTask), Collections.singletonList(endPhaseTask), Collections.emptyList(),
+                Collections.emptyList()).run(Collections.emptyList());
+
+        assertEquals(Arrays.asList("completed", "end phase - invocation present: false"), events);
+    }
+
+    @Test
+    public void A_nested_run_on_the_thread_of_the_invocation_fails() {
+
+        ProgramRunner nestedRunner = new ProgramRunner(Collections.singletonList(arguments -> {}), Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList());
+        List<Throwable> failures = new ArrayList<>();
+        StartPhaseTask startPhaseTask = arguments -> failures.add(assertThrows(IllegalStateException.class, () -> nestedRunner.run(arguments)));
+
+        new ProgramRunner(Collections.singletonList(startPhaseTask), Collections.emptyList(), Collections.emptyList(), Collections.emptyList())
+                .run(Collections.emptyList());
+
+        assertEquals(1, failures.size());
+        assertFalse(ProgramInvocation.current().isPresent());
+    }
+}
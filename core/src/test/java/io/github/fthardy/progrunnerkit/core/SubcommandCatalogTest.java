@@ -0,0 +1,172 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubcommandCatalogTest {
+
+    private static final List<List<String>> _recordedArguments = Collections.synchronizedList(new ArrayList<>());
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void Subcommands_are_read_from_all_index_resources() throws IOException {
+
+        ClassLoader classLoader = this.createClassLoader(
+                "import.description=Imports the data.\nimport.startPhaseTasks=com.example.ImportTask\nimport.options=--from",
+                "export.description=Exports the data.");
+
+        SubcommandCatalog catalog = SubcommandCatalog.load(classLoader);
+
+        assertFalse(catalog.isEmpty());
+        assertThat(catalog.getSubcommands().stream().map(SubcommandDescriptor::getName).collect(Collectors.toList())).containsExactly("export", "import");
+        SubcommandDescriptor subcommand = catalog.find("import").orElseThrow(AssertionError::new);
+        assertEquals("Imports the data.", subcommand.getDescription());
+        assertEquals("--from", subcommand.getEntry("options").orElse(null));
+        assertFalse(catalog.find("delete").isPresent());
+    }
+
+    @Test
+    public void Catalog_is_empty_without_index_resource() throws IOException {
+
+        assertTrue(SubcommandCatalog.load(new URLClassLoader(new URL[0], null)).isEmpty());
+    }
+
+    @Test
+    public void Subcommand_declared_twice_is_rejected() throws IOException {
+
+        ClassLoader classLoader = this.createClassLoader("import.description=One", "import.description=Two");
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> SubcommandCatalog.load(classLoader));
+        assertThat(exception.getMessage()).contains("'import'");
+    }
+
+    @Test
+    public void Key_without_subcommand_name_is_rejected() throws IOException {
+
+        ClassLoader classLoader = this.createClassLoader("description=None");
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> SubcommandCatalog.load(classLoader));
+        assertThat(exception.getMessage()).contains("'description'");
+    }
+
+    @Test
+    public void Only_the_classes_of_the_chosen_subcommand_are_loaded() throws IOException {
+
+        ClassLoader classLoader = this.createClassLoader(
+                "record.startPhaseTasks=" + RecordingTask.class.getName() + "\n"
+                        + "broken.startPhaseTasks=com.example.DoesNotExist\n"
+                        + "broken.endPhaseTasks=com.example.DoesNotExistEither");
+        SubcommandCatalog catalog = SubcommandCatalog.load(classLoader);
+        _recordedArguments.clear();
+
+        new ProgramRunner(catalog.find("record").orElseThrow(AssertionError::new)).run(Arrays.asList("record", "-v"));
+
+        assertThat(_recordedArguments).isEqualTo(Collections.singletonList(Arrays.asList("record", "-v")));
+        SubcommandDescriptor broken = catalog.find("broken").orElseThrow(AssertionError::new);
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> new ProgramRunner(broken));
+        assertThat(exception.getMessage()).contains("com.example.DoesNotExist");
+    }
+
+    @Test
+    public void Class_of_wrong_type_is_rejected() throws IOException {
+
+        ClassLoader classLoader = this.createClassLoader("wrong.endPhaseTasks=" + RecordingTask.class.getName());
+        SubcommandDescriptor subcommand = SubcommandCatalog.load(classLoader).find("wrong").orElseThrow(AssertionError::new);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> subcommand.instantiate(SubcommandDescriptor.END_PHASE_TASKS_KEY, EndPhaseTask.class));
+        assertThat(exception.getCause()).isInstanceOf(ClassCastException.class);
+        assertThat(subcommand.instantiate(SubcommandDescriptor.START_PHASE_TASKS_KEY, StartPhaseTask.class)).isEmpty();
+    }
+
+    @Test
+    public void Missing_or_unknown_subcommand_ends_with_exit_status_2() throws IOException {
+
+        SubcommandCatalog catalog = SubcommandCatalog.load(this.createClassLoader("import.description=Imports the data."));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream originalErr = System.err;
+        try {
+            System.setErr(new PrintStream(output, true));
+            assertEquals(2, Main.runSubcommand(catalog, Arrays.asList("-v", "delete")));
+            assertEquals(2, Main.runSubcommand(catalog, Collections.singletonList("-v")));
+            assertEquals(2, Main.runSubcommand(catalog, Arrays.asList("--port", "80", "import")));
+        } finally {
+            System.setErr(originalErr);
+        }
+
+        assertThat(output.toString()).contains("Unknown subcommand 'delete'.", "No subcommand given.", "Imports the data.",
+                "If '--port' takes a value it must be given as --port=<value>.");
+    }
+
+    @Test
+    public void Subcommand_name_is_the_first_argument_without_dash() {
+
+        assertEquals(1, SubcommandCatalog.indexOfSubcommandName(Arrays.asList("-v", "import", "-x")));
+        assertEquals(0, SubcommandCatalog.indexOfSubcommandName(Arrays.asList("import", "--from")));
+        assertEquals(-1, SubcommandCatalog.indexOfSubcommandName(Arrays.asList("-v", "--help")));
+        assertEquals(1, SubcommandCatalog.indexOfSubcommandName(Arrays.asList("--port=80", "import")));
+        assertEquals(1, SubcommandCatalog.indexOfSubcommandName(Arrays.asList("--port", "80", "import")));
+    }
+
+    private ClassLoader createClassLoader(String... indexResources) throws IOException {
+        List<URL> urls = new ArrayList<>();
+        for (int i = 0; i < indexResources.length; i++) {
+            Path index = this.tempDir.resolve("root" + i).resolve(SubcommandCatalog.INDEX_RESOURCE);
+            Files.createDirectories(index.getParent());
+            Files.write(index, indexResources[i].getBytes(StandardCharsets.ISO_8859_1));
+            urls.add(this.tempDir.resolve("root" + i).toUri().toURL());
+        }
+        return new URLClassLoader(urls.toArray(new URL[0]), SubcommandCatalogTest.class.getClassLoader());
+    }
+
+    public static class RecordingTask implements StartPhaseTask {
+
+        @Override
+        public void run(List<String> arguments) {
+            _recordedArguments.add(new ArrayList<>(arguments));
+        }
+    }
+}
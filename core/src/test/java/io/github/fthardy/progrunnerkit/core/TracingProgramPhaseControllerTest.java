@@ -0,0 +1,111 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TracingProgramPhaseControllerTest {
+
+    static class NestedTasks extends ProgramPhaseTaskAggregator<StartPhaseTask> implements StartPhaseTask {
+
+        NestedTasks(List<StartPhaseTask> tasks) {
+            super(tasks);
+        }
+
+        @Override
+        public String getIdentifier() {
+            return "outer";
+        }
+    }
+
+    @Test
+    public void Phase_tasks_nested_tasks_and_exceptions_are_recorded() throws IOException {
+
+        StartPhaseTask inner = mock(StartPhaseTask.class);
+        StartPhaseTask failing = mock(StartPhaseTask.class);
+        when(inner.getIdentifier()).thenReturn("inner");
+        when(failing.getIdentifier()).thenReturn("failing");
+        doThrow(new IllegalStateException("TEST")).when(failing).run(anyList());
+
+        ProgramPhaseController controllerMock = mock(ProgramPhaseController.class);
+        TraceEventRecorder recorder = new TraceEventRecorder();
+        TracingProgramPhaseController controller = new TracingProgramPhaseController("Start phase", controllerMock, recorder);
+
+        controller.onPhaseBegin();
+        assertTrue(new ProgramTaskRunner(Arrays.asList(new NestedTasks(Collections.singletonList(inner)), failing), controller)
+                .runProgramTasks(Collections.emptyList()));
+        controller.onPhaseEnd();
+
+        verify(controllerMock).onPhaseBegin();
+        verify(controllerMock).beforeTaskExecution("outer");
+        verify(controllerMock).beforeTaskExecution("inner");
+        verify(controllerMock).onExceptionFromTask(eq("failing"), any(IllegalStateException.class));
+        verify(controllerMock).onPhaseEnd();
+
+        StringWriter trace = new StringWriter();
+        recorder.writeTo(trace);
+        String json = trace.toString();
+
+        assertThat(json).startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        assertThat(json).contains("\"name\":\"thread_name\",\"args\":{\"name\":\"" + Thread.currentThread().getName() + "\"}");
+        assertThat(json).contains("\"cat\":\"controller\",\"name\":\"onExceptionFromTask\"");
+        assertThat(json).contains("\"args\":{\"task\":\"failing\",\"exception\":\"java.lang.IllegalStateException\",\"message\":\"TEST\"}");
+
+        int phaseBegin = json.indexOf("\"ph\":\"B\",\"pid\":1,\"tid\":" + Thread.currentThread().getId());
+        int outerBegin = json.indexOf("\"cat\":\"task\",\"name\":\"outer\"");
+        int innerBegin = json.indexOf("\"cat\":\"task\",\"name\":\"inner\"");
+        int innerEnd = json.indexOf("\"cat\":\"task\",\"name\":\"inner\"", innerBegin + 1);
+        int outerEnd = json.indexOf("\"cat\":\"task\",\"name\":\"outer\"", outerBegin + 1);
+        int phaseEnd = json.lastIndexOf("\"cat\":\"phase\",\"name\":\"Start phase\"");
+
+        assertThat(phaseBegin).isPositive();
+        assertThat(outerBegin).isGreaterThan(phaseBegin);
+        assertThat(innerBegin).isGreaterThan(outerBegin);
+        assertThat(innerEnd).isGreaterThan(innerBegin);
+        assertThat(outerEnd).isGreaterThan(innerEnd);
+        assertThat(phaseEnd).isGreaterThan(outerEnd);
+    }
+
+    @Test
+    public void Names_are_escaped() throws IOException {
+
+        TraceEventRecorder recorder = new TraceEventRecorder();
+        recorder.instant("task", "a \"quoted\"\ttask\\", Collections.emptyMap());
+
+        StringWriter trace = new StringWriter();
+        recorder.writeTo(trace);
+
+        assertThat(trace.toString()).contains("\"name\":\"a \\\"quoted\\\"\\ttask\\\\\"");
+    }
+}
@@ -0,0 +1,184 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cdi.deltaspike;
+
+import io.github.fthardy.progrunnerkit.core.TraceEventRecorder;
+
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.AfterDeploymentValidation;
+import javax.enterprise.inject.spi.AfterTypeDiscovery;
+import javax.enterprise.inject.spi.BeforeBeanDiscovery;
+import javax.enterprise.inject.spi.Extension;
+import javax.enterprise.inject.spi.ProcessAnnotatedType;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A portable extension which takes the time of the container lifecycle events during the boot of the CDI-Container.
+ * <p>
+ * The extension records when {@link BeforeBeanDiscovery}, {@link AfterTypeDiscovery}, {@link AfterBeanDiscovery} and {@link AfterDeploymentValidation} are
+ * fired and counts the {@link ProcessAnnotatedType} events by the archive (jar or directory) of the type. The time a type takes to be processed is measured
+ * from the previous {@code ProcessAnnotatedType} event on the same thread, so it covers loading the type and all observers of the type (the first type of a
+ * thread is not measured). The slowest types are kept. The {@link CdiContainerBoot} turns the recorded times into the {@link CdiBootTimings} of the boot.
+ * </p>
+ * <p>
+ * The extension is opt-in: It only records when the system property {@value CdiContainerBoot#REPORT_PROPERTY} is {@code true} or a
+ * {@link TraceEventRecorder} is active when the boot starts. As the container is booted by DeltaSpike, which offers no way to add an extension to a boot,
+ * the extension is always registered by its service configuration file but stays passive otherwise. Its observer of {@code ProcessAnnotatedType} then
+ * returns right away; the event itself is fired for every type anyway because DeltaSpike observes it as well.
+ * </p>
+ */
+public class CdiBootTimingExtension implements Extension {
+
+    /**
+     * The number of the slowest types which are kept.
+     */
+    static final int SLOWEST_TYPES = 10;
+
+    private static final String UNKNOWN_ARCHIVE = "<unknown>";
+
+    private volatile boolean enabled;
+    private volatile long beforeBeanDiscoveryNanos;
+    private volatile long afterTypeDiscoveryNanos;
+    private volatile long afterBeanDiscoveryNanos;
+    private volatile long afterDeploymentValidationNanos;
+    private final ThreadLocal<long[]> previousEventNanos = new ThreadLocal<>();
+    private final ConcurrentMap<String, LongAdder> processedTypes = new ConcurrentHashMap<>();
+    // a min-heap, so the fastest of the kept types is replaced
+    private final PriorityQueue<TypeTime> slowestTypes = new PriorityQueue<>(SLOWEST_TYPES + 1, Comparator.comparingLong(typeTime -> typeTime.nanos));
+
+    /**
+     * @return {@code true} when the timings of a boot starting now are recorded.
+     */
+    static boolean isEnabled() {
+        return Boolean.getBoolean(CdiContainerBoot.REPORT_PROPERTY) || TraceEventRecorder.active().isPresent();
+    }
+
+    void beforeBeanDiscovery(@Observes BeforeBeanDiscovery event) {
+        this.enabled = isEnabled();
+        this.beforeBeanDiscoveryNanos = System.nanoTime();
+    }
+
+    void processAnnotatedType(@Observes ProcessAnnotatedType<?> event) {
+        if (!this.enabled) {
+            return;
+        }
+        long[] previous = this.previousEventNanos.get();
+        long previousNanos = previous == null ? -1L : previous[0];
+        long now = this.markEvent();
+        Class<?> type = event.getAnnotatedType().getJavaClass();
+        this.processedTypes.computeIfAbsent(archiveOf(type), archive -> new LongAdder()).increment();
+        if (previousNanos >= 0L) {
+            this.keepIfSlow(type.getName(), now - previousNanos);
+        }
+    }
+
+    void afterTypeDiscovery(@Observes AfterTypeDiscovery event) {
+        this.afterTypeDiscoveryNanos = System.nanoTime();
+        if (this.enabled) {
+            this.previousEventNanos.remove();
+        }
+    }
+
+    void afterBeanDiscovery(@Observes AfterBeanDiscovery event) {
+        this.afterBeanDiscoveryNanos = System.nanoTime();
+    }
+
+    void afterDeploymentValidation(@Observes AfterDeploymentValidation event) {
+        this.afterDeploymentValidationNanos = System.nanoTime();
+    }
+
+    private long markEvent() {
+        long now = System.nanoTime();
+        long[] previous = this.previousEventNanos.get();
+        if (previous == null) {
+            this.previousEventNanos.set(new long[] {now});
+        } else {
+            previous[0] = now;
+        }
+        return now;
+    }
+
+    private synchronized void keepIfSlow(String typeName, long nanos) {
+        if (this.slowestTypes.size() < SLOWEST_TYPES) {
+            this.slowestTypes.add(new TypeTime(typeName, nanos));
+        } else if (this.slowestTypes.peek().nanos < nanos) {
+            this.slowestTypes.poll();
+            this.slowestTypes.add(new TypeTime(typeName, nanos));
+        }
+    }
+
+    private static String archiveOf(Class<?> type) {
+        CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+        return codeSource == null || codeSource.getLocation() == null ? UNKNOWN_ARCHIVE : codeSource.getLocation().getPath();
+    }
+
+    /**
+     * @return {@code true} when the timings of the last boot have been recorded.
+     */
+    boolean isRecorded() {
+        return this.enabled;
+    }
+
+    /**
+     * Creates the timings of a completed boot.
+     *
+     * @param bootStartNanos the start of the boot as obtained from {@link System#nanoTime()}.
+     * @param bootEndNanos the end of the boot as obtained from {@link System#nanoTime()}.
+     *
+     * @return the timings.
+     */
+    synchronized CdiBootTimings createTimings(long bootStartNanos, long bootEndNanos) {
+        Map<String, Long> processedTypeCounts = new LinkedHashMap<>();
+        this.processedTypes.entrySet().stream()
+                .sorted(Map.Entry.<String, LongAdder>comparingByValue(Comparator.comparingLong(LongAdder::sum)).reversed())
+                .forEach(entry -> processedTypeCounts.put(entry.getKey(), entry.getValue().sum()));
+        List<TypeTime> slowest = new ArrayList<>(this.slowestTypes);
+        slowest.sort(Comparator.comparingLong((TypeTime typeTime) -> typeTime.nanos).reversed());
+        Map<String, Long> slowestTypeNanos = new LinkedHashMap<>();
+        slowest.forEach(typeTime -> slowestTypeNanos.put(typeTime.typeName, typeTime.nanos));
+        return new CdiBootTimings(new long[] {bootStartNanos, this.beforeBeanDiscoveryNanos, this.afterTypeDiscoveryNanos, this.afterBeanDiscoveryNanos,
+                this.afterDeploymentValidationNanos, bootEndNanos}, processedTypeCounts, slowestTypeNanos);
+    }
+
+    private static final class TypeTime {
+
+        private final String typeName;
+        private final long nanos;
+
+        TypeTime(String typeName, long nanos) {
+            this.typeName = typeName;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cdi.deltaspike;
+
+import io.github.fthardy.progrunnerkit.core.TraceEventRecorder;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The times taken by the phases of the boot of the CDI-Container as recorded by the {@link CdiBootTimingExtension}.
+ * <p>
+ * The phases are delimited by the container lifecycle events:
+ * </p>
+ * <ul>
+ *     <li><b>container setup</b> - from the start of the boot until {@code BeforeBeanDiscovery}, i.e. finding and scanning the bean archives,</li>
+ *     <li><b>type discovery</b> - until {@code AfterTypeDiscovery}, i.e. the {@code ProcessAnnotatedType} events,</li>
+ *     <li><b>bean discovery</b> - until {@code AfterBeanDiscovery}, i.e. creating the beans and observer methods and resolving the observers,</li>
+ *     <li><b>validation</b> - until {@code AfterDeploymentValidation}, i.e. validating the injection points and generating the client proxies,</li>
+ *     <li><b>initialization</b> - until the end of the boot.</li>
+ * </ul>
+ */
+public final class CdiBootTimings {
+
+    /**
+     * The category of the slices recorded by a {@link TraceEventRecorder}.
+     */
+    public static final String TRACE_CATEGORY = "cdi";
+
+    private static final String[] PHASES = {"container setup", "type discovery", "bean discovery", "validation", "initialization"};
+
+    private final long[] boundaryNanos;
+    private final Map<String, Long> processedTypeCounts;
+    private final Map<String, Long> slowestTypeNanos;
+
+    CdiBootTimings(long[] boundaryNanos, Map<String, Long> processedTypeCounts, Map<String, Long> slowestTypeNanos) {
+        if (boundaryNanos.length != PHASES.length + 1) {
+            throw new IllegalArgumentException("Expected " + (PHASES.length + 1) + " boundaries of the phases!");
+        }
+        this.boundaryNanos = boundaryNanos.clone();
+        this.processedTypeCounts = Collections.unmodifiableMap(new LinkedHashMap<>(processedTypeCounts));
+        this.slowestTypeNanos = Collections.unmodifiableMap(new LinkedHashMap<>(slowestTypeNanos));
+    }
+
+    /**
+     * @return the time of the whole boot.
+     */
+    public Duration getBootTime() {
+        return Duration.ofNanos(this.boundaryNanos[PHASES.length] - this.boundaryNanos[0]);
+    }
+
+    /**
+     * @return the time of each phase by its name in the order of the phases.
+     */
+    public Map<String, Duration> getPhaseTimes() {
+        Map<String, Duration> phaseTimes = new LinkedHashMap<>();
+        for (int i = 0; i < PHASES.length; i++) {
+            phaseTimes.put(PHASES[i], Duration.ofNanos(this.boundaryNanos[i + 1] - this.boundaryNanos[i]));
+        }
+        return Collections.unmodifiableMap(phaseTimes);
+    }
+
+    /**
+     * @return the number of processed types by the location of their archive, the archive with the most types first.
+     */
+    public Map<String, Long> getProcessedTypeCounts() {
+        return this.processedTypeCounts;
+    }
+
+    /**
+     * @return the time the slowest types took to be processed by their class name, the slowest type first.
+     */
+    public Map<String, Duration> getSlowestTypes() {
+        Map<String, Duration> slowestTypes = new LinkedHashMap<>();
+        this.slowestTypeNanos.forEach((typeName, nanos) -> slowestTypes.put(typeName, Duration.ofNanos(nanos)));
+        return Collections.unmodifiableMap(slowestTypes);
+    }
+
+    /**
+     * Records the boot and its phases as slices of the category {@value TRACE_CATEGORY} on the timeline of the current thread.
+     *
+     * @param recorder the recorder to record the slices with.
+     */
+    void record(TraceEventRecorder recorder) {
+        recorder.completeSlice(TRACE_CATEGORY, "boot", this.boundaryNanos[0], this.boundaryNanos[PHASES.length]);
+        for (int i = 0; i < PHASES.length; i++) {
+            recorder.completeSlice(TRACE_CATEGORY, PHASES[i], this.boundaryNanos[i], this.boundaryNanos[i + 1]);
+        }
+        Map<String, String> typeCounts = new LinkedHashMap<>();
+        this.processedTypeCounts.forEach((archive, count) -> typeCounts.put(archive, count + " types"));
+        recorder.instant(TRACE_CATEGORY, "processed types", typeCounts);
+        Map<String, String> slowestTypes = new LinkedHashMap<>();
+        this.slowestTypeNanos.forEach((typeName, nanos) -> slowestTypes.put(typeName, String.format(Locale.ROOT, "%.3f ms", nanos / 1e6)));
+        recorder.instant(TRACE_CATEGORY, "slowest types", slowestTypes);
+    }
+
+    /**
+     * Writes the times of the boot.
+     *
+     * @param out the stream to write the report to.
+     */
+    public void writeReport(PrintStream out) {
+        out.printf("CDI container boot: %.3f ms%n", this.getBootTime().toNanos() / 1e6);
+        this.getPhaseTimes().forEach((phase, duration) -> out.printf("  %-40s %10.3f ms%n", phase, duration.toNanos() / 1e6));
+        out.println("Processed types:");
+        this.processedTypeCounts.forEach((archive, count) -> out.printf("  %8d  %s%n", count, archive));
+        out.println("Slowest types:");
+        this.slowestTypeNanos.forEach((typeName, nanos) -> out.printf("  %10.3f ms  %s%n", nanos / 1e6, typeName));
+    }
+
+    @Override
+    public String toString() {
+        return "CdiBootTimings{phaseTimes=" + this.getPhaseTimes() + ", processedTypeCounts=" + this.processedTypeCounts + ", slowestTypes="
+                + this.getSlowestTypes() + '}';
+    }
+}
@@ -0,0 +1,226 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cdi.deltaspike;
+
+import io.github.fthardy.progrunnerkit.core.TraceEventRecorder;
+import org.apache.deltaspike.cdise.api.CdiContainer;
+import org.apache.deltaspike.cdise.api.CdiContainerLoader;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * The boot of the CDI-Container, which runs on a background thread so that start phase tasks which don't need CDI can run alongside it.
+ * <p>
+ * The boot is started by the {@link DefaultDeltaSpikeCdiContainerBootTask}. Every task which needs the container - like the tasks of this module - waits for
+ * the boot by {@link #await()} before it uses the container. When the system property {@value SYNCHRONOUS_PROPERTY} is {@code true} the container is booted
+ * on the thread of the boot task instead.
+ * </p>
+ * <p>
+ * When the system property {@value REPORT_PROPERTY} is {@code true} or a {@link TraceEventRecorder} is active, the times of the phases of the boot are
+ * recorded by the {@link CdiBootTimingExtension} and are available by {@link #getBootTimings()}. They are recorded as slices on the timeline of the boot
+ * thread of an active {@link TraceEventRecorder} and written to {@code System.err} after the boot when the system property is {@code true}.
+ * </p>
+ */
+public final class CdiContainerBoot {
+
+    /**
+     * The name of the system property to boot the container synchronously.
+     */
+    public static final String SYNCHRONOUS_PROPERTY = "progrunnerkit.cdi.boot.synchronous";
+
+    /**
+     * The name of the system property to write the times of the boot to {@code System.err}.
+     */
+    public static final String REPORT_PROPERTY = "progrunnerkit.cdi.boot.report";
+
+    private static volatile CompletableFuture<Void> _boot;
+    /** The boot followed by the actions registered by {@link #afterBoot(Runnable)}. */
+    private static volatile CompletableFuture<Void> _afterBoot;
+    private static volatile boolean _failureObserved;
+    private static volatile CdiBootTimings _bootTimings;
+
+    /**
+     * Starts the boot of the container unless it has already been started.
+     */
+    static synchronized void start() {
+        if (_boot != null) {
+            return;
+        }
+        if (Boolean.getBoolean(SYNCHRONOUS_PROPERTY)) {
+            CompletableFuture<Void> boot = new CompletableFuture<>();
+            publish(boot);
+            try {
+                boot();
+                boot.complete(null);
+            } catch (RuntimeException | Error e) {
+                boot.completeExceptionally(e);
+                throw e;
+            }
+            return;
+        }
+        CompletableFuture<Void> boot = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                boot();
+                boot.complete(null);
+            } catch (Throwable e) {
+                boot.completeExceptionally(e);
+            }
+        }, "cdi-container-boot");
+        thread.setDaemon(true);
+        publish(boot);
+        thread.start();
+    }
+
+    private static void publish(CompletableFuture<Void> boot) {
+        _failureObserved = false;
+        _afterBoot = boot;
+        _boot = boot;
+    }
+
+    private static void boot() {
+        CdiContainer container = CdiContainerLoader.getCdiContainer();
+        _bootTimings = null;
+        long start = System.nanoTime();
+        container.boot();
+        long end = System.nanoTime();
+
+        CdiBootTimingExtension timingExtension;
+        try {
+            timingExtension = container.getBeanManager().getExtension(CdiBootTimingExtension.class);
+        } catch (IllegalArgumentException e) {
+            return; // the extension has been vetoed
+        }
+        if (!timingExtension.isRecorded()) {
+            return;
+        }
+        CdiBootTimings bootTimings = timingExtension.createTimings(start, end);
+        _bootTimings = bootTimings;
+        TraceEventRecorder.active().ifPresent(bootTimings::record);
+        if (Boolean.getBoolean(REPORT_PROPERTY)) {
+            bootTimings.writeReport(System.err);
+        }
+    }
+
+    /**
+     * Provides the times of the last boot.
+     *
+     * @return an optional containing the times of the last completed boot or an empty optional when no boot has been completed or the times of the boot
+     * haven't been recorded.
+     */
+    public static Optional<CdiBootTimings> getBootTimings() {
+        return Optional.ofNullable(_bootTimings);
+    }
+
+    /**
+     * Registers an action to be run right after the boot of the container, i.e. to start a context. The action is run on the thread which completes the boot
+     * or on the current thread if the boot is already complete. {@link #await()} returns after the action has been run. A failing action fails
+     * {@link #await()} as well, but the container is shut down nevertheless.
+     *
+     * @param action the action to run.
+     *
+     * @throws IllegalStateException when the boot hasn't been started.
+     */
+    public static synchronized void afterBoot(Runnable action) {
+        CompletableFuture<Void> afterBoot = _afterBoot;
+        if (afterBoot == null) {
+            throw new IllegalStateException("The boot of the CDI-Container hasn't been started!");
+        }
+        _afterBoot = afterBoot.thenRun(action);
+    }
+
+    /**
+     * Waits until the container has been booted and the actions registered by {@link #afterBoot(Runnable)} have been run.
+     *
+     * @throws IllegalStateException when the boot hasn't been started.
+     * @throws RuntimeException the exception thrown by the boot of the container or by an action run after the boot.
+     */
+    public static void await() {
+        CompletableFuture<Void> afterBoot = _afterBoot;
+        if (afterBoot == null) {
+            throw new IllegalStateException("The boot of the CDI-Container hasn't been started!");
+        }
+        try {
+            afterBoot.join();
+        } catch (CompletionException e) {
+            _failureObserved = true;
+            throw rethrow(e.getCause());
+        }
+    }
+
+    /**
+     * Waits until a started boot and the actions run after it are complete, shuts the container down if it has been booted and forgets the boot.
+     *
+     * @param shutdown the action to shut the container down. It is run when the boot itself has succeeded, even if an action run after the boot has failed.
+     *
+     * @throws RuntimeException the exception thrown by the boot or by an action run after the boot when it hasn't been thrown by {@link #await()}, so a
+     * failure is never lost when no task has waited for the boot.
+     */
+    static synchronized void awaitAndReset(Runnable shutdown) {
+        CompletableFuture<Void> boot = _boot;
+        CompletableFuture<Void> afterBoot = _afterBoot;
+        _boot = null;
+        _afterBoot = null;
+        if (boot == null) {
+            return;
+        }
+        Throwable unobservedFailure = null;
+        try {
+            afterBoot.join();
+        } catch (CompletionException e) {
+            unobservedFailure = _failureObserved ? null : e.getCause();
+        }
+        // the actions run after the boot are complete, so is the boot
+        if (!boot.isCompletedExceptionally()) {
+            try {
+                shutdown.run();
+            } catch (RuntimeException e) {
+                if (unobservedFailure != null) {
+                    e.addSuppressed(unobservedFailure);
+                }
+                throw e;
+            }
+        }
+        if (unobservedFailure != null) {
+            throw rethrow(unobservedFailure);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable failure) {
+        if (failure instanceof RuntimeException) {
+            return (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        return new CompletionException(failure);
+    }
+
+    // No instances
+    private CdiContainerBoot() {
+        // intentionally empty
+    }
+}
@@ -0,0 +1,210 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cdi.deltaspike;
+
+import org.apache.deltaspike.cdise.api.CdiContainerLoader;
+import org.apache.deltaspike.cdise.api.ContextControl;
+
+import javax.enterprise.context.ContextNotActiveException;
+import javax.enterprise.context.RequestScoped;
+import javax.enterprise.inject.spi.BeanManager;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs independent units of work concurrently in the booted CDI-Container, each unit in a {@link RequestScoped} context of its own.
+ * <p>
+ * The units are run by a fixed number of worker threads. The request context of a unit is started by the {@link ContextControl} on the worker thread right
+ * before the unit is run and is stopped right after it, so {@code @RequestScoped} beans are never shared between units - even when a worker runs one unit
+ * after the other. Before a unit is run the runner checks that no request context is active on the worker and after the context has been stopped it checks
+ * that it is no longer active. A context which leaks from one unit into the next one therefore fails the unit with an {@link IllegalStateException} instead
+ * of silently sharing the beans.
+ * </p>
+ * <p>
+ * The time needed to start and to stop the request contexts is recorded and can be written by {@link #writeReport(PrintStream)}. The runner must be closed
+ * when it is no longer needed in order to stop the worker threads.
+ * </p>
+ */
+public final class CdiUnitOfWorkRunner implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final LongAdder units = new LongAdder();
+    private final LongAdder activationNanos = new LongAdder();
+    private final LongAccumulator maxActivationNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAdder deactivationNanos = new LongAdder();
+    private final LongAccumulator maxDeactivationNanos = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * Creates a new instance of this runner.
+     *
+     * @param parallelism the number of units to be run concurrently.
+     */
+    public CdiUnitOfWorkRunner(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be at least 1!");
+        }
+        AtomicInteger workerCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread worker = new Thread(runnable, "cdi-unit-of-work-" + workerCount.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+    }
+
+    /**
+     * Runs the given units of work and waits until all of them are complete. Waits for the boot of the container first.
+     *
+     * @param units the units of work.
+     * @param <T> the type of the results.
+     *
+     * @return the results of the units in the order of the units.
+     *
+     * @throws IllegalStateException when at least one unit has failed. The cause is the exception of the first failed unit, the exceptions of the other failed
+     * units are suppressed by it.
+     */
+    public <T> List<T> run(List<? extends Callable<? extends T>> units) {
+        Objects.requireNonNull(units);
+        CdiContainerBoot.await();
+        ContextControl contextControl = CdiContainerLoader.getCdiContainer().getContextControl();
+        BeanManager beanManager = CdiContainerLoader.getCdiContainer().getBeanManager();
+
+        List<CompletableFuture<T>> futures = new ArrayList<>(units.size());
+        for (Callable<? extends T> unit : units) {
+            Objects.requireNonNull(unit);
+            futures.add(CompletableFuture.supplyAsync(() -> this.runInRequestContext(unit, contextControl, beanManager), this.executor));
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        Throwable failure = null;
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw new IllegalStateException("A unit of work has failed!", failure);
+        }
+        return results;
+    }
+
+    private <T> T runInRequestContext(Callable<? extends T> unit, ContextControl contextControl, BeanManager beanManager) {
+        if (isRequestContextActive(beanManager)) {
+            throw new IllegalStateException("A request context is still active on " + Thread.currentThread().getName() + " before the unit of work is run!");
+        }
+        long started = System.nanoTime();
+        contextControl.startContext(RequestScoped.class);
+        record(System.nanoTime() - started, this.activationNanos, this.maxActivationNanos);
+        T result;
+        try {
+            result = unit.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        } finally {
+            long stopping = System.nanoTime();
+            contextControl.stopContext(RequestScoped.class);
+            record(System.nanoTime() - stopping, this.deactivationNanos, this.maxDeactivationNanos);
+            this.units.increment();
+        }
+        if (isRequestContextActive(beanManager)) {
+            throw new IllegalStateException("The request context is still active on " + Thread.currentThread().getName() + " after the unit of work!");
+        }
+        return result;
+    }
+
+    private static boolean isRequestContextActive(BeanManager beanManager) {
+        try {
+            return beanManager.getContext(RequestScoped.class).isActive();
+        } catch (ContextNotActiveException e) {
+            return false;
+        }
+    }
+
+    private static void record(long nanos, LongAdder total, LongAccumulator max) {
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * @return the number of units which have been run so far.
+     */
+    public long getUnitCount() {
+        return this.units.sum();
+    }
+
+    /**
+     * @return the total time in nanoseconds needed to start the request contexts of the units so far.
+     */
+    public long getActivationNanos() {
+        return this.activationNanos.sum();
+    }
+
+    /**
+     * @return the total time in nanoseconds needed to stop the request contexts of the units so far.
+     */
+    public long getDeactivationNanos() {
+        return this.deactivationNanos.sum();
+    }
+
+    /**
+     * Writes the overhead of starting and stopping the request contexts.
+     *
+     * @param out the stream to write the report to.
+     */
+    public void writeReport(PrintStream out) {
+        long count = Math.max(1L, this.getUnitCount());
+        out.printf("CDI request contexts of %d units of work:%n", this.getUnitCount());
+        out.printf("  %-12s %12s %12s %12s%n", "", "total ms", "mean us", "max us");
+        out.printf("  %-12s %12.3f %12.1f %12.1f%n", "activation", this.getActivationNanos() / 1e6, this.getActivationNanos() / 1e3 / count,
+                this.maxActivationNanos.get() / 1e3);
+        out.printf("  %-12s %12.3f %12.1f %12.1f%n", "deactivation", this.getDeactivationNanos() / 1e6, this.getDeactivationNanos() / 1e3 / count,
+                this.maxDeactivationNanos.get() / 1e3);
+    }
+
+    /**
+     * Stops the worker threads. Units which are still running are interrupted.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cdi.deltaspike;
+
+import org.apache.deltaspike.cdise.api.CdiContainer;
+import org.apache.deltaspike.cdise.api.CdiContainerLoader;
+
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Generates the client proxies of the {@link javax.enterprise.context.NormalScope normal scoped} beans of an application at build time.
+ * <p>
+ * Weld generates the class of a client proxy at runtime unless a class with the name of the proxy can already be loaded. This main routine boots the container
+ * with the class path of the application, obtains a reference to every normal scoped bean and lets Weld dump the generated classes (system property
+ * {@value WELD_PROXY_DUMP_PROPERTY}) into the given directory. The build packages the classes into a jar on the class path of the application. The jar must
+ * not be a bean archive, otherwise the proxy classes would be discovered as beans. No tasks of the application are run.
+ * </p>
+ */
+public final class ClientProxyPregenerator {
+
+    /**
+     * The name of the Weld system property which defines the directory to dump the generated proxy classes to.
+     */
+    public static final String WELD_PROXY_DUMP_PROPERTY = "org.jboss.weld.proxy.dump";
+
+    /**
+     * Generates the client proxies.
+     *
+     * @param args the directory to dump the proxy classes to. The classes are written with their binary name as file name.
+     *
+     * @throws IOException when the directory cannot be created.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Expected the directory to dump the proxy classes to as the only argument!");
+        }
+        Path dumpDir = Files.createDirectories(Paths.get(args[0]));
+        System.setProperty(WELD_PROXY_DUMP_PROPERTY, dumpDir.toAbsolutePath().toString());
+
+        CdiContainer container = CdiContainerLoader.getCdiContainer();
+        container.boot();
+        try {
+            BeanManager beanManager = container.getBeanManager();
+            for (Bean<?> bean : beanManager.getBeans(Object.class, Any.Literal.INSTANCE)) {
+                if (beanManager.isNormalScope(bean.getScope())) {
+                    // creates the client proxy without creating an instance of the bean
+                    beanManager.getReference(bean, Object.class, beanManager.createCreationalContext(bean));
+                }
+            }
+        } finally {
+            container.shutdown();
+        }
+    }
+
+    // No instances
+    private ClientProxyPregenerator() {
+        // intentionally empty
+    }
+}
@@ -0,0 +1,133 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cdi.deltaspike;
+
+import org.apache.deltaspike.cdise.api.CdiContainerLoader;
+import org.apache.deltaspike.core.api.provider.BeanProvider;
+
+import javax.enterprise.context.NormalScope;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A cache for the contextual references of {@link NormalScope normal scoped} beans.
+ * <p>
+ * A lookup by {@link BeanProvider#getContextualReference(Class, Annotation...)} resolves the bean type-safe each time it is called, which adds up when a task
+ * looks up a bean for every invocation of a batch. The reference to a normal scoped bean is a client proxy which delegates to the instance of the active
+ * context, so it can be reused by every thread and every invocation for as long as the container is running. The references of beans with a pseudo scope
+ * (like {@code @Dependent}) are not cached because every lookup has to create a new instance.
+ * </p>
+ * <p>
+ * Lookups of cached references don't lock. When the same reference is looked up concurrently for the first time it is resolved by each thread and the first
+ * reference wins. The cache is cleared by the {@link DefaultDeltaSpikeCdiContainerShutdownTask} after the container has been shut down.
+ * </p>
+ */
+public final class ContextualReferenceCache {
+
+    private static volatile ConcurrentMap<Key, Object> _references = new ConcurrentHashMap<>();
+
+    /**
+     * Get the contextual reference to the bean with the given type and qualifiers.
+     *
+     * @param type the type of the bean.
+     * @param qualifiers the qualifiers of the bean.
+     * @param <T> the type of the bean.
+     *
+     * @return the reference which is cached when the bean is normal scoped.
+     *
+     * @throws IllegalStateException when no bean has been found.
+     * @throws javax.enterprise.inject.AmbiguousResolutionException when more than one bean has been found.
+     */
+    public static <T> T getContextualReference(Class<T> type, Annotation... qualifiers) {
+        // the map is read once so that a reference resolved while the cache is cleared ends up in the discarded map
+        ConcurrentMap<Key, Object> references = _references;
+        Key key = new Key(type, qualifiers);
+        Object reference = references.get(key);
+        if (reference != null) {
+            return type.cast(reference);
+        }
+
+        BeanManager beanManager = CdiContainerLoader.getCdiContainer().getBeanManager();
+        Set<Bean<?>> beans = beanManager.getBeans(type, qualifiers);
+        if (beans.isEmpty()) {
+            throw new IllegalStateException("Could not find a bean for type " + type.getName() + " with qualifiers " + Arrays.toString(qualifiers) + "!");
+        }
+        Bean<?> bean = beanManager.resolve(beans);
+        reference = beanManager.getReference(bean, type, beanManager.createCreationalContext(bean));
+        if (beanManager.isNormalScope(bean.getScope())) {
+            Object cached = references.putIfAbsent(key, reference);
+            if (cached != null) {
+                reference = cached;
+            }
+        }
+        return type.cast(reference);
+    }
+
+    /**
+     * Clears the cache.
+     */
+    static void clear() {
+        _references = new ConcurrentHashMap<>();
+    }
+
+    private static final class Key {
+
+        private final Class<?> type;
+        private final Set<Annotation> qualifiers;
+
+        Key(Class<?> type, Annotation[] qualifiers) {
+            this.type = Objects.requireNonNull(type);
+            this.qualifiers = new HashSet<>(Arrays.asList(qualifiers));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || this.getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return this.type.equals(key.type) && this.qualifiers.equals(key.qualifiers);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.type, this.qualifiers);
+        }
+    }
+
+    // No instances
+    private ContextualReferenceCache() {
+        // intentionally empty
+    }
+}
@@ -33,6 +33,9 @@ import java.util.List;
 /**
  * Starts the {@link ApplicationScoped} context.
  * <p>
+ * The context is started right after the boot of the container, without waiting for it. See {@link CdiContainerBoot#afterBoot(Runnable)}.
+ * </p>
+ * <p>
  * The default priority for this task is {@value DEFAULT_PRIORITY}.
  * </p>
  */
@@ -47,6 +50,6 @@ public class DefaultDeltaSpikeCdiApplicationScopeStartTask implements Prioritize
 
     @Override
     public void run(List<String> arguments) {
-        CdiContainerLoader.getCdiContainer().getContextControl().startContext(ApplicationScoped.class);
+        CdiContainerBoot.afterBoot(() -> CdiContainerLoader.getCdiContainer().getContextControl().startContext(ApplicationScoped.class));
     }
 }
@@ -33,6 +33,9 @@ import java.util.List;
 /**
  * Stops the {@link ApplicationScoped} context.
  * <p>
+ * Waits for the boot of the container first.
+ * </p>
+ * <p>
  * The default priority for this task is {@value DEFAULT_PRIORITY}.
  * </p>
  */
@@ -47,6 +50,7 @@ public class DefaultDeltaSpikeCdiApplicationScopeStopTask implements Prioritized
 
     @Override
     public void run(List<String> arguments) {
+        CdiContainerBoot.await();
         CdiContainerLoader.getCdiContainer().getContextControl().stopContext(ApplicationScoped.class);
     }
 }
@@ -23,22 +23,25 @@ SOFTWARE.
  */
 package io.github.fthardy.progrunnerkit.cdi.deltaspike;
 
+import io.github.fthardy.progrunnerkit.core.PerInvocationTask;
 import io.github.fthardy.progrunnerkit.core.Prioritized;
-import io.github.fthardy.progrunnerkit.core.StartPhaseTask;
-import org.apache.deltaspike.core.api.provider.BeanProvider;
 
 import java.util.List;
 
 /**
  * Starts the application through an {@link ApplicationEntryPoint}.
  * <p>
- * The application entry point is retrieved from the {@link BeanProvider} and the {@link ApplicationEntryPoint#run(List)} method is going to be invoked.
+ * The application entry point is retrieved from the {@link ContextualReferenceCache} and the {@link ApplicationEntryPoint#runApplication()} method is going to
+ * be invoked. Waits for the boot of the container first.
+ * </p>
+ * <p>
+ * The application is started for every invocation, so this is a {@link PerInvocationTask}.
  * </p>
  * <p>
  * The default priority of this task is 0.
  * </p>
  */
-public class DefaultDeltaSpikeCdiApplicationStarterTask implements Prioritized, StartPhaseTask {
+public class DefaultDeltaSpikeCdiApplicationStarterTask implements Prioritized, PerInvocationTask {
 
     /**
      * Interface definition for the application start entry point.
@@ -53,6 +56,7 @@ public class DefaultDeltaSpikeCdiApplicationStarterTask implements Prioritized,
     
     @Override
     public void run(List<String> arguments) {
-        BeanProvider.getContextualReference(ApplicationEntryPoint.class).runApplication();
+        CdiContainerBoot.await();
+        ContextualReferenceCache.getContextualReference(ApplicationEntryPoint.class).runApplication();
     }
 }
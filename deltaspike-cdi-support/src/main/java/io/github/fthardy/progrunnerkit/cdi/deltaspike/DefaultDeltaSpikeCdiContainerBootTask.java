@@ -25,14 +25,17 @@ package io.github.fthardy.progrunnerkit.cdi.deltaspike;
 
 import io.github.fthardy.progrunnerkit.core.Prioritized;
 import io.github.fthardy.progrunnerkit.core.StartPhaseTask;
-import org.apache.deltaspike.cdise.api.CdiContainerLoader;
 
 import java.util.List;
 
 /**
  * Boots up the CDI-Container.
  * <p>
- * The default priority for this task is {@value DEFAULT_PRIORITY}.
+ * The container is booted on a background thread, so the other start phase tasks run alongside the boot. Tasks which need the container wait for it by
+ * {@link CdiContainerBoot#await()}. The phases of the boot are timed by the {@link CdiBootTimingExtension}. See {@link CdiContainerBoot} for details.
+ * </p>
+ * <p>
+ * The default priority for this task is {@value DEFAULT_PRIORITY}, so the boot starts at the first moment of the start phase.
  * </p>
  */
 public class DefaultDeltaSpikeCdiContainerBootTask implements Prioritized, StartPhaseTask {
@@ -46,6 +49,6 @@ public class DefaultDeltaSpikeCdiContainerBootTask implements Prioritized, Start
 
     @Override
     public void run(List<String> arguments) {
-        CdiContainerLoader.getCdiContainer().boot();
+        CdiContainerBoot.start();
     }
 }
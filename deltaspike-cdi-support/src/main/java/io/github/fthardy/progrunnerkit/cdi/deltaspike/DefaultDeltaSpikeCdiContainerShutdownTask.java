@@ -32,6 +32,12 @@ import java.util.List;
 /**
  * Shuts the CDI-Container down.
  * <p>
+ * A boot which is still in progress is awaited first. When the boot has failed there is nothing to shut down, but when only an action run after the boot
+ * (see {@link CdiContainerBoot#afterBoot(Runnable)}) has failed the container is shut down nevertheless. A failure which no other task has seen is thrown
+ * after the shutdown. The {@link ContextualReferenceCache} is cleared after the shutdown, so a reference looked up while the container was shutting down
+ * isn't handed out once the container has been booted again.
+ * </p>
+ * <p>
  * The default priority for this task is {@value DEFAULT_PRIORITY}.
  * </p>
  */
@@ -46,6 +52,12 @@ public class DefaultDeltaSpikeCdiContainerShutdownTask implements Prioritized, E
 
     @Override
     public void run(List<String> arguments) {
-        CdiContainerLoader.getCdiContainer().shutdown();
+        CdiContainerBoot.awaitAndReset(() -> {
+            try {
+                CdiContainerLoader.getCdiContainer().shutdown();
+            } finally {
+                ContextualReferenceCache.clear();
+            }
+        });
     }
 }
@@ -0,0 +1,61 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cdi.deltaspike;
+
+import io.github.fthardy.progrunnerkit.core.PerInvocationTask;
+import io.github.fthardy.progrunnerkit.core.Prioritized;
+import io.github.fthardy.progrunnerkit.core.ProgramInvocation;
+import org.apache.deltaspike.cdise.api.CdiContainerLoader;
+import org.apache.deltaspike.cdise.api.ContextControl;
+
+import javax.enterprise.context.RequestScoped;
+import java.util.List;
+
+/**
+ * Starts a {@link RequestScoped} context for the current {@link ProgramInvocation}.
+ * <p>
+ * The context is bound to the thread of the invocation and is stopped when the invocation is complete. When many invocations are processed concurrently
+ * each invocation has a request context of its own. Waits for the boot of the container first.
+ * </p>
+ * <p>
+ * The default priority for this task is {@value DEFAULT_PRIORITY}.
+ * </p>
+ */
+public class DefaultDeltaSpikeCdiRequestScopeStartTask implements Prioritized, PerInvocationTask {
+
+    public static final int DEFAULT_PRIORITY = Integer.MIN_VALUE / 8;
+
+    @Override
+    public int getPriority() {
+        return DEFAULT_PRIORITY;
+    }
+
+    @Override
+    public void run(List<String> arguments) {
+        CdiContainerBoot.await();
+        ContextControl contextControl = CdiContainerLoader.getCdiContainer().getContextControl();
+        contextControl.startContext(RequestScoped.class);
+        ProgramInvocation.current().ifPresent(invocation -> invocation.onCompletion(() -> contextControl.stopContext(RequestScoped.class)));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cdi.deltaspike;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CdiBootTimingsTest {
+
+    @AfterEach
+    public void shutdownContainer() {
+        new DefaultDeltaSpikeCdiContainerShutdownTask().run(Collections.emptyList());
+    }
+
+    @Test
+    public void The_boot_timings_are_recorded_and_reported_on_request() {
+
+        PrintStream originalErr = System.err;
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        System.setProperty(CdiContainerBoot.REPORT_PROPERTY, "true");
+        try {
+            System.setErr(new PrintStream(err, true));
+            CdiContainerBoot.start();
+            CdiContainerBoot.await();
+        } finally {
+            System.setErr(originalErr);
+            System.clearProperty(CdiContainerBoot.REPORT_PROPERTY);
+        }
+
+        CdiBootTimings bootTimings = CdiContainerBoot.getBootTimings().orElseThrow(AssertionError::new);
+        assertEquals(Arrays.asList("container setup", "type discovery", "bean discovery", "validation", "initialization"),
+                new ArrayList<>(bootTimings.getPhaseTimes().keySet()));
+        Duration total = Duration.ZERO;
+        for (Duration phaseTime : bootTimings.getPhaseTimes().values()) {
+            assertFalse(phaseTime.isNegative());
+            total = total.plus(phaseTime);
+        }
+        assertEquals(bootTimings.getBootTime(), total);
+        assertFalse(bootTimings.getProcessedTypeCounts().isEmpty());
+        assertTrue(bootTimings.getProcessedTypeCounts().values().stream().allMatch(count -> count > 0));
+        assertTrue(new String(err.toByteArray(), StandardCharsets.UTF_8).contains("CDI container boot:"));
+    }
+
+    @Test
+    public void No_boot_timings_are_recorded_by_default() {
+
+        CdiContainerBoot.start();
+        CdiContainerBoot.await();
+
+        assertFalse(CdiContainerBoot.getBootTimings().isPresent());
+    }
+}
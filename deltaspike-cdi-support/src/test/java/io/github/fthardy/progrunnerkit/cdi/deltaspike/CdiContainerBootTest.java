@@ -0,0 +1,71 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cdi.deltaspike;
+
+import org.apache.deltaspike.cdise.api.CdiContainerLoader;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CdiContainerBootTest {
+
+    @Test
+    public void The_container_is_shut_down_when_an_action_after_the_boot_has_failed() {
+
+        CdiContainerBoot.start();
+        CdiContainerBoot.afterBoot(() -> {
+            throw new IllegalStateException("TEST");
+        });
+        AtomicBoolean shutDown = new AtomicBoolean();
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> CdiContainerBoot.awaitAndReset(() -> {
+            CdiContainerLoader.getCdiContainer().shutdown();
+            shutDown.set(true);
+        }));
+
+        assertEquals("TEST", exception.getMessage());
+        assertTrue(shutDown.get());
+    }
+
+    @Test
+    public void A_failure_seen_by_await_is_not_thrown_again() {
+
+        CdiContainerBoot.start();
+        CdiContainerBoot.afterBoot(() -> {
+            throw new IllegalStateException("TEST");
+        });
+        assertThrows(IllegalStateException.class, CdiContainerBoot::await);
+
+        AtomicBoolean shutDown = new AtomicBoolean();
+        CdiContainerBoot.awaitAndReset(() -> {
+            CdiContainerLoader.getCdiContainer().shutdown();
+            shutDown.set(true);
+        });
+
+        assertTrue(shutDown.get());
+        assertThrows(IllegalStateException.class, CdiContainerBoot::await);
+    }
+}
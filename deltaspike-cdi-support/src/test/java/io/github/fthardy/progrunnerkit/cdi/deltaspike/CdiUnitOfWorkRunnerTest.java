@@ -0,0 +1,107 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cdi.deltaspike;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.enterprise.context.RequestScoped;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CdiUnitOfWorkRunnerTest {
+
+    @RequestScoped
+    public static class UnitIdHolder {
+
+        private String unitId;
+
+        public String getUnitId() {
+            return this.unitId;
+        }
+
+        public void setUnitId(String unitId) {
+            this.unitId = unitId;
+        }
+    }
+
+    @BeforeAll
+    public static void bootContainer() {
+        new DefaultDeltaSpikeCdiContainerBootTask().run(Collections.emptyList());
+        new DefaultDeltaSpikeCdiApplicationScopeStartTask().run(Collections.emptyList());
+    }
+
+    @AfterAll
+    public static void shutdownContainer() {
+        new DefaultDeltaSpikeCdiContainerShutdownTask().run(Collections.emptyList());
+    }
+
+    @Test
+    public void Request_scoped_beans_are_never_shared_between_units_of_work() {
+
+        List<Callable<String>> units = new ArrayList<>();
+        List<String> unitIds = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            String unitId = "unit-" + i;
+            unitIds.add(unitId);
+            units.add(() -> {
+                UnitIdHolder holder = ContextualReferenceCache.getContextualReference(UnitIdHolder.class);
+                if (holder.getUnitId() != null) {
+                    throw new IllegalStateException("The holder of " + holder.getUnitId() + " has leaked into " + unitId);
+                }
+                holder.setUnitId(unitId);
+                Thread.yield();
+                return holder.getUnitId();
+            });
+        }
+
+        try (CdiUnitOfWorkRunner runner = new CdiUnitOfWorkRunner(8)) {
+            for (int round = 0; round < 3; round++) {
+                assertEquals(unitIds, runner.run(units));
+            }
+            assertEquals(3 * units.size(), runner.getUnitCount());
+        }
+    }
+
+    @Test
+    public void A_failing_unit_of_work_fails_the_run() {
+
+        List<Callable<String>> units = Arrays.asList(() -> "first", () -> {
+            throw new IllegalArgumentException("TEST");
+        }, () -> "third");
+
+        try (CdiUnitOfWorkRunner runner = new CdiUnitOfWorkRunner(2)) {
+            IllegalStateException exception = assertThrows(IllegalStateException.class, () -> runner.run(units));
+            assertTrue(exception.getCause() instanceof IllegalArgumentException);
+            assertEquals(3, runner.getUnitCount());
+            assertEquals(Collections.singletonList("again"), runner.run(Collections.singletonList(() -> "again")));
+        }
+    }
+}
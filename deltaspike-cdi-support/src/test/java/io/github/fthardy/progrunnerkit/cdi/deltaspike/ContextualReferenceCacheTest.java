@@ -0,0 +1,125 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.cdi.deltaspike;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.BeforeDestroyed;
+import javax.enterprise.context.Dependent;
+import javax.enterprise.event.Observes;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContextualReferenceCacheTest {
+
+    private static final AtomicInteger _instanceCounter = new AtomicInteger();
+
+    @ApplicationScoped
+    public static class ApplicationScopedBean {
+
+        private final int instance = _instanceCounter.incrementAndGet();
+
+        public int getInstance() {
+            return this.instance;
+        }
+    }
+
+    @Dependent
+    public static class DependentBean {
+    }
+
+    @Dependent
+    public static class ShutdownObserver {
+
+        static void lookUp(@Observes @BeforeDestroyed(ApplicationScoped.class) Object event) {
+            ContextualReferenceCache.getContextualReference(ApplicationScopedBean.class).getInstance();
+        }
+    }
+
+    @BeforeEach
+    public void bootContainer() {
+        new DefaultDeltaSpikeCdiContainerBootTask().run(Collections.emptyList());
+        new DefaultDeltaSpikeCdiApplicationScopeStartTask().run(Collections.emptyList());
+        CdiContainerBoot.await();
+    }
+
+    @AfterEach
+    public void shutdownContainer() {
+        new DefaultDeltaSpikeCdiContainerShutdownTask().run(Collections.emptyList());
+    }
+
+    @Test
+    public void The_reference_to_a_normal_scoped_bean_is_cached() {
+
+        ApplicationScopedBean reference = ContextualReferenceCache.getContextualReference(ApplicationScopedBean.class);
+
+        assertSame(reference, ContextualReferenceCache.getContextualReference(ApplicationScopedBean.class));
+        assertEquals(reference.getInstance(), ContextualReferenceCache.getContextualReference(ApplicationScopedBean.class).getInstance());
+    }
+
+    @Test
+    public void A_dependent_bean_is_created_anew_by_every_lookup() {
+
+        DependentBean reference = ContextualReferenceCache.getContextualReference(DependentBean.class);
+
+        assertNotSame(reference, ContextualReferenceCache.getContextualReference(DependentBean.class));
+    }
+
+    @Test
+    public void The_cache_is_cleared_when_the_container_is_shut_down() {
+
+        ApplicationScopedBean reference = ContextualReferenceCache.getContextualReference(ApplicationScopedBean.class);
+        int instance = reference.getInstance();
+
+        this.shutdownContainer();
+        this.bootContainer();
+
+        ApplicationScopedBean rebootedReference = ContextualReferenceCache.getContextualReference(ApplicationScopedBean.class);
+        assertNotSame(reference, rebootedReference);
+        assertNotEquals(instance, rebootedReference.getInstance());
+    }
+
+    @Test
+    public void A_reference_looked_up_while_the_container_is_shut_down_is_not_cached_beyond_the_shutdown() {
+
+        ApplicationScopedBean reference = ContextualReferenceCache.getContextualReference(ApplicationScopedBean.class);
+        int instance = reference.getInstance();
+
+        this.shutdownContainer();
+        this.bootContainer();
+
+        assertNotEquals(instance, ContextualReferenceCache.getContextualReference(ApplicationScopedBean.class).getInstance());
+    }
+
+    @Test
+    public void A_missing_bean_is_reported() {
+
+        assertThrows(IllegalStateException.class, () -> ContextualReferenceCache.getContextualReference(ContextualReferenceCacheTest.class));
+    }
+}
@@ -28,11 +28,16 @@ import io.github.fthardy.progrunnerkit.cliapi.CommandLineParser;
 import io.github.fthardy.progrunnerkit.cliapi.CommandLineProvider;
 import io.github.fthardy.progrunnerkit.commonsclisupport.CommonsCliCommandLineParser;
 import io.github.fthardy.progrunnerkit.commonsclisupport.DefaultCommandLineHelpTextPrinter;
+import io.github.fthardy.progrunnerkit.core.ProgramInvocation;
 import org.apache.commons.cli.Options;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Dependent;
+import javax.enterprise.context.RequestScoped;
 import javax.enterprise.inject.Produces;
+import java.util.List;
 
+@Dependent
 public class CommonsCommandLineParserRelatedBeansProducer {
 
     @Produces
@@ -50,9 +55,12 @@ public class CommonsCommandLineParserRelatedBeansProducer {
     }
     
     @Produces
-    @ApplicationScoped
+    @RequestScoped
     public static CommandLineProvider createCommandLineProvider(CommandLineParser parser) {
-        return new CommandLineProvider(parser);
+        // produced on the first access within an invocation - the arguments are parsed when the command line is accessed
+        List<String> arguments = ProgramInvocation.current().map(ProgramInvocation::getArguments).orElseThrow(
+                () -> new IllegalStateException("The command line can only be accessed by an invocation!"));
+        return new CommandLineProvider(parser, () -> arguments);
     }
     
     @Produces
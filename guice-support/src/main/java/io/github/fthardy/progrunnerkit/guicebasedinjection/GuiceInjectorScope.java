@@ -0,0 +1,146 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.guicebasedinjection;
+
+import com.google.inject.Injector;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A scope for the injector created by an {@link InitialGuiceInjectorStarterTask}, for running the program several times in one JVM.
+ * <p>
+ * By default the starter task publishes its injector process-wide. When the starter task runs on a thread with an open scope the injector is published to
+ * this scope instead, so several program runs can have their own injectors side by side:
+ * </p>
+ * <pre>
+ * try (GuiceInjectorScope scope = GuiceInjectorScope.open()) {
+ *     programRunner.run(arguments);
+ * }
+ * </pre>
+ * <p>
+ * {@link InitialGuiceInjectorStarterTask#getInjector()} prefers the injector of the scope of the current thread, and so does
+ * {@link StartPhaseGuiceInjectorStarterTask#getStartPhaseInjector()} for the start phase injector. The scope is bound to the thread which
+ * opened it; work handed over to other threads is bound to the scope by {@link #wrap(Runnable)}.
+ * </p>
+ */
+public final class GuiceInjectorScope implements AutoCloseable {
+
+    private static final ThreadLocal<GuiceInjectorScope> _currentScope = new ThreadLocal<>();
+
+    private final GuiceInjectorScope previousScope;
+    private final Thread owner;
+    private volatile MemoizedSupplier<PublishedInjector> publishedInjector;
+    private volatile Injector startPhaseInjector;
+
+    private GuiceInjectorScope(GuiceInjectorScope previousScope) {
+        this.previousScope = previousScope;
+        this.owner = Thread.currentThread();
+    }
+
+    /**
+     * Opens a new scope and binds it to the current thread until it is closed.
+     *
+     * @return the opened scope.
+     */
+    public static GuiceInjectorScope open() {
+        GuiceInjectorScope scope = new GuiceInjectorScope(_currentScope.get());
+        _currentScope.set(scope);
+        return scope;
+    }
+
+    /**
+     * @return an optional containing the scope bound to the current thread or an empty optional if there is none.
+     */
+    public static Optional<GuiceInjectorScope> current() {
+        return Optional.ofNullable(_currentScope.get());
+    }
+
+    /**
+     * Provides the injector of this scope. A lazily created injector is created by this call.
+     *
+     * @return an optional containing the injector of this scope or an empty optional when the starter task hasn't run in this scope yet.
+     */
+    public Optional<Injector> getInjector() {
+        MemoizedSupplier<PublishedInjector> published = this.publishedInjector;
+        return published == null ? Optional.empty() : Optional.of(published.get().getInjector());
+    }
+
+    /**
+     * Binds the given work to this scope, so that it sees the injector of this scope regardless of the thread which runs it.
+     *
+     * @param work the work to bind.
+     *
+     * @return a runnable which binds this scope to the running thread for the duration of the given work.
+     */
+    public Runnable wrap(Runnable work) {
+        Objects.requireNonNull(work);
+        return () -> {
+            GuiceInjectorScope previous = _currentScope.get();
+            _currentScope.set(this);
+            try {
+                work.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    MemoizedSupplier<PublishedInjector> getPublishedInjector() {
+        return this.publishedInjector;
+    }
+
+    void publish(MemoizedSupplier<PublishedInjector> publishedInjector) {
+        this.publishedInjector = publishedInjector;
+    }
+
+    Injector getStartPhaseInjector() {
+        return this.startPhaseInjector;
+    }
+
+    void publishStartPhaseInjector(Injector startPhaseInjector) {
+        this.startPhaseInjector = startPhaseInjector;
+    }
+
+    /**
+     * Closes this scope and restores the scope which has been bound to the thread before.
+     *
+     * @throws IllegalStateException when not called by the thread which opened the scope or when an inner scope is still open.
+     */
+    @Override
+    public void close() {
+        if (Thread.currentThread() != this.owner || _currentScope.get() != this) {
+            throw new IllegalStateException("The scope must be closed by the thread which opened it after its inner scopes!");
+        }
+        restore(this.previousScope);
+    }
+
+    private static void restore(GuiceInjectorScope scope) {
+        if (scope == null) {
+            _currentScope.remove();
+        } else {
+            _currentScope.set(scope);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.guicebasedinjection;
+
+import io.github.fthardy.progrunnerkit.core.EndPhaseTask;
+import io.github.fthardy.progrunnerkit.core.Prioritized;
+
+import java.util.List;
+
+/**
+ * Writes the report of the {@link ProvisionStatistics} of the injector created by the {@link InitialGuiceInjectorStarterTask} to {@code System.err}.
+ * <p>
+ * Nothing is written when the statistics are not enabled or when a lazily created injector has never been created. The default priority for this task is
+ * {@value DEFAULT_PRIORITY}, so the report covers the provisions of all other end phase tasks.
+ * </p>
+ *
+ * @see InitialGuiceInjectorStarterTask#PROVISION_STATISTICS_PROPERTY
+ */
+public final class GuiceProvisionReportTask implements Prioritized, EndPhaseTask {
+
+    public static final int DEFAULT_PRIORITY = Integer.MAX_VALUE / 4;
+
+    @Override
+    public int getPriority() {
+        return DEFAULT_PRIORITY;
+    }
+
+    @Override
+    public void run(List<String> arguments) {
+        InitialGuiceInjectorStarterTask.findCreatedInjector().map(PublishedInjector::getProvisionStatistics)
+                .ifPresent(statistics -> statistics.writeReport(System.err));
+    }
+}
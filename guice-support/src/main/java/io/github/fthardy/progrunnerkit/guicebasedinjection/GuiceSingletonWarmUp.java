@@ -0,0 +1,187 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.guicebasedinjection;
+
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Scopes;
+import com.google.inject.spi.Dependency;
+import com.google.inject.spi.HasDependencies;
+import io.github.fthardy.progrunnerkit.core.TraceEventRecorder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Instantiates the singletons of an injector concurrently in the background.
+ * <p>
+ * The singleton bindings are walked in dependency order: A singleton is provisioned when all singletons it depends on - directly or through unscoped
+ * bindings - have been provisioned, so independent singletons are provisioned concurrently and the time taken by each binding is its own. Dependency cycles
+ * are broken at an arbitrary edge. A binding whose provisioning fails is left for the first request, which fails with the same error.
+ * </p>
+ *
+ * @see InitialGuiceInjectorStarterTask#STAGE_PROPERTY
+ */
+public final class GuiceSingletonWarmUp {
+
+    private static final AtomicInteger _threadCounter = new AtomicInteger();
+
+    private final Map<Key<?>, Duration> provisionTimes = new ConcurrentHashMap<>();
+    private final Map<Key<?>, RuntimeException> failures = new ConcurrentHashMap<>();
+    private final CompletableFuture<Void> completion;
+
+    private GuiceSingletonWarmUp(Injector injector, TraceEventRecorder traceRecorder, int parallelism) {
+        Map<Key<?>, Set<Key<?>>> dependencies = collectSingletonDependencies(injector);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "guice-warm-up-" + _threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Map<Key<?>, CompletableFuture<Void>> provisions = new HashMap<>();
+        Set<Key<?>> visiting = new HashSet<>();
+        for (Key<?> key : dependencies.keySet()) {
+            this.scheduleProvision(key, dependencies, provisions, visiting, injector, traceRecorder, executor);
+        }
+        this.completion = CompletableFuture.allOf(provisions.values().toArray(new CompletableFuture<?>[0]));
+        this.completion.whenComplete((ignored, failure) -> executor.shutdown());
+    }
+
+    /**
+     * Starts the warm-up of the singletons of the given injector.
+     *
+     * @param injector the injector.
+     * @param traceRecorder the recorder to record a slice for each provisioned binding or {@code null}.
+     *
+     * @return the started warm-up.
+     */
+    static GuiceSingletonWarmUp start(Injector injector, TraceEventRecorder traceRecorder) {
+        return new GuiceSingletonWarmUp(injector, traceRecorder, Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    private CompletableFuture<Void> scheduleProvision(Key<?> key, Map<Key<?>, Set<Key<?>>> dependencies, Map<Key<?>, CompletableFuture<Void>> provisions,
+            Set<Key<?>> visiting, Injector injector, TraceEventRecorder traceRecorder, ExecutorService executor) {
+        CompletableFuture<Void> provision = provisions.get(key);
+        if (provision != null || !visiting.add(key)) {
+            return provision; // null on a dependency cycle
+        }
+        List<CompletableFuture<Void>> prerequisites = new ArrayList<>();
+        for (Key<?> dependency : dependencies.get(key)) {
+            CompletableFuture<Void> prerequisite = this.scheduleProvision(dependency, dependencies, provisions, visiting, injector, traceRecorder, executor);
+            if (prerequisite != null) {
+                prerequisites.add(prerequisite);
+            }
+        }
+        provision = CompletableFuture.allOf(prerequisites.toArray(new CompletableFuture<?>[0]))
+                .thenRunAsync(() -> this.provision(key, injector, traceRecorder), executor);
+        provisions.put(key, provision);
+        return provision;
+    }
+
+    private void provision(Key<?> key, Injector injector, TraceEventRecorder traceRecorder) {
+        long start = System.nanoTime();
+        try {
+            injector.getInstance(key);
+        } catch (RuntimeException e) {
+            this.failures.put(key, e);
+            return;
+        }
+        long end = System.nanoTime();
+        this.provisionTimes.put(key, Duration.ofNanos(end - start));
+        if (traceRecorder != null) {
+            traceRecorder.completeSlice(InitialGuiceInjectorStarterTask.TRACE_CATEGORY, "provision " + key, start, end);
+        }
+    }
+
+    private static Map<Key<?>, Set<Key<?>>> collectSingletonDependencies(Injector injector) {
+        Map<Key<?>, Set<Key<?>>> dependencies = new LinkedHashMap<>();
+        for (Binding<?> binding : injector.getAllBindings().values()) {
+            if (Scopes.isSingleton(binding)) {
+                Set<Key<?>> singletonDependencies = new LinkedHashSet<>();
+                collectSingletonDependencies(injector, binding, singletonDependencies, new HashSet<>());
+                singletonDependencies.remove(binding.getKey());
+                dependencies.put(binding.getKey(), singletonDependencies);
+            }
+        }
+        // only singletons which are bound explicitly or have been bound just in time so far are warmed up
+        dependencies.values().forEach(singletonDependencies -> singletonDependencies.retainAll(dependencies.keySet()));
+        return dependencies;
+    }
+
+    private static void collectSingletonDependencies(Injector injector, Binding<?> binding, Set<Key<?>> singletonDependencies, Set<Key<?>> visited) {
+        if (!(binding instanceof HasDependencies)) {
+            return;
+        }
+        for (Dependency<?> dependency : ((HasDependencies) binding).getDependencies()) {
+            Key<?> key = dependency.getKey();
+            if (!visited.add(key)) {
+                continue;
+            }
+            Binding<?> dependencyBinding = injector.getExistingBinding(key);
+            if (dependencyBinding == null) {
+                continue;
+            }
+            if (Scopes.isSingleton(dependencyBinding)) {
+                singletonDependencies.add(key);
+            } else {
+                collectSingletonDependencies(injector, dependencyBinding, singletonDependencies, visited);
+            }
+        }
+    }
+
+    /**
+     * @return a future which completes when all singletons have been provisioned or have failed.
+     */
+    public CompletableFuture<Void> getCompletion() {
+        return this.completion;
+    }
+
+    /**
+     * @return the time each singleton binding took to provision by its key. The map grows while the warm-up is running.
+     */
+    public Map<Key<?>, Duration> getProvisionTimes() {
+        return Collections.unmodifiableMap(this.provisionTimes);
+    }
+
+    /**
+     * @return the exception of each singleton binding whose provisioning has failed by its key.
+     */
+    public Map<Key<?>, RuntimeException> getFailures() {
+        return Collections.unmodifiableMap(this.failures);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.guicebasedinjection;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The times taken to create the initial Guice-Injector by an {@link InitialGuiceInjectorStarterTask}.
+ */
+public final class GuiceStartupTimings {
+
+    private final Map<String, Duration> moduleCreationTimes;
+    private final Duration injectorCreationTime;
+
+    GuiceStartupTimings(Map<String, Duration> moduleCreationTimes, Duration injectorCreationTime) {
+        this.moduleCreationTimes = Collections.unmodifiableMap(new LinkedHashMap<>(moduleCreationTimes));
+        this.injectorCreationTime = Objects.requireNonNull(injectorCreationTime);
+    }
+
+    /**
+     * @return the time each {@link InitialGuiceModuleProviderService} took to create its module by the class name of the service in the order of the
+     * modules. As the modules are created concurrently the times overlap.
+     */
+    public Map<String, Duration> getModuleCreationTimes() {
+        return this.moduleCreationTimes;
+    }
+
+    /**
+     * @return the time it took to create the injector from the modules.
+     */
+    public Duration getInjectorCreationTime() {
+        return this.injectorCreationTime;
+    }
+
+    @Override
+    public String toString() {
+        return "GuiceStartupTimings{moduleCreationTimes=" + this.moduleCreationTimes + ", injectorCreationTime=" + this.injectorCreationTime + '}';
+    }
+}
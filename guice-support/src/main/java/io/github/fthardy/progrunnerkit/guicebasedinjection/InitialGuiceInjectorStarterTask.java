@@ -25,24 +25,99 @@ package io.github.fthardy.progrunnerkit.guicebasedinjection;
 
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.google.inject.Stage;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.Elements;
 import io.github.fthardy.progrunnerkit.core.Prioritized;
 import io.github.fthardy.progrunnerkit.core.StartPhaseTask;
+import io.github.fthardy.progrunnerkit.core.TraceEventRecorder;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 import java.util.ServiceLoader;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A program entry point which creates a Guice-Injector instance with all Guice-Modules created by each of the found {@link InitialGuiceModuleProviderService}
  * instances.
  * <p>
- * The {@link InitialGuiceModuleProviderService} instances are loaded by a {@link ServiceLoader}.
+ * The {@link InitialGuiceModuleProviderService} instances are loaded by a {@link ServiceLoader}. Since module providers may read configuration files or scan
+ * packages, the modules are created concurrently. The injector receives the modules in the order of the services regardless of which one finishes first.
+ * </p>
+ * <p>
+ * The time taken by each module provider and by the creation of the injector is available through {@link #getStartupTimings()}. When a
+ * {@link TraceEventRecorder} is active, the times are recorded as slices of the category {@value TRACE_CATEGORY} as well.
+ * </p>
+ * <p>
+ * The injector is published process-wide, so it is accessible from any thread - including the threads of shared executors and thread pools which have been
+ * started before the injector existed. When the program is run several times in one JVM the injector of each run can be kept apart by a
+ * {@link GuiceInjectorScope}.
+ * </p>
+ * <p>
+ * The system property {@value STAGE_PROPERTY} chooses how singletons are instantiated:
+ * </p>
+ * <ul>
+ *     <li>{@code development} (default) - lazily on first use, which adds latency to the first request of each singleton.</li>
+ *     <li>{@code production} - eagerly and one after another while the injector is created, which delays the start.</li>
+ *     <li>{@code background} - the injector is created with lazy singletons and the instantiation of the singletons is started concurrently in the
+ *     background in dependency order before the injector is published. See {@link GuiceSingletonWarmUp} and {@link #getSingletonWarmUp()}.</li>
+ * </ul>
+ * <p>
+ * The system property {@value LAZY_PROPERTY} defers the creation of the injector - including the creation of the modules - to the first access, so program
+ * runs which never use the injector (i.e. to print a help text or because the arguments are invalid) don't pay for it:
+ * </p>
+ * <ul>
+ *     <li>{@code false} (default) - the injector is created when this task is run.</li>
+ *     <li>{@code true} - the injector is created by the first call of {@link #getInjector()}. Concurrent first calls wait for the same injector.</li>
+ *     <li>{@code speculative} - like {@code true}, but the injector is created on a background thread right away, so a later first access finds it ready
+ *     or in progress.</li>
+ * </ul>
+ * <p>
+ * When the system property {@value PROVISION_STATISTICS_PROPERTY} is {@code true} a {@link ProvisionStatisticsModule} is added to the modules and the
+ * stages of the injector creation are recorded. The statistics are available through {@link #getProvisionStatistics()} and are written at the end phase
+ * by a {@link GuiceProvisionReportTask}.
+ * </p>
+ * <p>
+ * A failure to create a lazily created injector is thrown by every access. The default priority for this task is {@value DEFAULT_PRIORITY}, so the
+ * injector exists before the other start phase tasks are run.
  * </p>
  */
 public final class InitialGuiceInjectorStarterTask implements Prioritized, StartPhaseTask {
     
-    private final static InheritableThreadLocal<Injector> _threadLocalGuiceInjector = new InheritableThreadLocal<>();
+    public static final int DEFAULT_PRIORITY = Integer.MIN_VALUE / 2;
+
+    /**
+     * The category of the slices recorded by this task.
+     */
+    public static final String TRACE_CATEGORY = "guice";
+
+    /**
+     * The name of the system property to choose how singletons are instantiated: {@code development}, {@code production} or {@code background}.
+     */
+    public static final String STAGE_PROPERTY = "progrunnerkit.guice.stage";
+
+    /**
+     * The name of the system property to defer the creation of the injector to the first access: {@code false}, {@code true} or {@code speculative}.
+     */
+    public static final String LAZY_PROPERTY = "progrunnerkit.guice.lazy";
+
+    /**
+     * The name of the system property to enable the recording of {@link ProvisionStatistics}.
+     */
+    public static final String PROVISION_STATISTICS_PROPERTY = "progrunnerkit.guice.provision.statistics";
+
+    private static volatile MemoizedSupplier<PublishedInjector> _publishedInjector;
+    private final static AtomicInteger _threadCounter = new AtomicInteger();
     
     private final Iterable<InitialGuiceModuleProviderService> services;
     
@@ -55,21 +130,232 @@ public final class InitialGuiceInjectorStarterTask implements Prioritized, Start
     }
 
     /**
-     * Provides access to the thread local injector instance.
+     * Provides access to the injector instance. This is the injector of the {@link GuiceInjectorScope} bound to the current thread or the process-wide
+     * injector if no scope is bound.
      * 
      * @return the injector instance.
+     *
+     * @throws IllegalStateException when no injector has been created yet.
+     * @throws RuntimeException the exception thrown by a module provider or Guice when a lazily created injector couldn't be created.
      */
     public static Injector getInjector() {
-        Injector injector = _threadLocalGuiceInjector.get();
-        if (injector == null) {
+        return getPublishedInjector().getInjector();
+    }
+    
+    /**
+     * Provides the times taken to create the injector instance returned by {@link #getInjector()}.
+     *
+     * @return the startup timings.
+     *
+     * @throws IllegalStateException when no injector has been created yet.
+     */
+    public static GuiceStartupTimings getStartupTimings() {
+        return getPublishedInjector().getStartupTimings();
+    }
+
+    /**
+     * Provides the background warm-up of the singletons of the injector instance returned by {@link #getInjector()}.
+     *
+     * @return an optional containing the warm-up or an empty optional when the singletons are not warmed up in the background.
+     *
+     * @throws IllegalStateException when no injector has been created yet.
+     */
+    public static Optional<GuiceSingletonWarmUp> getSingletonWarmUp() {
+        return Optional.ofNullable(getPublishedInjector().getSingletonWarmUp());
+    }
+
+    /**
+     * Provides the provisioning statistics of the injector instance returned by {@link #getInjector()}.
+     *
+     * @return an optional containing the statistics or an empty optional when the statistics are not enabled.
+     *
+     * @throws IllegalStateException when no injector has been created yet.
+     */
+    public static Optional<ProvisionStatistics> getProvisionStatistics() {
+        return Optional.ofNullable(getPublishedInjector().getProvisionStatistics());
+    }
+
+    /**
+     * @return an optional containing the injector which would be returned by {@link #getInjector()} or an empty optional when there is none or when it
+     * hasn't been created yet. A lazily created injector is not created by this call.
+     */
+    static Optional<PublishedInjector> findCreatedInjector() {
+        GuiceInjectorScope scope = GuiceInjectorScope.current().orElse(null);
+        MemoizedSupplier<PublishedInjector> published = scope != null ? scope.getPublishedInjector() : _publishedInjector;
+        return published == null ? Optional.empty() : published.getIfPresent();
+    }
+
+    private static PublishedInjector getPublishedInjector() {
+        GuiceInjectorScope scope = GuiceInjectorScope.current().orElse(null);
+        MemoizedSupplier<PublishedInjector> published = scope != null ? scope.getPublishedInjector() : _publishedInjector;
+        if (published == null) {
             throw new IllegalStateException("No injector available!");
         }
-        return injector;
+        return published.get();
     }
-    
+
+    private static void publish(MemoizedSupplier<PublishedInjector> published) {
+        GuiceInjectorScope scope = GuiceInjectorScope.current().orElse(null);
+        if (scope != null) {
+            scope.publish(published);
+        } else {
+            _publishedInjector = published;
+        }
+    }
+
+    /**
+     * Forgets the process-wide injector.
+     */
+    static void reset() {
+        _publishedInjector = null;
+    }
+
+    @Override
+    public int getPriority() {
+        return DEFAULT_PRIORITY;
+    }
+
     @Override
     public void run(List<String> args) {
-        _threadLocalGuiceInjector.set(Guice.createInjector(StreamSupport.stream(this.services.spliterator(), false) //
-                .map(InitialGuiceModuleProviderService::createInitialGuiceModule).collect(Collectors.toList())));
+        String stage = System.getProperty(STAGE_PROPERTY, "development").toLowerCase(Locale.ROOT);
+        if (!"development".equals(stage) && !"production".equals(stage) && !"background".equals(stage)) {
+            throw new IllegalArgumentException(
+                    "Unknown stage '" + stage + "' for " + STAGE_PROPERTY + " - expected 'development', 'production' or 'background'!");
+        }
+        String lazy = System.getProperty(LAZY_PROPERTY, "false").toLowerCase(Locale.ROOT);
+        if (!"false".equals(lazy) && !"true".equals(lazy) && !"speculative".equals(lazy)) {
+            throw new IllegalArgumentException("Unknown value '" + lazy + "' for " + LAZY_PROPERTY + " - expected 'false', 'true' or 'speculative'!");
+        }
+        TraceEventRecorder traceRecorder = TraceEventRecorder.active().orElse(null);
+
+        if ("false".equals(lazy)) {
+            publish(MemoizedSupplier.of(this.createInjector(stage, traceRecorder)));
+            return;
+        }
+        MemoizedSupplier<PublishedInjector> published = new MemoizedSupplier<>(() -> this.createInjector(stage, traceRecorder));
+        publish(published);
+        if ("speculative".equals(lazy)) {
+            Thread thread = new Thread(() -> {
+                try {
+                    published.get();
+                } catch (RuntimeException e) {
+                    // the failure is thrown by the first access
+                }
+            }, "guice-speculative-injector");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private PublishedInjector createInjector(String stage, TraceEventRecorder traceRecorder) {
+        List<InitialGuiceModuleProviderService> moduleProviders = new ArrayList<>();
+        this.services.forEach(moduleProviders::add);
+
+        Map<String, Duration> moduleCreationTimes = new LinkedHashMap<>();
+        List<Module> modules = createModules(moduleProviders, moduleCreationTimes, traceRecorder);
+        ProvisionStatistics provisionStatistics = Boolean.getBoolean(PROVISION_STATISTICS_PROPERTY) ? new ProvisionStatistics() : null;
+        if (provisionStatistics != null) {
+            modules.add(new ProvisionStatisticsModule(provisionStatistics));
+        }
+
+        long start = System.nanoTime();
+        Injector injector = provisionStatistics == null ? Guice.createInjector(getStage(stage), modules)
+                : createInjectorRecordingStages(getStage(stage), modules, provisionStatistics);
+        long end = System.nanoTime();
+        if (traceRecorder != null) {
+            traceRecorder.completeSlice(TRACE_CATEGORY, "createInjector", start, end);
+        }
+        // the warm-up is started before the injector is published, so a reader finds it together with the injector
+        GuiceSingletonWarmUp singletonWarmUp = "background".equals(stage) ? GuiceSingletonWarmUp.start(injector, traceRecorder) : null;
+        return new PublishedInjector(injector, new GuiceStartupTimings(moduleCreationTimes, Duration.ofNanos(end - start)), provisionStatistics,
+                singletonWarmUp);
+    }
+
+    private static Stage getStage(String stage) {
+        return "production".equals(stage) ? Stage.PRODUCTION : Stage.DEVELOPMENT;
+    }
+
+    /**
+     * Creates the injector in two stages which are timed separately: the modules are executed to record their elements and the injector is created from
+     * the recorded elements.
+     */
+    private static Injector createInjectorRecordingStages(Stage stage, List<Module> modules, ProvisionStatistics provisionStatistics) {
+        long start = System.nanoTime();
+        List<Element> elements = Elements.getElements(stage, modules);
+        long modulesExecuted = System.nanoTime();
+        provisionStatistics.recordInjectorCreationStage("Module execution", Duration.ofNanos(modulesExecuted - start));
+        Injector injector = Guice.createInjector(stage, Elements.getModule(elements));
+        provisionStatistics.recordInjectorCreationStage("Injector creation", Duration.ofNanos(System.nanoTime() - modulesExecuted));
+        return injector;
+    }
+
+    private static List<Module> createModules(List<InitialGuiceModuleProviderService> moduleProviders, Map<String, Duration> moduleCreationTimes,
+            TraceEventRecorder traceRecorder) {
+        List<TimedModule> timedModules = new ArrayList<>(moduleProviders.size());
+        if (moduleProviders.size() < 2) {
+            moduleProviders.forEach(moduleProvider -> timedModules.add(createModule(moduleProvider, traceRecorder)));
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(moduleProviders.size(), Math.max(2, Runtime.getRuntime().availableProcessors())),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "guice-module-" + _threadCounter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            try {
+                List<CompletableFuture<TimedModule>> futures = new ArrayList<>(moduleProviders.size());
+                for (InitialGuiceModuleProviderService moduleProvider : moduleProviders) {
+                    futures.add(CompletableFuture.supplyAsync(() -> createModule(moduleProvider, traceRecorder), executor));
+                }
+                for (CompletableFuture<TimedModule> future : futures) {
+                    timedModules.add(join(future));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        List<Module> modules = new ArrayList<>(timedModules.size());
+        for (TimedModule timedModule : timedModules) {
+            moduleCreationTimes.put(timedModule.providerName, Duration.ofNanos(timedModule.nanos));
+            modules.add(timedModule.module);
+        }
+        return modules;
+    }
+
+    private static TimedModule createModule(InitialGuiceModuleProviderService moduleProvider, TraceEventRecorder traceRecorder) {
+        String providerName = moduleProvider.getClass().getName();
+        long start = System.nanoTime();
+        Module module = moduleProvider.createInitialGuiceModule();
+        long end = System.nanoTime();
+        if (traceRecorder != null) {
+            traceRecorder.completeSlice(TRACE_CATEGORY, providerName, start, end);
+        }
+        return new TimedModule(providerName, module, end - start);
+    }
+
+    private static TimedModule join(CompletableFuture<TimedModule> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class TimedModule {
+
+        private final String providerName;
+        private final Module module;
+        private final long nanos;
+
+        TimedModule(String providerName, Module module, long nanos) {
+            this.providerName = providerName;
+            this.module = module;
+            this.nanos = nanos;
+        }
     }
 }
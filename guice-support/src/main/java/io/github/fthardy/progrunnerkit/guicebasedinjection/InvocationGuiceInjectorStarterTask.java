@@ -0,0 +1,103 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.guicebasedinjection;
+
+import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.google.inject.Stage;
+import com.google.inject.spi.Elements;
+import io.github.fthardy.progrunnerkit.core.PerInvocationTask;
+import io.github.fthardy.progrunnerkit.core.Prioritized;
+import io.github.fthardy.progrunnerkit.core.ProgramInvocation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Creates a child injector of the injector of the {@link InitialGuiceInjectorStarterTask} for each invocation, with all Guice-Modules created by each of the
+ * found {@link InvocationGuiceModuleProviderService} instances.
+ * <p>
+ * The injector of the {@link InitialGuiceInjectorStarterTask} is created once and holds everything which is shared. The child injector holds the objects of
+ * the invocation, e.g. its command line. It is bound to the thread of the invocation and thrown away when the invocation is complete, so concurrent
+ * invocations have child injectors of their own.
+ * </p>
+ * <p>
+ * Guice creates a child injector while holding a lock of the parent injector. To keep this section short the modules are created and their bindings are
+ * recorded before the child injector is created. Bindings which are not explicit are created just in time under the same lock, so the modules of the
+ * invocations should bind everything they provide explicitly.
+ * </p>
+ * <p>
+ * The {@link InvocationGuiceModuleProviderService} instances are loaded once by a {@link ServiceLoader}. The default priority for this task is
+ * {@value DEFAULT_PRIORITY}.
+ * </p>
+ */
+public final class InvocationGuiceInjectorStarterTask implements Prioritized, PerInvocationTask {
+
+    public static final int DEFAULT_PRIORITY = Integer.MIN_VALUE / 8;
+
+    private static final ThreadLocal<Injector> _invocationInjector = new ThreadLocal<>();
+
+    private final List<InvocationGuiceModuleProviderService> services = new ArrayList<>();
+
+    public InvocationGuiceInjectorStarterTask() {
+        this(ServiceLoader.load(InvocationGuiceModuleProviderService.class));
+    }
+
+    public InvocationGuiceInjectorStarterTask(Iterable<InvocationGuiceModuleProviderService> services) {
+        services.forEach(this.services::add);
+    }
+
+    /**
+     * Provides access to the child injector of the invocation of the current thread.
+     *
+     * @return the injector instance.
+     *
+     * @throws IllegalStateException when the current thread is not running an invocation with a child injector.
+     */
+    public static Injector getInvocationInjector() {
+        Injector injector = _invocationInjector.get();
+        if (injector == null) {
+            throw new IllegalStateException("No invocation injector available!");
+        }
+        return injector;
+    }
+
+    @Override
+    public int getPriority() {
+        return DEFAULT_PRIORITY;
+    }
+
+    @Override
+    public void run(List<String> arguments) {
+        Injector parent = InitialGuiceInjectorStarterTask.getInjector();
+        List<Module> modules = new ArrayList<>(this.services.size());
+        for (InvocationGuiceModuleProviderService service : this.services) {
+            modules.add(service.createInvocationGuiceModule(arguments));
+        }
+        Module recordedModule = Elements.getModule(Elements.getElements(parent.getInstance(Stage.class), modules));
+        _invocationInjector.set(parent.createChildInjector(recordedModule));
+        ProgramInvocation.current().ifPresent(invocation -> invocation.onCompletion(_invocationInjector::remove));
+    }
+}
@@ -0,0 +1,47 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.guicebasedinjection;
+
+import com.google.inject.Module;
+
+import java.util.List;
+
+/**
+ * A service provider interface definition.
+ * <p>
+ * Provides a Guice-Module instance for the child injector created for each invocation by an {@link InvocationGuiceInjectorStarterTask}, i.e. to bind the
+ * command line of the invocation. Invocations can be processed concurrently, so implementations must be thread safe.
+ * </p>
+ *
+ * @see InvocationGuiceInjectorStarterTask
+ */
+public interface InvocationGuiceModuleProviderService {
+
+    /**
+     * @param arguments the arguments of the invocation.
+     *
+     * @return a Guice-Module instance.
+     */
+    Module createInvocationGuiceModule(List<String> arguments);
+}
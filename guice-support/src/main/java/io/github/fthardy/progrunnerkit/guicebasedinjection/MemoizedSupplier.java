@@ -0,0 +1,83 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.guicebasedinjection;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe supplier which calls its delegate once and returns the result on every call. When the delegate fails the same exception is rethrown on
+ * every call.
+ *
+ * @param <T> the type of the result.
+ */
+final class MemoizedSupplier<T> implements Supplier<T> {
+
+    private final Supplier<T> delegate;
+    private volatile T value;
+    private RuntimeException failure; // guarded by this
+
+    MemoizedSupplier(Supplier<T> delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    /**
+     * Creates a supplier whose result is already known.
+     */
+    static <T> MemoizedSupplier<T> of(T value) {
+        MemoizedSupplier<T> supplier = new MemoizedSupplier<>(() -> value);
+        supplier.value = Objects.requireNonNull(value);
+        return supplier;
+    }
+
+    /**
+     * @return an optional containing the result or an empty optional when the delegate hasn't been called successfully yet.
+     */
+    Optional<T> getIfPresent() {
+        return Optional.ofNullable(this.value);
+    }
+
+    @Override
+    public T get() {
+        T result = this.value;
+        if (result != null) {
+            return result;
+        }
+        synchronized (this) {
+            if (this.value == null) {
+                if (this.failure != null) {
+                    throw this.failure;
+                }
+                try {
+                    this.value = Objects.requireNonNull(this.delegate.get());
+                } catch (RuntimeException e) {
+                    this.failure = e;
+                    throw e;
+                }
+            }
+            return this.value;
+        }
+    }
+}
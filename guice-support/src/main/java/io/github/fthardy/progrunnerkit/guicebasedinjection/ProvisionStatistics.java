@@ -0,0 +1,231 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.guicebasedinjection;
+
+import com.google.inject.Key;
+import com.google.inject.spi.ProvisionListener;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the provisioning latency of the bindings of an injector.
+ * <p>
+ * The statistics are recorded by a {@link ProvisionListener} which is installed on all bindings by a {@link ProvisionStatisticsModule}. For each key the
+ * number of provisions, the total and the maximum time and a histogram with power-of-two buckets are recorded. The time of a provision includes the time to
+ * provision the dependencies which are created on the way. Recording is lock-free, so the statistics can be read while provisions go on.
+ * </p>
+ * <p>
+ * Additionally the stages of the injector creation - the execution of the modules and the creation of the injector from their elements - are recorded
+ * when the injector is created by an {@link InitialGuiceInjectorStarterTask}.
+ * </p>
+ *
+ * @see InitialGuiceInjectorStarterTask#PROVISION_STATISTICS_PROPERTY
+ * @see GuiceProvisionReportTask
+ */
+public final class ProvisionStatistics implements ProvisionListener {
+
+    private final ConcurrentMap<Key<?>, KeyStatistics> keyStatistics = new ConcurrentHashMap<>();
+    private final Map<String, Duration> injectorCreationStages = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    @Override
+    public <T> void onProvision(ProvisionInvocation<T> provision) {
+        long start = System.nanoTime();
+        try {
+            provision.provision();
+        } finally {
+            long nanos = System.nanoTime() - start;
+            Key<?> key = provision.getBinding().getKey();
+            KeyStatistics statistics = this.keyStatistics.get(key);
+            if (statistics == null) {
+                statistics = this.keyStatistics.computeIfAbsent(key, KeyStatistics::new);
+            }
+            statistics.record(nanos);
+        }
+    }
+
+    void recordInjectorCreationStage(String stage, Duration duration) {
+        this.injectorCreationStages.merge(Objects.requireNonNull(stage), duration, Duration::plus);
+    }
+
+    /**
+     * @return the times of the stages of the injector creation in the order of the stages.
+     */
+    public Map<String, Duration> getInjectorCreationStages() {
+        synchronized (this.injectorCreationStages) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(this.injectorCreationStages));
+        }
+    }
+
+    /**
+     * @return a snapshot of the statistics of all provisioned keys sorted by their total provisioning time, the slowest first.
+     */
+    public List<KeyStatistics.Snapshot> getKeyStatistics() {
+        List<KeyStatistics.Snapshot> snapshots = new ArrayList<>(this.keyStatistics.size());
+        this.keyStatistics.values().forEach(statistics -> snapshots.add(statistics.snapshot()));
+        snapshots.sort(Comparator.comparingLong(KeyStatistics.Snapshot::getTotalNanos).reversed());
+        return snapshots;
+    }
+
+    /**
+     * Writes a report of the statistics. The stages of the injector creation are followed by one line per key, the slowest first.
+     *
+     * @param out the stream to write the report to.
+     */
+    public void writeReport(PrintStream out) {
+        out.println("Guice injector creation:");
+        this.getInjectorCreationStages().forEach((stage, duration) -> out.printf("  %-40s %10.3f ms%n", stage, duration.toNanos() / 1e6));
+        out.println("Guice provisioning:");
+        out.printf("  %8s %12s %12s %12s %12s %12s  %s%n", "count", "total ms", "mean us", "p50 us", "p99 us", "max us", "key");
+        for (KeyStatistics.Snapshot snapshot : this.getKeyStatistics()) {
+            out.printf("  %8d %12.3f %12.1f %12.1f %12.1f %12.1f  %s%n", snapshot.getCount(), snapshot.getTotalNanos() / 1e6,
+                    snapshot.getTotalNanos() / 1e3 / snapshot.getCount(), snapshot.getPercentileNanos(0.5) / 1e3, snapshot.getPercentileNanos(0.99) / 1e3,
+                    snapshot.getMaxNanos() / 1e3, snapshot.getKey());
+        }
+    }
+
+    /**
+     * The provisioning statistics of one key.
+     */
+    public static final class KeyStatistics {
+
+        private static final int BUCKETS = 64;
+
+        private final Key<?> key;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        private KeyStatistics(Key<?> key) {
+            this.key = key;
+        }
+
+        private void record(long nanos) {
+            this.count.increment();
+            this.totalNanos.add(nanos);
+            this.maxNanos.accumulate(nanos);
+            this.histogram.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(Math.max(nanos, 1L)));
+        }
+
+        private Snapshot snapshot() {
+            long[] buckets = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = this.histogram.get(i);
+            }
+            return new Snapshot(this.key, this.count.sum(), this.totalNanos.sum(), this.maxNanos.get(), buckets);
+        }
+
+        /**
+         * A consistent view on the statistics of one key.
+         */
+        public static final class Snapshot {
+
+            private final Key<?> key;
+            private final long count;
+            private final long totalNanos;
+            private final long maxNanos;
+            private final long[] histogram;
+
+            private Snapshot(Key<?> key, long count, long totalNanos, long maxNanos, long[] histogram) {
+                this.key = key;
+                this.count = count;
+                this.totalNanos = totalNanos;
+                this.maxNanos = maxNanos;
+                this.histogram = histogram;
+            }
+
+            /**
+             * @return the key of the binding.
+             */
+            public Key<?> getKey() {
+                return this.key;
+            }
+
+            /**
+             * @return the number of provisions.
+             */
+            public long getCount() {
+                return this.count;
+            }
+
+            /**
+             * @return the total time of all provisions in nanoseconds.
+             */
+            public long getTotalNanos() {
+                return this.totalNanos;
+            }
+
+            /**
+             * @return the time of the slowest provision in nanoseconds.
+             */
+            public long getMaxNanos() {
+                return this.maxNanos;
+            }
+
+            /**
+             * @return the number of provisions per bucket. Bucket {@code i} counts the provisions which took less than {@code 2^i} nanoseconds but at least
+             * {@code 2^(i-1)} nanoseconds.
+             */
+            public long[] getHistogram() {
+                return this.histogram.clone();
+            }
+
+            /**
+             * Estimates a percentile of the provision times from the histogram.
+             *
+             * @param percentile the percentile between 0 and 1, e.g. 0.99.
+             *
+             * @return the upper bound of the bucket containing the percentile in nanoseconds, but at most the maximum time.
+             */
+            public long getPercentileNanos(double percentile) {
+                long total = 0L;
+                for (long bucket : this.histogram) {
+                    total += bucket;
+                }
+                long rank = (long) Math.ceil(percentile * total);
+                long seen = 0L;
+                for (int i = 0; i < this.histogram.length; i++) {
+                    seen += this.histogram[i];
+                    if (seen >= rank && seen > 0) {
+                        return i >= 63 ? this.maxNanos : Math.min(1L << i, this.maxNanos);
+                    }
+                }
+                return this.maxNanos;
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.guicebasedinjection;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.matcher.Matchers;
+
+import java.util.Objects;
+
+/**
+ * A Guice-Module which records the provisioning latency of all bindings into a {@link ProvisionStatistics} instance, which is bound as well.
+ * <p>
+ * The module is opt-in: Without it no listener is installed and provisioning has no overhead.
+ * </p>
+ */
+public final class ProvisionStatisticsModule extends AbstractModule {
+
+    private final ProvisionStatistics statistics;
+
+    /**
+     * Creates a new instance of this module.
+     *
+     * @param statistics the statistics to record the provisions into.
+     */
+    public ProvisionStatisticsModule(ProvisionStatistics statistics) {
+        this.statistics = Objects.requireNonNull(statistics);
+    }
+
+    @Override
+    protected void configure() {
+        bind(ProvisionStatistics.class).toInstance(this.statistics);
+        bindListener(Matchers.any(), this.statistics);
+    }
+}
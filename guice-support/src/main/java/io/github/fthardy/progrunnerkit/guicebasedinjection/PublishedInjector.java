@@ -0,0 +1,64 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.guicebasedinjection;
+
+import com.google.inject.Injector;
+
+import java.util.Objects;
+
+/**
+ * An injector together with the times taken to create it and the warm-up of its singletons. Published as one immutable object so that readers never see an
+ * injector with the timings of another one or without its warm-up.
+ */
+final class PublishedInjector {
+
+    private final Injector injector;
+    private final GuiceStartupTimings startupTimings;
+    private final ProvisionStatistics provisionStatistics;
+    private final GuiceSingletonWarmUp singletonWarmUp;
+
+    PublishedInjector(Injector injector, GuiceStartupTimings startupTimings, ProvisionStatistics provisionStatistics,
+            GuiceSingletonWarmUp singletonWarmUp) {
+        this.injector = Objects.requireNonNull(injector);
+        this.startupTimings = Objects.requireNonNull(startupTimings);
+        this.provisionStatistics = provisionStatistics;
+        this.singletonWarmUp = singletonWarmUp;
+    }
+
+    Injector getInjector() {
+        return this.injector;
+    }
+
+    GuiceStartupTimings getStartupTimings() {
+        return this.startupTimings;
+    }
+
+    ProvisionStatistics getProvisionStatistics() {
+        return this.provisionStatistics;
+    }
+
+    GuiceSingletonWarmUp getSingletonWarmUp() {
+        return this.singletonWarmUp;
+    }
+}
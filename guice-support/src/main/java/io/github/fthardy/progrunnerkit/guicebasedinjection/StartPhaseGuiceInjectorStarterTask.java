@@ -0,0 +1,153 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.guicebasedinjection;
+
+import com.google.inject.Injector;
+import com.google.inject.Module;
+import io.github.fthardy.progrunnerkit.core.Prioritized;
+import io.github.fthardy.progrunnerkit.core.StartPhaseTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.ServiceLoader;
+
+/**
+ * Creates a child injector of the injector of the {@link InitialGuiceInjectorStarterTask} for the bindings which are only needed during the start phase,
+ * with all Guice-Modules created by each of the found {@link StartPhaseGuiceModuleProviderService} instances.
+ * <p>
+ * The start phase injector is released at the end of the start phase by a {@link StartPhaseGuiceInjectorReleaser}, so its object graph can be collected
+ * while the injector of the {@link InitialGuiceInjectorStarterTask} lives on. Guice creates bindings which are not explicit in the parent injector if
+ * possible, so the start phase modules should bind everything they provide explicitly. When the system property {@value MEASURE_RELEASE_PROPERTY} is
+ * {@code true} the heap freed by the release is measured.
+ * </p>
+ * <p>
+ * Like the injector of the {@link InitialGuiceInjectorStarterTask} the start phase injector is published to the {@link GuiceInjectorScope} of the current
+ * thread if there is one and process-wide otherwise, so the release at the end of one program run doesn't affect the runs in other scopes.
+ * </p>
+ * <p>
+ * The {@link StartPhaseGuiceModuleProviderService} instances are loaded by a {@link ServiceLoader}. The default priority for this task is
+ * {@value DEFAULT_PRIORITY}, right after the {@link InitialGuiceInjectorStarterTask}.
+ * </p>
+ */
+public final class StartPhaseGuiceInjectorStarterTask implements Prioritized, StartPhaseTask {
+
+    public static final int DEFAULT_PRIORITY = InitialGuiceInjectorStarterTask.DEFAULT_PRIORITY + 1;
+
+    /**
+     * The name of the system property to measure the heap freed by the release of the start phase injector.
+     */
+    public static final String MEASURE_RELEASE_PROPERTY = "progrunnerkit.guice.startphase.measure";
+
+    private static volatile Injector _startPhaseInjector;
+    private static volatile Long _freedHeapBytes;
+
+    private final Iterable<StartPhaseGuiceModuleProviderService> services;
+
+    public StartPhaseGuiceInjectorStarterTask() {
+        this(ServiceLoader.load(StartPhaseGuiceModuleProviderService.class));
+    }
+
+    public StartPhaseGuiceInjectorStarterTask(Iterable<StartPhaseGuiceModuleProviderService> services) {
+        this.services = services;
+    }
+
+    /**
+     * Provides access to the start phase injector. This is the start phase injector of the {@link GuiceInjectorScope} bound to the current thread or the
+     * process-wide start phase injector if no scope is bound.
+     *
+     * @return the injector instance.
+     *
+     * @throws IllegalStateException when the start phase injector hasn't been created yet or has already been released.
+     */
+    public static Injector getStartPhaseInjector() {
+        Injector injector = findStartPhaseInjector();
+        if (injector == null) {
+            throw new IllegalStateException("No start phase injector available!");
+        }
+        return injector;
+    }
+
+    private static Injector findStartPhaseInjector() {
+        GuiceInjectorScope scope = GuiceInjectorScope.current().orElse(null);
+        return scope != null ? scope.getStartPhaseInjector() : _startPhaseInjector;
+    }
+
+    private static void publish(Injector startPhaseInjector) {
+        GuiceInjectorScope scope = GuiceInjectorScope.current().orElse(null);
+        if (scope != null) {
+            scope.publishStartPhaseInjector(startPhaseInjector);
+        } else {
+            _startPhaseInjector = startPhaseInjector;
+        }
+    }
+
+    /**
+     * @return an optional containing the number of bytes freed on the heap by the last release of the start phase injector or an empty optional when the
+     * release hasn't been measured.
+     */
+    public static OptionalLong getFreedHeapBytes() {
+        Long freedHeapBytes = _freedHeapBytes;
+        return freedHeapBytes == null ? OptionalLong.empty() : OptionalLong.of(freedHeapBytes);
+    }
+
+    /**
+     * Releases the start phase injector of the current scope. When the system property {@value MEASURE_RELEASE_PROPERTY} is {@code true} the garbage
+     * collector is run before and after the release to measure the freed heap.
+     *
+     * @return an optional containing the number of freed bytes or an empty optional when the release hasn't been measured or there was nothing to release.
+     */
+    static OptionalLong release() {
+        if (findStartPhaseInjector() == null) {
+            return OptionalLong.empty();
+        }
+        if (!Boolean.getBoolean(MEASURE_RELEASE_PROPERTY)) {
+            publish(null);
+            return OptionalLong.empty();
+        }
+        long usedBefore = usedHeapAfterGc();
+        publish(null);
+        long freed = Math.max(0L, usedBefore - usedHeapAfterGc());
+        _freedHeapBytes = freed;
+        return OptionalLong.of(freed);
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Override
+    public int getPriority() {
+        return DEFAULT_PRIORITY;
+    }
+
+    @Override
+    public void run(List<String> arguments) {
+        List<Module> modules = new ArrayList<>();
+        this.services.forEach(service -> modules.add(service.createStartPhaseGuiceModule()));
+        publish(InitialGuiceInjectorStarterTask.getInjector().createChildInjector(modules));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.guicebasedinjection;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Singleton;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GuiceSingletonWarmUpTest {
+
+    private static final List<Class<?>> _instantiated = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void Singletons_are_provisioned_in_dependency_order() throws Exception {
+
+        _instantiated.clear();
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Service.class);
+                bind(Repository.class);
+                bind(Unscoped.class);
+                bind(Failing.class);
+            }
+        });
+        assertTrue(_instantiated.isEmpty());
+
+        GuiceSingletonWarmUp warmUp = GuiceSingletonWarmUp.start(injector, null);
+        warmUp.getCompletion().get(10, TimeUnit.SECONDS);
+
+        assertTrue(_instantiated.indexOf(Repository.class) < _instantiated.indexOf(Service.class));
+        assertEquals(1, Collections.frequency(_instantiated, Repository.class));
+        assertEquals(1, Collections.frequency(_instantiated, Unscoped.class));
+        assertTrue(warmUp.getProvisionTimes().containsKey(Key.get(Service.class)));
+        assertTrue(warmUp.getProvisionTimes().containsKey(Key.get(Repository.class)));
+        assertFalse(warmUp.getProvisionTimes().containsKey(Key.get(Unscoped.class)));
+        assertTrue(warmUp.getFailures().containsKey(Key.get(Failing.class)));
+        assertSame(injector.getInstance(Service.class), injector.getInstance(Service.class));
+    }
+
+    @Test
+    public void Starter_task_warms_up_singletons_in_background_stage() throws Exception {
+
+        _instantiated.clear();
+        InitialGuiceModuleProviderService moduleProvider = () -> binder -> binder.bind(Repository.class);
+        System.setProperty(InitialGuiceInjectorStarterTask.STAGE_PROPERTY, "background");
+        try {
+            new InitialGuiceInjectorStarterTask(Collections.singletonList(moduleProvider)).run(Collections.emptyList());
+
+            GuiceSingletonWarmUp warmUp = InitialGuiceInjectorStarterTask.getSingletonWarmUp().orElseThrow(AssertionError::new);
+            warmUp.getCompletion().get(10, TimeUnit.SECONDS);
+            assertEquals(Collections.singletonList(Repository.class), _instantiated);
+        } finally {
+            System.clearProperty(InitialGuiceInjectorStarterTask.STAGE_PROPERTY);
+            InitialGuiceInjectorStarterTask.reset();
+        }
+    }
+
+    @Test
+    public void Unknown_stage_is_rejected() {
+
+        System.setProperty(InitialGuiceInjectorStarterTask.STAGE_PROPERTY, "eventually");
+        try {
+            assertThrows(IllegalArgumentException.class, () -> new InitialGuiceInjectorStarterTask(Collections.emptyList()).run(Collections.emptyList()));
+        } finally {
+            System.clearProperty(InitialGuiceInjectorStarterTask.STAGE_PROPERTY);
+        }
+    }
+
+    @Singleton
+    static class Repository {
+
+        Repository() throws InterruptedException {
+            Thread.sleep(50);
+            _instantiated.add(Repository.class);
+        }
+    }
+
+    static class Unscoped {
+
+        @Inject
+        Unscoped(Repository repository) {
+            _instantiated.add(Unscoped.class);
+        }
+    }
+
+    @Singleton
+    static class Service {
+
+        @Inject
+        Service(Unscoped unscoped) {
+            _instantiated.add(Service.class);
+        }
+    }
+
+    @Singleton
+    static class Failing {
+
+        Failing() {
+            throw new IllegalStateException("not configured");
+        }
+    }
+}
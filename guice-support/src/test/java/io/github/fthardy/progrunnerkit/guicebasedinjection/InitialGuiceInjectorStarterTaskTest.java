@@ -23,15 +23,37 @@ SOFTWARE.
 */
 package io.github.fthardy.progrunnerkit.guicebasedinjection;
 
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.name.Names;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class InitialGuiceInjectorStarterTaskTest {
 
+    @AfterEach
+    public void resetInjector() {
+        InitialGuiceInjectorStarterTask.reset();
+    }
+
     @Test
     public void No_services_found() {
 
@@ -47,4 +69,173 @@ class InitialGuiceInjectorStarterTaskTest {
         
         assertThrows(IllegalStateException.class, InitialGuiceInjectorStarterTask::getInjector);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void Modules_are_created_concurrently_in_deterministic_order() {
+
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        InitialGuiceModuleProviderService first = new NamedModuleProvider("first", bothStarted);
+        InitialGuiceModuleProviderService second = () -> {
+            bothStarted.countDown();
+            return binder -> binder.bindConstant().annotatedWith(Names.named("second")).to("second");
+        };
+
+        new InitialGuiceInjectorStarterTask(Arrays.asList(first, second)).run(Collections.emptyList());
+
+        Injector injector = InitialGuiceInjectorStarterTask.getInjector();
+        assertEquals("first", injector.getInstance(Key.get(String.class, Names.named("first"))));
+        assertEquals("second", injector.getInstance(Key.get(String.class, Names.named("second"))));
+        GuiceStartupTimings timings = InitialGuiceInjectorStarterTask.getStartupTimings();
+        assertEquals(Arrays.asList(NamedModuleProvider.class.getName(), second.getClass().getName()),
+                Arrays.asList(timings.getModuleCreationTimes().keySet().toArray()));
+        assertTrue(timings.getModuleCreationTimes().get(NamedModuleProvider.class.getName()).toNanos() > 0);
+        assertNotNull(timings.getInjectorCreationTime());
+    }
+
+    @Test
+    public void Failure_of_module_provider_is_propagated() {
+
+        IllegalStateException failure = new IllegalStateException("configuration missing");
+        InitialGuiceModuleProviderService failing = () -> {
+            throw failure;
+        };
+        InitialGuiceInjectorStarterTask starter = new InitialGuiceInjectorStarterTask(Arrays.asList(new NamedModuleProvider("first", null), failing));
+
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> starter.run(Collections.emptyList())));
+    }
+
+    @Test
+    public void Injector_is_accessible_from_threads_started_before() throws Exception {
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> {}).get();
+
+            new InitialGuiceInjectorStarterTask(Collections.singletonList(new NamedModuleProvider("first", null))).run(Collections.emptyList());
+
+            Injector injector = InitialGuiceInjectorStarterTask.getInjector();
+            assertSame(injector, executor.submit(InitialGuiceInjectorStarterTask::getInjector).get());
+            assertSame(injector, ForkJoinPool.commonPool().submit(InitialGuiceInjectorStarterTask::getInjector).get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void Scope_keeps_the_injector_of_a_run_apart() throws Exception {
+
+        new InitialGuiceInjectorStarterTask(Collections.singletonList(new NamedModuleProvider("process", null))).run(Collections.emptyList());
+        Injector processInjector = InitialGuiceInjectorStarterTask.getInjector();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (GuiceInjectorScope scope = GuiceInjectorScope.open()) {
+            assertThrows(IllegalStateException.class, InitialGuiceInjectorStarterTask::getInjector);
+
+            new InitialGuiceInjectorStarterTask(Collections.singletonList(new NamedModuleProvider("scoped", null))).run(Collections.emptyList());
+
+            Injector scopedInjector = InitialGuiceInjectorStarterTask.getInjector();
+            assertEquals("scoped", scopedInjector.getInstance(Key.get(String.class, Names.named("scoped"))));
+            assertSame(scopedInjector, scope.getInjector().orElse(null));
+            Injector[] seenByWorker = new Injector[2];
+            executor.submit(scope.wrap(() -> seenByWorker[0] = InitialGuiceInjectorStarterTask.getInjector())).get();
+            executor.submit(() -> seenByWorker[1] = InitialGuiceInjectorStarterTask.getInjector()).get();
+            assertSame(scopedInjector, seenByWorker[0]);
+            assertSame(processInjector, seenByWorker[1]);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertSame(processInjector, InitialGuiceInjectorStarterTask.getInjector());
+        assertFalse(GuiceInjectorScope.current().isPresent());
+    }
+
+    @Test
+    public void Lazy_injector_is_created_once_on_first_access() throws Exception {
+
+        AtomicInteger moduleCreations = new AtomicInteger();
+        InitialGuiceModuleProviderService moduleProvider = () -> {
+            moduleCreations.incrementAndGet();
+            return new NamedModuleProvider("lazy", null).createInitialGuiceModule();
+        };
+        System.setProperty(InitialGuiceInjectorStarterTask.LAZY_PROPERTY, "true");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            new InitialGuiceInjectorStarterTask(Collections.singletonList(moduleProvider)).run(Collections.emptyList());
+            assertEquals(0, moduleCreations.get());
+
+            Future<Injector> first = executor.submit(InitialGuiceInjectorStarterTask::getInjector);
+            Future<Injector> second = executor.submit(InitialGuiceInjectorStarterTask::getInjector);
+
+            assertSame(first.get(), second.get());
+            assertSame(first.get(), InitialGuiceInjectorStarterTask.getInjector());
+            assertEquals(1, moduleCreations.get());
+        } finally {
+            executor.shutdownNow();
+            System.clearProperty(InitialGuiceInjectorStarterTask.LAZY_PROPERTY);
+        }
+    }
+
+    @Test
+    public void Failure_of_lazy_injector_is_thrown_on_every_access() {
+
+        IllegalStateException failure = new IllegalStateException("configuration missing");
+        AtomicInteger moduleCreations = new AtomicInteger();
+        InitialGuiceModuleProviderService failing = () -> {
+            moduleCreations.incrementAndGet();
+            throw failure;
+        };
+        System.setProperty(InitialGuiceInjectorStarterTask.LAZY_PROPERTY, "true");
+        try {
+            new InitialGuiceInjectorStarterTask(Collections.singletonList(failing)).run(Collections.emptyList());
+
+            assertSame(failure, assertThrows(IllegalStateException.class, InitialGuiceInjectorStarterTask::getInjector));
+            assertSame(failure, assertThrows(IllegalStateException.class, InitialGuiceInjectorStarterTask::getInjector));
+            assertEquals(1, moduleCreations.get());
+        } finally {
+            System.clearProperty(InitialGuiceInjectorStarterTask.LAZY_PROPERTY);
+        }
+    }
+
+    @Test
+    public void Speculative_injector_is_created_in_background() throws Exception {
+
+        CountDownLatch created = new CountDownLatch(1);
+        InitialGuiceModuleProviderService moduleProvider = () -> {
+            created.countDown();
+            return new NamedModuleProvider("speculative", null).createInitialGuiceModule();
+        };
+        System.setProperty(InitialGuiceInjectorStarterTask.LAZY_PROPERTY, "speculative");
+        try {
+            new InitialGuiceInjectorStarterTask(Collections.singletonList(moduleProvider)).run(Collections.emptyList());
+
+            assertTrue(created.await(10, TimeUnit.SECONDS));
+            assertEquals("speculative", InitialGuiceInjectorStarterTask.getInjector().getInstance(Key.get(String.class, Names.named("speculative"))));
+        } finally {
+            System.clearProperty(InitialGuiceInjectorStarterTask.LAZY_PROPERTY);
+        }
+    }
+
+    private static final class NamedModuleProvider implements InitialGuiceModuleProviderService {
+
+        private final String name;
+        private final CountDownLatch bothStarted;
+
+        NamedModuleProvider(String name, CountDownLatch bothStarted) {
+            this.name = name;
+            this.bothStarted = bothStarted;
+        }
+
+        @Override
+        public Module createInitialGuiceModule() {
+            if (this.bothStarted != null) {
+                this.bothStarted.countDown();
+                try {
+                    // the first module only completes when the second one has been started concurrently
+                    assertTrue(this.bothStarted.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return binder -> binder.bindConstant().annotatedWith(Names.named(this.name)).to(this.name);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.guicebasedinjection;
+
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Singleton;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import io.github.fthardy.progrunnerkit.core.PerInvocationTask;
+import io.github.fthardy.progrunnerkit.core.ProgramRunner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvocationGuiceInjectorStarterTaskTest {
+
+    private static final Key<List<String>> ARGUMENTS_KEY = Key.get(new TypeLiteral<List<String>>() {}, Names.named("arguments"));
+
+    @AfterEach
+    public void resetInjector() {
+        InitialGuiceInjectorStarterTask.reset();
+    }
+
+    @Test
+    public void Each_invocation_has_a_child_injector_of_its_own() throws Exception {
+
+        Map<List<String>, Injector> invocationInjectors = new ConcurrentHashMap<>();
+        PerInvocationTask recordingTask = arguments -> invocationInjectors.put(arguments, InvocationGuiceInjectorStarterTask.getInvocationInjector());
+        InvocationGuiceModuleProviderService moduleProvider = arguments -> binder -> binder.bind(ARGUMENTS_KEY).toInstance(arguments);
+
+        ProgramRunner runner = new ProgramRunner(Arrays.asList(new InitialGuiceInjectorStarterTask(Collections.emptyList()),
+                new InvocationGuiceInjectorStarterTask(Collections.singletonList(moduleProvider)), recordingTask),
+                Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (ProgramRunner.Session session = runner.openSession(Collections.emptyList())) {
+            Future<Integer> first = executor.submit(() -> session.invoke(1, Collections.singletonList("first")));
+            Future<Integer> second = executor.submit(() -> session.invoke(2, Collections.singletonList("second")));
+            assertEquals(0, first.get().intValue());
+            assertEquals(0, second.get().intValue());
+            // the child injectors are released when their invocations are complete
+            ExecutionException released = assertThrows(ExecutionException.class,
+                    () -> executor.invokeAll(Arrays.asList(InvocationGuiceInjectorStarterTask::getInvocationInjector,
+                            InvocationGuiceInjectorStarterTask::getInvocationInjector)).get(0).get());
+            assertTrue(released.getCause() instanceof IllegalStateException);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Injector firstInjector = invocationInjectors.get(Collections.singletonList("first"));
+        Injector secondInjector = invocationInjectors.get(Collections.singletonList("second"));
+        assertNotSame(firstInjector, secondInjector);
+        assertSame(firstInjector.getParent(), secondInjector.getParent());
+        assertEquals(Collections.singletonList("first"), firstInjector.getInstance(ARGUMENTS_KEY));
+        assertEquals(Collections.singletonList("second"), secondInjector.getInstance(ARGUMENTS_KEY));
+        assertSame(firstInjector.getInstance(Shared.class), secondInjector.getInstance(Shared.class));
+    }
+
+    @Test
+    public void No_invocation_injector_available() {
+
+        assertThrows(IllegalStateException.class, InvocationGuiceInjectorStarterTask::getInvocationInjector);
+    }
+
+    @Singleton
+    static class Shared {
+    }
+}
@@ -0,0 +1,121 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.guicebasedinjection;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProvisionStatisticsTest {
+
+    @AfterEach
+    public void resetInjector() {
+        InitialGuiceInjectorStarterTask.reset();
+    }
+
+    @Test
+    public void Provisions_are_recorded_per_key() {
+
+        ProvisionStatistics statistics = new ProvisionStatistics();
+        Injector injector = Guice.createInjector(new ProvisionStatisticsModule(statistics));
+
+        injector.getInstance(Dependency.class);
+        injector.getInstance(Dependent.class);
+        injector.getInstance(Dependent.class);
+
+        assertSame(statistics, injector.getInstance(ProvisionStatistics.class));
+        List<ProvisionStatistics.KeyStatistics.Snapshot> snapshots = statistics.getKeyStatistics();
+        ProvisionStatistics.KeyStatistics.Snapshot dependent = find(snapshots, Key.get(Dependent.class));
+        ProvisionStatistics.KeyStatistics.Snapshot dependency = find(snapshots, Key.get(Dependency.class));
+        assertEquals(2, dependent.getCount());
+        assertEquals(5, dependency.getCount());
+        assertEquals(2, Arrays.stream(dependent.getHistogram()).sum());
+        assertTrue(dependent.getTotalNanos() >= dependent.getMaxNanos());
+        assertTrue(dependent.getPercentileNanos(0.99) <= dependent.getMaxNanos());
+        for (int i = 1; i < snapshots.size(); i++) {
+            assertTrue(snapshots.get(i - 1).getTotalNanos() >= snapshots.get(i).getTotalNanos());
+        }
+    }
+
+    @Test
+    public void Starter_task_records_statistics_and_report_task_writes_them() {
+
+        System.setProperty(InitialGuiceInjectorStarterTask.PROVISION_STATISTICS_PROPERTY, "true");
+        PrintStream originalErr = System.err;
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        try {
+            new InitialGuiceInjectorStarterTask(Collections.singletonList(() -> binder -> binder.bind(Dependent.class)))
+                    .run(Collections.emptyList());
+            InitialGuiceInjectorStarterTask.getInjector().getInstance(Dependent.class);
+
+            ProvisionStatistics statistics = InitialGuiceInjectorStarterTask.getProvisionStatistics().orElseThrow(AssertionError::new);
+            assertEquals(Arrays.asList("Module execution", "Injector creation"), new ArrayList<>(statistics.getInjectorCreationStages().keySet()));
+            assertEquals(1, find(statistics.getKeyStatistics(), Key.get(Dependent.class)).getCount());
+
+            System.setErr(new PrintStream(err, true));
+            new GuiceProvisionReportTask().run(Collections.emptyList());
+        } finally {
+            System.setErr(originalErr);
+            System.clearProperty(InitialGuiceInjectorStarterTask.PROVISION_STATISTICS_PROPERTY);
+        }
+        String report = new String(err.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(report.contains("Guice injector creation:"));
+        assertTrue(report.contains(Dependent.class.getName()));
+    }
+
+    @Test
+    public void Statistics_are_disabled_by_default() {
+
+        new InitialGuiceInjectorStarterTask(Collections.emptyList()).run(Collections.emptyList());
+
+        assertFalse(InitialGuiceInjectorStarterTask.getProvisionStatistics().isPresent());
+    }
+
+    private static ProvisionStatistics.KeyStatistics.Snapshot find(List<ProvisionStatistics.KeyStatistics.Snapshot> snapshots, Key<?> key) {
+        return snapshots.stream().filter(snapshot -> snapshot.getKey().equals(key)).findFirst().orElseThrow(AssertionError::new);
+    }
+
+    static class Dependency {
+    }
+
+    static class Dependent {
+
+        @Inject
+        Dependent(Dependency first, Dependency second) {
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.guicebasedinjection;
+
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+import io.github.fthardy.progrunnerkit.core.ProgramRunner;
+import io.github.fthardy.progrunnerkit.core.StartPhaseTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartPhaseGuiceInjectorStarterTaskTest {
+
+    @AfterEach
+    public void resetInjector() {
+        InitialGuiceInjectorStarterTask.reset();
+        System.clearProperty(StartPhaseGuiceInjectorStarterTask.MEASURE_RELEASE_PROPERTY);
+    }
+
+    @Test
+    public void Start_phase_injector_is_released_at_the_end_of_the_start_phase() {
+
+        System.setProperty(StartPhaseGuiceInjectorStarterTask.MEASURE_RELEASE_PROPERTY, "true");
+        AtomicReference<WeakReference<BootstrapDocument>> document = new AtomicReference<>();
+        StartPhaseTask usingTask = arguments -> {
+            BootstrapDocument instance = StartPhaseGuiceInjectorStarterTask.getStartPhaseInjector().getInstance(BootstrapDocument.class);
+            assertSame(instance, StartPhaseGuiceInjectorStarterTask.getStartPhaseInjector().getInstance(BootstrapDocument.class));
+            document.set(new WeakReference<>(instance));
+        };
+        StartPhaseGuiceModuleProviderService moduleProvider = () -> binder -> binder.bind(BootstrapDocument.class);
+
+        new ProgramRunner(Arrays.asList(new InitialGuiceInjectorStarterTask(Collections.emptyList()),
+                new StartPhaseGuiceInjectorStarterTask(Collections.singletonList(moduleProvider)), usingTask),
+                Collections.emptyList(), Collections.singletonList(new StartPhaseGuiceInjectorReleaser()), Collections.emptyList())
+                .run(Collections.emptyList());
+
+        assertThrows(IllegalStateException.class, StartPhaseGuiceInjectorStarterTask::getStartPhaseInjector);
+        assertNotNull(InitialGuiceInjectorStarterTask.getInjector());
+        assertNull(document.get().get());
+        assertTrue(StartPhaseGuiceInjectorStarterTask.getFreedHeapBytes().orElse(0L) > BootstrapDocument.SIZE / 2);
+    }
+
+    @Test
+    public void Each_scope_has_its_own_start_phase_injector() {
+
+        StartPhaseGuiceModuleProviderService moduleProvider = () -> binder -> binder.bind(BootstrapDocument.class);
+
+        try (GuiceInjectorScope outerScope = GuiceInjectorScope.open()) {
+            new InitialGuiceInjectorStarterTask(Collections.emptyList()).run(Collections.emptyList());
+            new StartPhaseGuiceInjectorStarterTask(Collections.singletonList(moduleProvider)).run(Collections.emptyList());
+            Injector outerInjector = StartPhaseGuiceInjectorStarterTask.getStartPhaseInjector();
+
+            try (GuiceInjectorScope innerScope = GuiceInjectorScope.open()) {
+                new InitialGuiceInjectorStarterTask(Collections.emptyList()).run(Collections.emptyList());
+                assertNotSame(outerScope.getInjector().orElseThrow(AssertionError::new), innerScope.getInjector().orElseThrow(AssertionError::new));
+                new StartPhaseGuiceInjectorStarterTask(Collections.singletonList(moduleProvider)).run(Collections.emptyList());
+                assertNotSame(outerInjector, StartPhaseGuiceInjectorStarterTask.getStartPhaseInjector());
+
+                StartPhaseGuiceInjectorStarterTask.release();
+                assertThrows(IllegalStateException.class, StartPhaseGuiceInjectorStarterTask::getStartPhaseInjector);
+            }
+
+            assertSame(outerInjector, StartPhaseGuiceInjectorStarterTask.getStartPhaseInjector());
+        }
+        assertThrows(IllegalStateException.class, StartPhaseGuiceInjectorStarterTask::getStartPhaseInjector);
+    }
+
+    @Test
+    public void No_start_phase_injector_available() {
+
+        assertThrows(IllegalStateException.class, StartPhaseGuiceInjectorStarterTask::getStartPhaseInjector);
+        assertFalse(StartPhaseGuiceInjectorStarterTask.release().isPresent());
+    }
+
+    @Singleton
+    static class BootstrapDocument {
+
+        static final int SIZE = 16 * 1024 * 1024;
+
+        final byte[] content = new byte[SIZE];
+    }
+}
@@ -0,0 +1,124 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.leanclisupport;
+
+import io.github.fthardy.progrunnerkit.cliapi.CommandLine;
+import io.github.fthardy.progrunnerkit.cliapi.CommandLineParser;
+import io.github.fthardy.progrunnerkit.commonsclisupport.CommonsCliCommandLineParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the lean parser with the commons-cli parser for a typical small argument vector and for one with 100,000 entries.
+ * <p>
+ * Both parsers get the same options: two switches, two options with a value and a repeatable {@code -D} option. Both take the {@code key=value} after
+ * {@code -D} as one raw value, so they consume the same tokens. The large argument vector consists mostly of {@code -D} pairs, mixed with the other
+ * options. Run with {@code gradle :lean-cli-support:jmh} and compare the average time as well as
+ * the allocation rate (add {@code -PjmhArgs="-prof gc"}).
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"small", "large"})
+    public String argumentVector;
+
+    private String[] arguments;
+    private CommandLineParser leanParser;
+    private CommandLineParser commonsParser;
+
+    @Setup
+    public void setUp() {
+        this.leanParser = new LeanCommandLineParser(Arrays.asList(
+                OptionDefinition.flag("v", "verbose"),
+                OptionDefinition.flag("q", "quiet"),
+                OptionDefinition.withValue("p", "port"),
+                OptionDefinition.withValue("o", "output"),
+                OptionDefinition.withValue("D", null)));
+
+        Options options = new Options();
+        options.addOption("v", "verbose", false, "Verbose.");
+        options.addOption("q", "quiet", false, "Quiet.");
+        options.addOption("p", "port", true, "Port.");
+        options.addOption("o", "output", true, "Output.");
+        options.addOption(Option.builder("D").hasArg().build());
+        this.commonsParser = new CommonsCliCommandLineParser(options);
+
+        if ("small".equals(this.argumentVector)) {
+            this.arguments = new String[] {"-v", "--port", "8080", "-o", "out.txt", "-D", "mode=fast", "input.txt"};
+        } else {
+            List<String> large = new ArrayList<>(100_000);
+            while (large.size() < 99_990) {
+                int n = large.size();
+                large.add(n % 1000 == 0 ? "--port" : "-D");
+                large.add(n % 1000 == 0 ? Integer.toString(n) : "key" + n + "=value" + n);
+            }
+            large.addAll(Arrays.asList("-v", "-q", "-o", "out.txt", "--output", "other.txt", "--", "a", "b", "c"));
+            this.arguments = large.toArray(new String[0]);
+        }
+    }
+
+    @Benchmark
+    public CommandLine lean() {
+        return this.leanParser.parseArguments(this.arguments);
+    }
+
+    @Benchmark
+    public CommandLine commonsCli() {
+        return this.commonsParser.parseArguments(this.arguments);
+    }
+
+    @Benchmark
+    public int leanWithAccess() {
+        CommandLine commandLine = this.leanParser.parseArguments(this.arguments);
+        return commandLine.getParameterList("D").size() + commandLine.getParameterValue("port").map(String::length).orElse(0);
+    }
+
+    @Benchmark
+    public int commonsCliWithAccess() {
+        CommandLine commandLine = this.commonsParser.parseArguments(this.arguments);
+        return commandLine.getParameterList("D").size() + commandLine.getParameterValue("port").map(String::length).orElse(0);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.leanclisupport;
+
+import java.util.Collection;
+
+/**
+ * The immutable lookup structure compiled from the option definitions.
+ * <p>
+ * The short and the long names are kept in two open addressing hash tables which map a name to the index of its option. A name is looked up directly from
+ * a region of an argument, so neither the dashes nor an attached value have to be cut off by creating a substring.
+ * </p>
+ */
+final class CompiledOptions {
+
+    private final NameTable shortNames;
+    private final NameTable longNames;
+    private final boolean[] valueRequired;
+
+    CompiledOptions(Collection<OptionDefinition> definitions) {
+        int size = definitions.size();
+        this.shortNames = new NameTable(size);
+        this.longNames = new NameTable(size);
+        this.valueRequired = new boolean[size];
+        int index = 0;
+        for (OptionDefinition definition : definitions) {
+            if (definition.getShortName() != null) {
+                this.shortNames.add(definition.getShortName(), index);
+            }
+            if (definition.getLongName() != null) {
+                this.longNames.add(definition.getLongName(), index);
+            }
+            this.valueRequired[index++] = definition.isValueRequired();
+        }
+    }
+
+    int size() {
+        return this.valueRequired.length;
+    }
+
+    boolean isValueRequired(int option) {
+        return this.valueRequired[option];
+    }
+
+    int indexOfShortName(String argument, int from, int to) {
+        return this.shortNames.indexOf(argument, from, to);
+    }
+
+    int indexOfLongName(String argument, int from, int to) {
+        return this.longNames.indexOf(argument, from, to);
+    }
+
+    /**
+     * Looks up an option by its short name or - if there is no such short name - by its long name.
+     */
+    int indexOfId(String id) {
+        int option = this.shortNames.indexOf(id, 0, id.length());
+        return option >= 0 ? option : this.longNames.indexOf(id, 0, id.length());
+    }
+
+    private static final class NameTable {
+
+        private final String[] names;
+        private final int[] options;
+        private final int mask;
+
+        NameTable(int capacity) {
+            // a load factor of at most 0.5 keeps the probe sequences short
+            int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 4 - 1);
+            this.names = new String[tableSize];
+            this.options = new int[tableSize];
+            this.mask = tableSize - 1;
+        }
+
+        void add(String name, int option) {
+            int slot = hash(name, 0, name.length()) & this.mask;
+            while (this.names[slot] != null) {
+                if (this.names[slot].equals(name)) {
+                    throw new IllegalArgumentException("The option name '" + name + "' is defined more than once!");
+                }
+                slot = (slot + 1) & this.mask;
+            }
+            this.names[slot] = name;
+            this.options[slot] = option;
+        }
+
+        int indexOf(String text, int from, int to) {
+            int length = to - from;
+            for (int slot = hash(text, from, to) & this.mask; this.names[slot] != null; slot = (slot + 1) & this.mask) {
+                String name = this.names[slot];
+                if (name.length() == length && text.regionMatches(from, name, 0, length)) {
+                    return this.options[slot];
+                }
+            }
+            return -1;
+        }
+
+        private static int hash(String text, int from, int to) {
+            int hash = 0;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + text.charAt(i);
+            }
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
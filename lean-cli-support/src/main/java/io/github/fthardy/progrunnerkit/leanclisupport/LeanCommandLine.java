@@ -0,0 +1,127 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.leanclisupport;
+
+import io.github.fthardy.progrunnerkit.cliapi.CommandLine;
+import io.github.fthardy.progrunnerkit.cliapi.ConvertedParameterValues;
+import io.github.fthardy.progrunnerkit.cliapi.ValueConverterRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * The command line created by the {@link LeanCommandLineParser}.
+ * <p>
+ * The command line refers to the arguments and the recorded positions of the option values, a value string is created only when it is accessed. Typed
+ * values are converted with a {@link ValueConverterRegistry} and memoized. The type {@link Properties} is supported as well: each value of the option is
+ * a {@code key=value} pair or only a key with the value {@code true}. This class is thread safe.
+ * </p>
+ */
+public final class LeanCommandLine implements CommandLine {
+
+    private final List<String> arguments;
+    private final List<String> argumentList;
+    private final List<String> unparsedArguments;
+    private final CompiledOptions options;
+    private final OptionValues values;
+    private final ConvertedParameterValues convertedValues;
+
+    LeanCommandLine(List<String> arguments, int firstUnparsedArgument, CompiledOptions options, OptionValues values, ValueConverterRegistry converterRegistry) {
+        this.arguments = arguments;
+        this.argumentList = Collections.unmodifiableList(arguments);
+        this.unparsedArguments = this.argumentList.subList(firstUnparsedArgument, arguments.size());
+        this.options = options;
+        this.values = values;
+        this.convertedValues = new ConvertedParameterValues(converterRegistry);
+    }
+
+    @Override
+    public boolean isSet(String id) {
+        int option = this.options.indexOfId(id);
+        return option >= 0 && this.values.isSet(option);
+    }
+
+    @Override
+    public List<String> getArguments() {
+        return this.argumentList;
+    }
+
+    @Override
+    public List<String> getUnparsedArguments() {
+        return this.unparsedArguments;
+    }
+
+    @Override
+    public Optional<String> getParameterValue(String id) {
+        int option = this.options.indexOfId(id);
+        if (option < 0 || this.values.firstValue(option) < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(this.values.valueOf(this.values.firstValue(option), this.arguments));
+    }
+
+    @Override
+    public List<String> getParameterList(String id) {
+        int option = this.options.indexOfId(id);
+        if (option < 0 || this.values.firstValue(option) < 0) {
+            return Collections.emptyList();
+        }
+        List<String> list = new ArrayList<>(this.values.valueCount(option));
+        for (int value = this.values.firstValue(option); value >= 0; value = this.values.nextValue(value)) {
+            list.add(this.values.valueOf(value, this.arguments));
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    @Override
+    public <T> Optional<T> getParameterValueAsType(Class<T> type, String id) {
+        if (Properties.class.equals(type)) {
+            // a new properties object for each call as it is mutable
+            List<String> pairs = this.getParameterList(id);
+            return pairs.isEmpty() ? Optional.empty() : Optional.of(type.cast(toProperties(pairs)));
+        }
+        return this.convertedValues.getValue(type, id, this::getParameterValue);
+    }
+
+    @Override
+    public <T> List<T> getParameterListAsType(Class<T> elementType, String id) {
+        return this.convertedValues.getList(elementType, id, this::getParameterList);
+    }
+
+    private static Properties toProperties(List<String> pairs) {
+        Properties properties = new Properties();
+        for (String pair : pairs) {
+            int separator = pair.indexOf('=');
+            if (separator < 0) {
+                properties.setProperty(pair, "true");
+            } else {
+                properties.setProperty(pair.substring(0, separator), pair.substring(separator + 1));
+            }
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.leanclisupport;
+
+import io.github.fthardy.progrunnerkit.cliapi.CommandLine;
+import io.github.fthardy.progrunnerkit.cliapi.CommandLineParseException;
+import io.github.fthardy.progrunnerkit.cliapi.CommandLineParser;
+import io.github.fthardy.progrunnerkit.cliapi.ValueConverterRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A command line parser without any dependency beyond the CLI API.
+ * <p>
+ * The option definitions are compiled once into an immutable lookup structure, so an instance can be shared by any number of threads. Parsing an argument
+ * array needs only a few small arrays: the values of the options are recorded as positions within the arguments and materialized as strings only when they
+ * are accessed.
+ * </p>
+ * <p>
+ * The syntax follows the common conventions:
+ * </p>
+ * <ul>
+ *     <li>{@code --name} sets a switch, {@code --name value} or {@code --name=value} gives a value.</li>
+ *     <li>{@code -n} sets a switch, {@code -n value} or {@code -nvalue} gives a value. Single character switches can be combined, e.g. {@code -abc}.
+ *     A short name may have more than one character; it is matched as a whole before combined switches are considered.</li>
+ *     <li>The first argument which is not an option - i.e. which doesn't start with a dash, is a single dash or a negative number - ends the options. It
+ *     and all following arguments are the {@link CommandLine#getUnparsedArguments() unparsed arguments}.</li>
+ *     <li>{@code --} ends the options as well. The arguments following it are the unparsed arguments.</li>
+ * </ul>
+ */
+public final class LeanCommandLineParser implements CommandLineParser {
+
+    private final CompiledOptions options;
+    private final ValueConverterRegistry converterRegistry;
+
+    /**
+     * Creates a new instance of this parser. The typed values of the parsed command lines are converted with the
+     * {@link ValueConverterRegistry#getDefault() default registry}.
+     *
+     * @param definitions the option definitions.
+     *
+     * @throws IllegalArgumentException when an option name is defined more than once.
+     */
+    public LeanCommandLineParser(Collection<OptionDefinition> definitions) {
+        this(definitions, ValueConverterRegistry.getDefault());
+    }
+
+    /**
+     * Creates a new instance of this parser.
+     *
+     * @param definitions the option definitions.
+     * @param converterRegistry the registry with the converters for the typed values of the parsed command lines.
+     *
+     * @throws IllegalArgumentException when an option name is defined more than once.
+     */
+    public LeanCommandLineParser(Collection<OptionDefinition> definitions, ValueConverterRegistry converterRegistry) {
+        this.options = new CompiledOptions(new ArrayList<>(definitions));
+        this.converterRegistry = Objects.requireNonNull(converterRegistry);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The arguments are copied.
+     * </p>
+     */
+    @Override
+    public CommandLine parseArguments(String[] arguments) throws CommandLineParseException {
+        return this.parse(Arrays.asList(Objects.requireNonNull(arguments).clone()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The arguments are not copied but referenced by the command line, so the list must not be changed afterwards. An argument is only accessed if it might
+     * be an option or an option value: the unparsed arguments of a lazy list - e.g. from an argument file - are not materialized by parsing.
+     * </p>
+     */
+    @Override
+    public CommandLine parseArguments(List<String> arguments) throws CommandLineParseException {
+        return this.parse(Objects.requireNonNull(arguments));
+    }
+
+    private CommandLine parse(List<String> args) {
+        OptionValues values = new OptionValues(this.options.size());
+        int index = 0;
+        while (index < args.size()) {
+            String argument = Objects.requireNonNull(args.get(index), "An argument cannot be null!");
+            if (argument.length() < 2 || argument.charAt(0) != '-') {
+                break;
+            }
+            if (argument.charAt(1) == '-') {
+                if (argument.length() == 2) {
+                    index++;
+                    break;
+                }
+                index = this.parseLongOption(args, index, values);
+            } else {
+                int option = this.options.indexOfShortName(argument, 1, argument.length());
+                if (option < 0 && Character.isDigit(argument.charAt(1))) {
+                    break;
+                }
+                index = option >= 0 ? this.parseOption(args, index, option, -1, values) : this.parseCombinedShortOptions(args, index, values);
+            }
+        }
+        return new LeanCommandLine(args, index, this.options, values, this.converterRegistry);
+    }
+
+    private int parseLongOption(List<String> args, int index, OptionValues values) {
+        String argument = args.get(index);
+        int separator = argument.indexOf('=', 2);
+        int option = this.options.indexOfLongName(argument, 2, separator < 0 ? argument.length() : separator);
+        if (option < 0) {
+            throw unknownOption(argument);
+        }
+        return this.parseOption(args, index, option, separator < 0 ? -1 : separator + 1, values);
+    }
+
+    private int parseCombinedShortOptions(List<String> args, int index, OptionValues values) {
+        String argument = args.get(index);
+        for (int position = 1; position < argument.length(); position++) {
+            int option = this.options.indexOfShortName(argument, position, position + 1);
+            if (option < 0) {
+                throw unknownOption(position == 1 ? argument : "-" + argument.charAt(position) + " in " + argument);
+            }
+            if (this.options.isValueRequired(option)) {
+                // the rest of the argument is the value
+                return this.parseOption(args, index, option, position + 1 < argument.length() ? position + 1 : -1, values);
+            }
+            values.addOccurrence(option);
+        }
+        return index + 1;
+    }
+
+    /**
+     * Records an option and its value.
+     *
+     * @param valueOffset the offset of the value within the current argument or -1 if the value (if required) is the next argument.
+     *
+     * @return the index of the next argument to parse.
+     */
+    private int parseOption(List<String> args, int index, int option, int valueOffset, OptionValues values) {
+        if (!this.options.isValueRequired(option)) {
+            if (valueOffset >= 0) {
+                throw new CommandLineParseException("The option " + args.get(index).substring(0, valueOffset - 1) + " doesn't take a value!");
+            }
+            values.addOccurrence(option);
+            return index + 1;
+        }
+        if (valueOffset >= 0) {
+            values.addValue(option, index, valueOffset);
+            return index + 1;
+        }
+        if (index + 1 >= args.size()) {
+            throw new CommandLineParseException("Missing value for the option " + args.get(index) + "!");
+        }
+        values.addValue(option, index + 1, 0);
+        return index + 2;
+    }
+
+    private static CommandLineParseException unknownOption(String option) {
+        return new CommandLineParseException("Unrecognized option: " + option);
+    }
+}
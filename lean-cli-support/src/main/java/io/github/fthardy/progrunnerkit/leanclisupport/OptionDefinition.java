@@ -0,0 +1,105 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.leanclisupport;
+
+/**
+ * Defines an option of a command line for the {@link LeanCommandLineParser}.
+ * <p>
+ * An option has a short name, a long name or both. On the command line a short name is prefixed by a single dash (e.g. {@code -p}) and a long name by two
+ * dashes (e.g. {@code --port}). An option is either a switch or takes a value. An option taking a value may be given several times; all of its values are
+ * available as a {@link io.github.fthardy.progrunnerkit.cliapi.CommandLine#getParameterList(String) parameter list}.
+ * </p>
+ */
+public final class OptionDefinition {
+
+    private final String shortName;
+    private final String longName;
+    private final boolean valueRequired;
+
+    private OptionDefinition(String shortName, String longName, boolean valueRequired) {
+        if (shortName == null && longName == null) {
+            throw new IllegalArgumentException("An option needs a short name or a long name!");
+        }
+        checkName(shortName);
+        checkName(longName);
+        this.shortName = shortName;
+        this.longName = longName;
+        this.valueRequired = valueRequired;
+    }
+
+    private static void checkName(String name) {
+        if (name != null && (name.isEmpty() || name.startsWith("-") || name.indexOf('=') >= 0)) {
+            throw new IllegalArgumentException("Invalid option name: '" + name + "'");
+        }
+    }
+
+    /**
+     * Defines a switch.
+     *
+     * @param shortName the short name or {@code null}.
+     * @param longName the long name or {@code null}.
+     *
+     * @return the option definition.
+     *
+     * @throws IllegalArgumentException when both names are {@code null} or a name is empty, starts with a dash or contains an equals sign.
+     */
+    public static OptionDefinition flag(String shortName, String longName) {
+        return new OptionDefinition(shortName, longName, false);
+    }
+
+    /**
+     * Defines an option which takes a value.
+     *
+     * @param shortName the short name or {@code null}.
+     * @param longName the long name or {@code null}.
+     *
+     * @return the option definition.
+     *
+     * @throws IllegalArgumentException when both names are {@code null} or a name is empty, starts with a dash or contains an equals sign.
+     */
+    public static OptionDefinition withValue(String shortName, String longName) {
+        return new OptionDefinition(shortName, longName, true);
+    }
+
+    /**
+     * @return the short name or {@code null}.
+     */
+    public String getShortName() {
+        return this.shortName;
+    }
+
+    /**
+     * @return the long name or {@code null}.
+     */
+    public String getLongName() {
+        return this.longName;
+    }
+
+    /**
+     * @return {@code true} when the option takes a value.
+     */
+    public boolean isValueRequired() {
+        return this.valueRequired;
+    }
+}
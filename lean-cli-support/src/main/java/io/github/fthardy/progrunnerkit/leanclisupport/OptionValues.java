@@ -0,0 +1,111 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.leanclisupport;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records the occurrences and the values of the options while parsing.
+ * <p>
+ * A value is recorded as the index of the argument containing it and the offset of the value within this argument. The values of an option are chained by
+ * the index of the next value of the same option, so all values are kept in three flat arrays regardless of the number of options.
+ * </p>
+ */
+final class OptionValues {
+
+    private static final int NONE = -1;
+
+    private final int[] occurrences;
+    private final int[] firstValue;
+    private final int[] lastValue;
+
+    private int[] valueArgument = new int[8];
+    private int[] valueOffset = new int[8];
+    private int[] nextValue = new int[8];
+    private int valueCount;
+
+    OptionValues(int optionCount) {
+        this.occurrences = new int[optionCount];
+        this.firstValue = new int[optionCount];
+        this.lastValue = new int[optionCount];
+        Arrays.fill(this.firstValue, NONE);
+    }
+
+    void addOccurrence(int option) {
+        this.occurrences[option]++;
+    }
+
+    void addValue(int option, int argument, int offset) {
+        this.occurrences[option]++;
+        if (this.valueCount == this.valueArgument.length) {
+            int capacity = this.valueCount * 2;
+            this.valueArgument = Arrays.copyOf(this.valueArgument, capacity);
+            this.valueOffset = Arrays.copyOf(this.valueOffset, capacity);
+            this.nextValue = Arrays.copyOf(this.nextValue, capacity);
+        }
+        int value = this.valueCount++;
+        this.valueArgument[value] = argument;
+        this.valueOffset[value] = offset;
+        this.nextValue[value] = NONE;
+        if (this.firstValue[option] == NONE) {
+            this.firstValue[option] = value;
+        } else {
+            this.nextValue[this.lastValue[option]] = value;
+        }
+        this.lastValue[option] = value;
+    }
+
+    boolean isSet(int option) {
+        return this.occurrences[option] > 0;
+    }
+
+    int valueCount(int option) {
+        int count = 0;
+        for (int value = this.firstValue[option]; value != NONE; value = this.nextValue[value]) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return the index of the first value of the option or -1 if the option has no value.
+     */
+    int firstValue(int option) {
+        return this.firstValue[option];
+    }
+
+    /**
+     * @return the index of the value following the given value of the same option or -1 if there is none.
+     */
+    int nextValue(int value) {
+        return this.nextValue[value];
+    }
+
+    String valueOf(int value, List<String> arguments) {
+        String argument = arguments.get(this.valueArgument[value]);
+        int offset = this.valueOffset[value];
+        return offset == 0 ? argument : argument.substring(offset);
+    }
+}
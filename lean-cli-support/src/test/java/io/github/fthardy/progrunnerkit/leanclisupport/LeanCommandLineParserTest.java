@@ -0,0 +1,187 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.leanclisupport;
+
+import io.github.fthardy.progrunnerkit.cliapi.CommandLine;
+import io.github.fthardy.progrunnerkit.cliapi.CommandLineParseException;
+import io.github.fthardy.progrunnerkit.cliapi.CommandLineParser;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeanCommandLineParserTest {
+
+    private final CommandLineParser parser = new LeanCommandLineParser(Arrays.asList(
+            OptionDefinition.flag("v", "verbose"),
+            OptionDefinition.flag("q", null),
+            OptionDefinition.withValue("p", "port"),
+            OptionDefinition.withValue("D", null),
+            OptionDefinition.withValue("test", "timeout")));
+
+    @Test
+    void Switches_and_values_with_short_and_long_names() {
+
+        CommandLine commandLine = this.parser.parseArguments(new String[] {"--verbose", "-p", "8080", "--timeout=30s", "input.txt", "-q"});
+
+        assertTrue(commandLine.isSet("v"));
+        assertTrue(commandLine.isSet("verbose"));
+        assertFalse(commandLine.isSet("q"));
+        assertFalse(commandLine.isSet("unknown"));
+        assertFalse(commandLine.getParameterValue("v").isPresent());
+        assertThat(commandLine.getParameterValue("port")).contains("8080");
+        assertThat(commandLine.getParameterValueAsType(int.class, "p")).contains(8080);
+        assertThat(commandLine.getParameterValueAsType(Duration.class, "test")).contains(Duration.ofSeconds(30));
+        assertThat(commandLine.getUnparsedArguments()).containsExactly("input.txt", "-q");
+        assertThat(commandLine.getArguments()).hasSize(6);
+    }
+
+    @Test
+    void Combined_short_switches_with_attached_value() {
+
+        CommandLine commandLine = this.parser.parseArguments(new String[] {"-vqp8080"});
+
+        assertTrue(commandLine.isSet("verbose"));
+        assertTrue(commandLine.isSet("q"));
+        assertThat(commandLine.getParameterValue("p")).contains("8080");
+        assertTrue(commandLine.getUnparsedArguments().isEmpty());
+    }
+
+    @Test
+    void Multi_character_short_name() {
+
+        CommandLine commandLine = this.parser.parseArguments(new String[] {"-test", "5m"});
+
+        assertThat(commandLine.getParameterValueAsType(Duration.class, "timeout")).contains(Duration.ofMinutes(5));
+    }
+
+    @Test
+    void Repeated_values_and_properties() {
+
+        CommandLine commandLine = this.parser.parseArguments(new String[] {"-D", "foo=ping", "-Dbar=pong", "-D", "flag"});
+
+        assertThat(commandLine.getParameterList("D")).containsExactly("foo=ping", "bar=pong", "flag");
+        assertThat(commandLine.getParameterValue("D")).contains("foo=ping");
+
+        Properties properties = commandLine.getParameterValueAsType(Properties.class, "D").get();
+        assertThat(properties).hasSize(3);
+        assertEquals("ping", properties.getProperty("foo"));
+        assertEquals("pong", properties.getProperty("bar"));
+        assertEquals("true", properties.getProperty("flag"));
+    }
+
+    @Test
+    void End_of_options() {
+
+        assertThat(this.parser.parseArguments(new String[] {"-v", "--", "-q"}).getUnparsedArguments()).containsExactly("-q");
+        assertThat(this.parser.parseArguments(new String[] {"-", "-q"}).getUnparsedArguments()).containsExactly("-", "-q");
+        assertThat(this.parser.parseArguments(new String[] {"-v", "-5"}).getUnparsedArguments()).containsExactly("-5");
+        assertThat(this.parser.parseArguments(Collections.emptyList()).getUnparsedArguments()).isEmpty();
+    }
+
+    @Test
+    void Parse_errors() {
+
+        assertThrows(CommandLineParseException.class, () -> this.parser.parseArguments(new String[] {"--unknown"}));
+        assertThrows(CommandLineParseException.class, () -> this.parser.parseArguments(new String[] {"-vx"}));
+        assertThrows(CommandLineParseException.class, () -> this.parser.parseArguments(new String[] {"--port"}));
+        assertThrows(CommandLineParseException.class, () -> this.parser.parseArguments(new String[] {"--verbose=yes"}));
+    }
+
+    @Test
+    void Arguments_are_copied() {
+
+        String[] arguments = {"-p", "1"};
+        CommandLine commandLine = this.parser.parseArguments(arguments);
+        arguments[1] = "2";
+
+        assertThat(commandLine.getParameterValue("p")).contains("1");
+        assertThrows(UnsupportedOperationException.class, () -> commandLine.getArguments().set(0, "x"));
+    }
+
+    @Test
+    void Option_names_must_be_unique() {
+
+        assertThrows(IllegalArgumentException.class, () -> new LeanCommandLineParser(Arrays.asList(
+                OptionDefinition.flag("v", null), OptionDefinition.flag("v", "version"))));
+        assertThrows(IllegalArgumentException.class, () -> OptionDefinition.flag(null, null));
+        assertThrows(IllegalArgumentException.class, () -> OptionDefinition.flag("-v", null));
+    }
+
+    @Test
+    void Many_options_and_values() {
+
+        OptionDefinition[] definitions = new OptionDefinition[500];
+        for (int i = 0; i < definitions.length; i++) {
+            definitions[i] = OptionDefinition.withValue("o" + i, "option-" + i);
+        }
+        String[] arguments = new String[20000];
+        for (int i = 0; i < arguments.length; i += 2) {
+            arguments[i] = "--option-" + (i / 2 % definitions.length);
+            arguments[i + 1] = Integer.toString(i / 2);
+        }
+
+        CommandLine commandLine = new LeanCommandLineParser(Arrays.asList(definitions)).parseArguments(arguments);
+
+        assertThat(commandLine.getParameterListAsType(Integer.class, "o7")).hasSize(20).startsWith(7, 507, 1007);
+        assertTrue(commandLine.getUnparsedArguments().isEmpty());
+    }
+
+    @Test
+    void Unparsed_arguments_of_a_lazy_list_are_not_accessed_by_parsing() {
+
+        Set<Integer> accessedIndexes = new HashSet<>();
+        List<String> lazyArguments = new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                accessedIndexes.add(index);
+                return index == 0 ? "-p" : index == 1 ? "80" : "file-" + index;
+            }
+
+            @Override
+            public int size() {
+                return 1000;
+            }
+        };
+
+        CommandLine commandLine = this.parser.parseArguments(lazyArguments);
+
+        // the value of -p is not accessed before it is requested
+        assertThat(accessedIndexes).containsOnly(0, 2);
+        assertThat(commandLine.getParameterValue("p")).contains("80");
+        assertEquals(998, commandLine.getUnparsedArguments().size());
+        assertThat(commandLine.streamUnparsedArguments().limit(2).collect(Collectors.toList())).containsExactly("file-2", "file-3");
+        assertThat(accessedIndexes).hasSize(4);
+    }
+}
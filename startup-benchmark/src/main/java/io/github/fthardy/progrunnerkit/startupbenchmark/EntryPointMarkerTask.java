@@ -20,26 +20,26 @@ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
 LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
 OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
 SOFTWARE.
-*/
-package io.github.fthardy.progrunnerkit.demo;
+ */
+package io.github.fthardy.progrunnerkit.startupbenchmark;
 
-import io.github.fthardy.progrunnerkit.cdi.deltaspike.DefaultDeltaSpikeCdiApplicationScopeStartTask;
-import io.github.fthardy.progrunnerkit.cliapi.CommandLineProvider;
 import io.github.fthardy.progrunnerkit.core.Prioritized;
 import io.github.fthardy.progrunnerkit.core.StartPhaseTask;
-import org.apache.deltaspike.core.api.provider.BeanProvider;
 
 import java.util.List;
 
-public class CommandLineArgumentParsingTask implements Prioritized, StartPhaseTask {
-    
+/**
+ * Represents the application entry point of a synthetic application which does not boot a CDI container. It is the last task of the start phase.
+ */
+public class EntryPointMarkerTask implements Prioritized, StartPhaseTask {
+
     @Override
     public int getPriority() {
-        return DefaultDeltaSpikeCdiApplicationScopeStartTask.DEFAULT_PRIORITY + 100;
+        return Integer.MAX_VALUE - 1;
     }
 
     @Override
     public void run(List<String> arguments) {
-        BeanProvider.getContextualReference(CommandLineProvider.class).parseCommandLineFrom(arguments);
+        StartupMarkers.emit(StartupMarkers.ENTRY_POINT);
     }
 }
@@ -0,0 +1,137 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.startupbenchmark;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The stored baseline of the startup benchmark.
+ * <p>
+ * The baseline is a properties file with a key of the form {@code <scenario>.<metric>.p<percentile>} and the time in microseconds as value for each
+ * percentile. Only the 50th and the 90th percentile are checked for regressions because the 99th percentile of a few launches is dominated by noise.
+ * </p>
+ */
+final class StartupBaseline {
+
+    private static final int[] CHECKED_PERCENTILES = {50, 90};
+
+    private final Path file;
+    private final Properties values = new Properties();
+
+    /**
+     * Loads the baseline from the given file. When the file doesn't exist the baseline is empty.
+     *
+     * @param file the baseline file.
+     *
+     * @throws IOException when reading the file fails.
+     */
+    StartupBaseline(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                this.values.load(reader);
+            }
+        }
+    }
+
+    /**
+     * @param scenario the name of the scenario.
+     *
+     * @return {@code true} when the baseline has all checked values of the given scenario.
+     */
+    boolean contains(String scenario) {
+        for (StartupStatistics.Metric metric : StartupStatistics.Metric.values()) {
+            for (int percentile : CHECKED_PERCENTILES) {
+                if (this.values.getProperty(key(scenario, metric, percentile)) == null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the statistics of a scenario with the baseline.
+     *
+     * @param scenario the name of the scenario.
+     * @param statistics the measured statistics.
+     * @param tolerance the allowed relative regression.
+     *
+     * @return a description for each regression. Empty when there is no regression or no baseline for the scenario.
+     */
+    List<String> findRegressions(String scenario, StartupStatistics statistics, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (StartupStatistics.Metric metric : StartupStatistics.Metric.values()) {
+            for (int percentile : CHECKED_PERCENTILES) {
+                String baselineValue = this.values.getProperty(key(scenario, metric, percentile));
+                if (baselineValue != null) {
+                    long baseline = Long.parseLong(baselineValue);
+                    long measured = statistics.percentile(metric, percentile);
+                    if (measured > baseline * (1.0 + tolerance)) {
+                        regressions.add(String.format("%s %s p%d: %.1f ms exceeds the baseline of %.1f ms by more than %.0f%%",
+                                scenario, metric.getKey(), percentile, measured / 1000.0, baseline / 1000.0, tolerance * 100));
+                    }
+                }
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Replaces the baseline values of a scenario by the given statistics.
+     *
+     * @param scenario the name of the scenario.
+     * @param statistics the measured statistics.
+     */
+    void update(String scenario, StartupStatistics statistics) {
+        for (StartupStatistics.Metric metric : StartupStatistics.Metric.values()) {
+            for (int percentile : StartupStatistics.PERCENTILES) {
+                this.values.setProperty(key(scenario, metric, percentile), Long.toString(statistics.percentile(metric, percentile)));
+            }
+        }
+    }
+
+    /**
+     * Writes the baseline back to its file.
+     *
+     * @throws IOException when writing the file fails.
+     */
+    void store() throws IOException {
+        try (Writer writer = Files.newBufferedWriter(this.file, StandardCharsets.UTF_8)) {
+            this.values.store(writer, "Startup benchmark baseline - times in microseconds");
+        }
+    }
+
+    private static String key(String scenario, StartupStatistics.Metric metric, int percentile) {
+        return scenario + "." + metric.getKey() + ".p" + percentile;
+    }
+}
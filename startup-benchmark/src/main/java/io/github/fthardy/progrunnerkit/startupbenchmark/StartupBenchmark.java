@@ -0,0 +1,254 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.startupbenchmark;
+
+import io.github.fthardy.progrunnerkit.core.Main;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The main routine of the startup benchmark suite.
+ * <p>
+ * For each scenario a {@link SyntheticApplication} is generated and launched in a fresh JVM with {@link Main} as main class. The launches are timed from the
+ * moment before the process is started until the markers written by the application and until the process has ended. The percentiles of the times are
+ * printed and compared with the {@link StartupBaseline stored baseline}. The JVM exits with status 1 when a regression has been found and with status 2
+ * when the baseline has no values for a scenario, so a missing or incomplete baseline file doesn't let the comparison pass unnoticed.
+ * </p>
+ *
+ * @see SyntheticApplication
+ * @see StartupStatistics
+ */
+public final class StartupBenchmark {
+
+    private Path workDir = Paths.get("build", "startup-benchmark");
+    private Path baselineFile = Paths.get("baseline.properties");
+    private int[] startPhaseTasks = {1, 10, 100, 1000, 5000};
+    private int[] endPhaseTasks;
+    private String profile = "none";
+    private SyntheticApplication.Injection injection = SyntheticApplication.Injection.NONE;
+    private SyntheticApplication.Discovery discovery = SyntheticApplication.Discovery.ANNOTATED;
+    private int runs = 20;
+    private int warmupRuns = 2;
+    private double tolerance = 0.15;
+    private boolean updateBaseline;
+    private final List<String> jvmArguments = new ArrayList<>();
+
+    /**
+     * Runs the benchmark suite.
+     *
+     * @param args the arguments of the suite as described in the README of this module.
+     *
+     * @throws Exception when the suite fails.
+     */
+    public static void main(String[] args) throws Exception {
+        StartupBenchmark benchmark = new StartupBenchmark(args);
+        int exitStatus = benchmark.run();
+        if (exitStatus != 0) {
+            System.exit(exitStatus);
+        }
+    }
+
+    private StartupBenchmark(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--work-dir":
+                    this.workDir = Paths.get(requireValue(args[i], value));
+                    i++;
+                    break;
+                case "--baseline":
+                    this.baselineFile = Paths.get(requireValue(args[i], value));
+                    i++;
+                    break;
+                case "--tasks":
+                    this.startPhaseTasks = parseNumbers(requireValue(args[i], value));
+                    i++;
+                    break;
+                case "--end-tasks":
+                    this.endPhaseTasks = parseNumbers(requireValue(args[i], value));
+                    i++;
+                    break;
+                case "--profile":
+                    SyntheticWorkload.parse(requireValue(args[i], value)); // fails early for an unsupported profile
+                    this.profile = value;
+                    i++;
+                    break;
+                case "--di":
+                    this.injection = SyntheticApplication.Injection.valueOf(requireValue(args[i], value).toUpperCase(Locale.ROOT));
+                    i++;
+                    break;
+                case "--discovery":
+                    this.discovery = SyntheticApplication.Discovery.valueOf(requireValue(args[i], value).toUpperCase(Locale.ROOT));
+                    i++;
+                    break;
+                case "--runs":
+                    this.runs = Integer.parseInt(requireValue(args[i], value));
+                    i++;
+                    break;
+                case "--warmup":
+                    this.warmupRuns = Integer.parseInt(requireValue(args[i], value));
+                    i++;
+                    break;
+                case "--tolerance":
+                    this.tolerance = Double.parseDouble(requireValue(args[i], value));
+                    i++;
+                    break;
+                case "--jvm-arg":
+                    this.jvmArguments.add(requireValue(args[i], value));
+                    i++;
+                    break;
+                case "--update-baseline":
+                    this.updateBaseline = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        if (this.endPhaseTasks == null) {
+            this.endPhaseTasks = this.startPhaseTasks;
+        } else if (this.endPhaseTasks.length != this.startPhaseTasks.length) {
+            throw new IllegalArgumentException("--end-tasks must have as many entries as --tasks!");
+        }
+        if (this.runs < 1) {
+            throw new IllegalArgumentException("At least one run is required!");
+        }
+    }
+
+    private int run() throws IOException, InterruptedException {
+        StartupBaseline baseline = new StartupBaseline(this.baselineFile);
+        List<String> regressions = new ArrayList<>();
+        List<String> scenariosWithoutBaseline = new ArrayList<>();
+
+        System.out.printf("%-48s %-12s %10s %10s %10s%n", "scenario", "metric", "p50 [ms]", "p90 [ms]", "p99 [ms]");
+        for (int i = 0; i < this.startPhaseTasks.length; i++) {
+            SyntheticApplication application = new SyntheticApplication(this.startPhaseTasks[i], this.endPhaseTasks[i], this.injection, this.discovery);
+            String scenario = application.getName() + ".profile-" + this.profile.replace(':', '-');
+            Path classesDir = application.generate(this.workDir);
+
+            for (int run = 0; run < this.warmupRuns; run++) {
+                this.launch(application, classesDir, null);
+            }
+            StartupStatistics statistics = new StartupStatistics(this.runs);
+            for (int run = 0; run < this.runs; run++) {
+                this.launch(application, classesDir, statistics);
+            }
+
+            for (StartupStatistics.Metric metric : StartupStatistics.Metric.values()) {
+                System.out.printf("%-48s %-12s %10.1f %10.1f %10.1f%n", scenario, metric.getKey(),
+                        statistics.percentile(metric, 50) / 1000.0, statistics.percentile(metric, 90) / 1000.0, statistics.percentile(metric, 99) / 1000.0);
+            }
+
+            if (this.updateBaseline) {
+                baseline.update(scenario, statistics);
+            } else if (baseline.contains(scenario)) {
+                regressions.addAll(baseline.findRegressions(scenario, statistics, this.tolerance));
+            } else {
+                scenariosWithoutBaseline.add(scenario);
+            }
+        }
+
+        if (this.updateBaseline) {
+            baseline.store();
+            System.out.println("Baseline written to " + this.baselineFile);
+            return 0;
+        }
+        if (!regressions.isEmpty()) {
+            System.out.println();
+            System.out.println("Startup regressions found:");
+            regressions.forEach(regression -> System.out.println("  " + regression));
+            return 1;
+        }
+        if (!scenariosWithoutBaseline.isEmpty()) {
+            System.out.println();
+            System.out.println("No baseline at " + this.baselineFile + " for the following scenarios - record one with --update-baseline:");
+            scenariosWithoutBaseline.forEach(scenario -> System.out.println("  " + scenario));
+            return 2;
+        }
+        return 0;
+    }
+
+    private void launch(SyntheticApplication application, Path classesDir, StartupStatistics statistics) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(this.jvmArguments);
+        command.addAll(application.getSystemProperties());
+        command.add("-D" + SyntheticWorkload.PROFILE_PROPERTY + "=" + this.profile);
+        command.add("-cp");
+        command.add(classesDir + File.pathSeparator + System.getProperty("java.class.path"));
+        command.add(Main.class.getName());
+
+        ProcessBuilder processBuilder = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT);
+
+        long firstTask = -1;
+        long entryPoint = -1;
+        long launched = StartupMarkers.epochMicros();
+        Process process = processBuilder.start();
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line = output.readLine(); line != null; line = output.readLine()) {
+                String[] marker = StartupMarkers.parse(line);
+                if (marker != null && StartupMarkers.FIRST_TASK.equals(marker[0])) {
+                    firstTask = Long.parseLong(marker[1]) - launched;
+                } else if (marker != null && StartupMarkers.ENTRY_POINT.equals(marker[0])) {
+                    entryPoint = Long.parseLong(marker[1]) - launched;
+                }
+            }
+        }
+        int exitStatus = process.waitFor();
+        long total = StartupMarkers.epochMicros() - launched;
+
+        if (exitStatus != 0 || firstTask < 0 || entryPoint < 0) {
+            throw new IllegalStateException(String.format(
+                    "The synthetic application in %s failed (exit status %d, first task marker %s, entry point marker %s)!",
+                    classesDir, exitStatus, firstTask >= 0 ? "found" : "missing", entryPoint >= 0 ? "found" : "missing"));
+        }
+        if (statistics != null) {
+            statistics.add(firstTask, entryPoint, total);
+        }
+    }
+
+    private static String requireValue(String argument, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing value for " + argument);
+        }
+        return value;
+    }
+
+    private static int[] parseNumbers(String value) {
+        String[] parts = value.split(",");
+        int[] numbers = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            numbers[i] = Integer.parseInt(parts[i].trim());
+        }
+        return numbers;
+    }
+}
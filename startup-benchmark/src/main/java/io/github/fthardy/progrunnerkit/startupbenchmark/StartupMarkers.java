@@ -0,0 +1,80 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.startupbenchmark;
+
+import java.time.Instant;
+
+/**
+ * Emits and recognises the timestamp markers which a synthetic application writes to {@code System.out}.
+ * <p>
+ * A marker line has the form {@code ##startup-benchmark <marker> <epoch-micros>}. The timestamps are taken from the wall clock because they are compared with
+ * the launch time taken by another JVM.
+ * </p>
+ */
+final class StartupMarkers {
+
+    static final String FIRST_TASK = "first-task";
+    static final String ENTRY_POINT = "entry-point";
+
+    private static final String PREFIX = "##startup-benchmark ";
+
+    /**
+     * Writes a marker line with the current time.
+     *
+     * @param marker the marker name.
+     */
+    static void emit(String marker) {
+        long now = epochMicros();
+        System.out.println(PREFIX + marker + " " + now);
+        System.out.flush();
+    }
+
+    /**
+     * @return the current wall clock time in microseconds since the epoch.
+     */
+    static long epochMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000L;
+    }
+
+    /**
+     * Parses a line of the output of a synthetic application.
+     *
+     * @param line the output line.
+     *
+     * @return the marker name and the timestamp or {@code null} if the line is not a marker line.
+     */
+    static String[] parse(String line) {
+        if (!line.startsWith(PREFIX)) {
+            return null;
+        }
+        String[] parts = line.substring(PREFIX.length()).trim().split(" ");
+        return parts.length == 2 ? parts : null;
+    }
+
+    // No instances
+    private StartupMarkers() {
+        // intentionally empty
+    }
+}
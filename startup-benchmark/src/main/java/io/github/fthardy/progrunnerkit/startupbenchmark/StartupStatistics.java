@@ -0,0 +1,99 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.startupbenchmark;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Collects the measured times of the launches of one scenario and computes their percentiles.
+ */
+final class StartupStatistics {
+
+    /**
+     * The measured times.
+     */
+    enum Metric {
+        FIRST_TASK("first-task"), ENTRY_POINT("entry-point"), TOTAL("total");
+
+        private final String key;
+
+        Metric(String key) {
+            this.key = key;
+        }
+
+        String getKey() {
+            return this.key;
+        }
+    }
+
+    /**
+     * The reported percentiles.
+     */
+    static final int[] PERCENTILES = {50, 90, 99};
+
+    private final Map<Metric, long[]> samples = new EnumMap<>(Metric.class);
+    private int size;
+
+    StartupStatistics(int capacity) {
+        for (Metric metric : Metric.values()) {
+            this.samples.put(metric, new long[capacity]);
+        }
+    }
+
+    /**
+     * Adds the times of one launch.
+     *
+     * @param firstTaskMicros the time until the first task in microseconds.
+     * @param entryPointMicros the time until the entry point in microseconds.
+     * @param totalMicros the total runtime in microseconds.
+     */
+    void add(long firstTaskMicros, long entryPointMicros, long totalMicros) {
+        this.samples.get(Metric.FIRST_TASK)[this.size] = firstTaskMicros;
+        this.samples.get(Metric.ENTRY_POINT)[this.size] = entryPointMicros;
+        this.samples.get(Metric.TOTAL)[this.size] = totalMicros;
+        this.size++;
+    }
+
+    /**
+     * Computes a percentile by the nearest rank method.
+     *
+     * @param metric the metric.
+     * @param percentile the percentile between 1 and 100.
+     *
+     * @return the value of the percentile in microseconds.
+     *
+     * @throws IllegalStateException when no samples have been added.
+     */
+    long percentile(Metric metric, int percentile) {
+        if (this.size == 0) {
+            throw new IllegalStateException("No samples available!");
+        }
+        long[] sorted = Arrays.copyOf(this.samples.get(metric), this.size);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+}
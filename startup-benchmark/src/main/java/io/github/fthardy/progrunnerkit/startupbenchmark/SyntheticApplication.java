@@ -0,0 +1,252 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.startupbenchmark;
+
+import io.github.fthardy.progrunnerkit.cdi.deltaspike.DefaultDeltaSpikeCdiApplicationScopeStartTask;
+import io.github.fthardy.progrunnerkit.cdi.deltaspike.DefaultDeltaSpikeCdiApplicationScopeStopTask;
+import io.github.fthardy.progrunnerkit.cdi.deltaspike.DefaultDeltaSpikeCdiApplicationStarterTask;
+import io.github.fthardy.progrunnerkit.cdi.deltaspike.DefaultDeltaSpikeCdiContainerBootTask;
+import io.github.fthardy.progrunnerkit.cdi.deltaspike.DefaultDeltaSpikeCdiContainerShutdownTask;
+import io.github.fthardy.progrunnerkit.core.EndPhaseTask;
+import io.github.fthardy.progrunnerkit.core.StartPhaseController;
+import io.github.fthardy.progrunnerkit.core.StartPhaseTask;
+import io.github.fthardy.progrunnerkit.guicebasedinjection.InitialGuiceInjectorStarterTask;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.jandex.Indexer;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Generates a synthetic application with a given number of start and end phase tasks.
+ * <p>
+ * Each task is a class of its own so that loading and instantiating the tasks costs what it costs for a real application. The classes are compiled with the
+ * system Java compiler into a classes directory together with the service configuration files for the main routine of the core module. Generated applications
+ * are kept in the working directory and reused by subsequent runs.
+ * </p>
+ */
+final class SyntheticApplication {
+
+    /**
+     * The dependency injection container which is booted by a synthetic application.
+     */
+    enum Injection {
+        NONE, GUICE, CDI
+    }
+
+    /**
+     * How the CDI container discovers the beans of a synthetic application. Only relevant when the application boots {@link Injection#CDI}.
+     */
+    enum Discovery {
+        /**
+         * Every class of the application is a bean and the class files are scanned at each boot.
+         */
+        ALL,
+        /**
+         * Only classes with a bean defining annotation are beans and the class files are scanned at each boot.
+         */
+        ANNOTATED,
+        /**
+         * Only classes with a bean defining annotation are beans and the container reads them from the Jandex index which is generated with the
+         * application.
+         */
+        INDEXED
+    }
+
+    /**
+     * The Weld property which disables the discovery with Jandex although it is on the class path of the launched JVM.
+     */
+    static final String DISABLE_JANDEX_DISCOVERY_PROPERTY = "org.jboss.weld.discovery.disableJandexDiscovery";
+
+    private static final String GENERATED_PACKAGE = SyntheticApplication.class.getPackage().getName() + ".generated";
+
+    private static final String BEANS_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<beans xmlns=\"http://xmlns.jcp.org/xml/ns/javaee\" version=\"2.0\" bean-discovery-mode=\"%s\">\n</beans>\n";
+
+    private final int startPhaseTasks;
+    private final int endPhaseTasks;
+    private final Injection injection;
+    private final Discovery discovery;
+
+    /**
+     * Creates a new instance of this application definition.
+     *
+     * @param startPhaseTasks the number of start phase tasks.
+     * @param endPhaseTasks the number of end phase tasks.
+     * @param injection the dependency injection container to boot.
+     * @param discovery the bean discovery of the CDI container.
+     */
+    SyntheticApplication(int startPhaseTasks, int endPhaseTasks, Injection injection, Discovery discovery) {
+        if (startPhaseTasks < 1 || endPhaseTasks < 0) {
+            throw new IllegalArgumentException("At least one start phase task is required and the number of end phase tasks must not be negative!");
+        }
+        this.startPhaseTasks = startPhaseTasks;
+        this.endPhaseTasks = endPhaseTasks;
+        this.injection = Objects.requireNonNull(injection);
+        this.discovery = Objects.requireNonNull(discovery);
+    }
+
+    /**
+     * @return the name of the application which identifies its scenario.
+     */
+    String getName() {
+        String name = String.format("start-%d.end-%d.di-%s", this.startPhaseTasks, this.endPhaseTasks, this.injection.name().toLowerCase(Locale.ROOT));
+        // the default discovery is left out so that the names of the scenarios in existing baselines stay valid
+        return this.injection == Injection.CDI && this.discovery != Discovery.ANNOTATED
+                ? name + ".discovery-" + this.discovery.name().toLowerCase(Locale.ROOT) : name;
+    }
+
+    /**
+     * @return the system properties to pass to the JVM which runs the application.
+     */
+    List<String> getSystemProperties() {
+        // without an index Weld would build one by reading every class file with Jandex which is slower than its plain scanning
+        return this.injection == Injection.CDI && this.discovery != Discovery.INDEXED
+                ? Collections.singletonList("-D" + DISABLE_JANDEX_DISCOVERY_PROPERTY + "=true") : Collections.emptyList();
+    }
+
+    /**
+     * Generates the application unless it has already been generated.
+     *
+     * @param workDir the working directory.
+     *
+     * @return the classes directory of the application.
+     *
+     * @throws IOException when writing the files fails.
+     * @throws IllegalStateException when no system Java compiler is available or the compilation fails.
+     */
+    Path generate(Path workDir) throws IOException {
+        Path appDir = workDir.resolve(this.getName());
+        Path classesDir = appDir.resolve("classes");
+        Path completeMarker = appDir.resolve(".complete");
+        if (Files.exists(completeMarker)) {
+            return classesDir;
+        }
+
+        Path sourceDir = appDir.resolve("src");
+        Path packageDir = sourceDir.resolve(GENERATED_PACKAGE.replace('.', File.separatorChar));
+        Files.createDirectories(packageDir);
+        Files.createDirectories(classesDir.resolve("META-INF/services"));
+
+        List<File> sourceFiles = new ArrayList<>();
+        List<String> startPhaseTaskNames = new ArrayList<>();
+        List<String> endPhaseTaskNames = new ArrayList<>();
+        for (int i = 1; i <= this.startPhaseTasks; i++) {
+            startPhaseTaskNames.add(writeSource(packageDir, String.format("StartTask%05d", i), "", SyntheticStartPhaseTask.class, sourceFiles));
+        }
+        for (int i = 1; i <= this.endPhaseTasks; i++) {
+            endPhaseTaskNames.add(writeSource(packageDir, String.format("EndTask%05d", i), "", SyntheticEndPhaseTask.class, sourceFiles));
+        }
+        if (this.injection == Injection.CDI) {
+            writeSource(packageDir, "CdiEntryPoint", "@javax.enterprise.context.ApplicationScoped\n", CdiEntryPointMarker.class, sourceFiles);
+            String discoveryMode = this.discovery == Discovery.ALL ? "all" : "annotated";
+            Files.write(classesDir.resolve("META-INF/beans.xml"), String.format(BEANS_XML, discoveryMode).getBytes(StandardCharsets.UTF_8));
+        }
+        compile(sourceFiles, classesDir);
+        if (this.injection == Injection.CDI && this.discovery == Discovery.INDEXED) {
+            writeIndex(classesDir);
+        }
+
+        switch (this.injection) {
+            case CDI:
+                startPhaseTaskNames.add(DefaultDeltaSpikeCdiContainerBootTask.class.getName());
+                startPhaseTaskNames.add(DefaultDeltaSpikeCdiApplicationScopeStartTask.class.getName());
+                startPhaseTaskNames.add(DefaultDeltaSpikeCdiApplicationStarterTask.class.getName());
+                endPhaseTaskNames.add(DefaultDeltaSpikeCdiApplicationScopeStopTask.class.getName());
+                endPhaseTaskNames.add(DefaultDeltaSpikeCdiContainerShutdownTask.class.getName());
+                break;
+            case GUICE:
+                startPhaseTaskNames.add(InitialGuiceInjectorStarterTask.class.getName());
+                startPhaseTaskNames.add(EntryPointMarkerTask.class.getName());
+                break;
+            default:
+                startPhaseTaskNames.add(EntryPointMarkerTask.class.getName());
+        }
+        writeServiceFile(classesDir, StartPhaseTask.class, startPhaseTaskNames);
+        writeServiceFile(classesDir, EndPhaseTask.class, endPhaseTaskNames);
+        writeServiceFile(classesDir, StartPhaseController.class, Arrays.asList(FirstTaskMarkerController.class.getName()));
+
+        Files.createFile(completeMarker);
+        return classesDir;
+    }
+
+    private static String writeSource(Path packageDir, String simpleName, String annotations, Class<?> baseClass, List<File> sourceFiles)
+            throws IOException {
+        Path sourceFile = packageDir.resolve(simpleName + ".java");
+        String source = "package " + GENERATED_PACKAGE + ";\n\n" + annotations + "public class " + simpleName + " extends " + baseClass.getName() + " {\n}\n";
+        Files.write(sourceFile, source.getBytes(StandardCharsets.UTF_8));
+        sourceFiles.add(sourceFile.toFile());
+        return GENERATED_PACKAGE + "." + simpleName;
+    }
+
+    private static void compile(List<File> sourceFiles, Path classesDir) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No system Java compiler available! The startup benchmark must be run with a JDK.");
+        }
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            List<String> options = Arrays.asList(
+                    "-classpath", System.getProperty("java.class.path"), "-d", classesDir.toString(), "-proc:none", "-nowarn");
+            if (!compiler.getTask(null, fileManager, null, options, null, fileManager.getJavaFileObjectsFromFiles(sourceFiles)).call()) {
+                throw new IllegalStateException("Failed to compile the synthetic application in " + classesDir);
+            }
+        }
+    }
+
+    private static void writeIndex(Path classesDir) throws IOException {
+        Indexer indexer = new Indexer();
+        List<Path> classFiles;
+        try (Stream<Path> files = Files.walk(classesDir)) {
+            classFiles = files.filter(file -> file.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+        }
+        for (Path classFile : classFiles) {
+            try (InputStream in = Files.newInputStream(classFile)) {
+                indexer.index(in);
+            }
+        }
+        try (OutputStream out = Files.newOutputStream(classesDir.resolve("META-INF/jandex.idx"))) {
+            new IndexWriter(out).write(indexer.complete());
+        }
+    }
+
+    private static void writeServiceFile(Path classesDir, Class<?> serviceType, List<String> implementationNames) throws IOException {
+        Files.write(classesDir.resolve("META-INF/services/" + serviceType.getName()), implementationNames, StandardCharsets.UTF_8);
+    }
+}
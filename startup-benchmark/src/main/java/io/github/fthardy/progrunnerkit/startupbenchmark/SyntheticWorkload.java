@@ -0,0 +1,108 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.startupbenchmark;
+
+/**
+ * The work which is done by each task of a synthetic application.
+ * <p>
+ * The workload is defined by the system property {@value PROFILE_PROPERTY} of the forked JVM. Supported profiles are {@code none}, {@code sleep:<millis>},
+ * {@code cpu:<iterations>} and {@code alloc:<bytes>}.
+ * </p>
+ */
+final class SyntheticWorkload {
+
+    static final String PROFILE_PROPERTY = "startupbenchmark.profile";
+
+    private static final SyntheticWorkload _profile = parse(System.getProperty(PROFILE_PROPERTY, "none"));
+
+    // prevents the JIT from removing the work of the cpu and allocation profiles
+    private static volatile long _sink;
+
+    private final String kind;
+    private final long amount;
+
+    private SyntheticWorkload(String kind, long amount) {
+        this.kind = kind;
+        this.amount = amount;
+    }
+
+    /**
+     * Parses a profile definition.
+     *
+     * @param profile the profile definition.
+     *
+     * @return the workload.
+     *
+     * @throws IllegalArgumentException when the profile definition is not supported.
+     */
+    static SyntheticWorkload parse(String profile) {
+        if ("none".equals(profile)) {
+            return new SyntheticWorkload("none", 0);
+        }
+        int separator = profile.indexOf(':');
+        if (separator > 0) {
+            String kind = profile.substring(0, separator);
+            if ("sleep".equals(kind) || "cpu".equals(kind) || "alloc".equals(kind)) {
+                try {
+                    return new SyntheticWorkload(kind, Long.parseLong(profile.substring(separator + 1)));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid amount in profile: " + profile, e);
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported profile: " + profile);
+    }
+
+    /**
+     * Does the work of the profile defined for the current JVM.
+     */
+    static void perform() {
+        _profile.run();
+    }
+
+    private void run() {
+        switch (this.kind) {
+            case "sleep":
+                try {
+                    Thread.sleep(this.amount);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                break;
+            case "cpu":
+                long value = 17;
+                for (long i = 0; i < this.amount; i++) {
+                    value = value * 31 + i;
+                }
+                _sink = value;
+                break;
+            case "alloc":
+                byte[] bytes = new byte[(int) this.amount];
+                _sink = bytes.length;
+                break;
+            default:
+                // no work
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.startupbenchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupBaselineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void A_missing_baseline_file_is_an_empty_baseline() throws IOException {
+
+        StartupBaseline baseline = new StartupBaseline(this.tempDir.resolve("baseline.properties"));
+
+        assertFalse(baseline.contains("scenario"));
+        assertTrue(baseline.findRegressions("scenario", statistics(5000, 5000, 5000), 0.25).isEmpty());
+    }
+
+    @Test
+    public void A_stored_scenario_is_contained_after_loading() throws IOException {
+
+        StartupBaseline baseline = this.storedBaseline("scenario", statistics(1000, 2000, 3000));
+
+        assertTrue(baseline.contains("scenario"));
+        assertFalse(baseline.contains("other-scenario"));
+    }
+
+    @Test
+    public void A_time_at_the_tolerance_is_no_regression() throws IOException {
+
+        StartupBaseline baseline = this.storedBaseline("scenario", statistics(1000, 2000, 4000));
+
+        assertTrue(baseline.findRegressions("scenario", statistics(1250, 2500, 5000), 0.25).isEmpty());
+    }
+
+    @Test
+    public void A_time_beyond_the_tolerance_is_a_regression() throws IOException {
+
+        StartupBaseline baseline = this.storedBaseline("scenario", statistics(1000, 2000, 4000));
+
+        List<String> regressions = baseline.findRegressions("scenario", statistics(1251, 2500, 5000), 0.25);
+
+        assertEquals(2, regressions.size());
+        assertTrue(regressions.get(0).startsWith("scenario first-task p50:"));
+        assertTrue(regressions.get(1).startsWith("scenario first-task p90:"));
+    }
+
+    @Test
+    public void A_scenario_without_baseline_has_no_regressions() throws IOException {
+
+        StartupBaseline baseline = this.storedBaseline("scenario", statistics(1000, 2000, 4000));
+
+        assertTrue(baseline.findRegressions("other-scenario", statistics(9000, 9000, 9000), 0.25).isEmpty());
+    }
+
+    @Test
+    public void A_partial_baseline_does_not_contain_the_scenario() throws IOException {
+
+        Path file = this.tempDir.resolve("baseline.properties");
+        Files.write(file, Collections.singletonList("scenario.total.p50=1000"));
+
+        assertFalse(new StartupBaseline(file).contains("scenario"));
+    }
+
+    private StartupBaseline storedBaseline(String scenario, StartupStatistics statistics) throws IOException {
+        Path file = this.tempDir.resolve("baseline.properties");
+        StartupBaseline baseline = new StartupBaseline(file);
+        baseline.update(scenario, statistics);
+        baseline.store();
+        return new StartupBaseline(file);
+    }
+
+    private static StartupStatistics statistics(long firstTaskMicros, long entryPointMicros, long totalMicros) {
+        StartupStatistics statistics = new StartupStatistics(1);
+        statistics.add(firstTaskMicros, entryPointMicros, totalMicros);
+        return statistics;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+MIT License
+
+Copyright (c) 2019 Frank Hardy
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package io.github.fthardy.progrunnerkit.startupbenchmark;
+
+import io.github.fthardy.progrunnerkit.startupbenchmark.StartupStatistics.Metric;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupStatisticsTest {
+
+    @Test
+    public void Every_percentile_of_a_single_sample_is_the_sample() {
+
+        StartupStatistics statistics = new StartupStatistics(1);
+        statistics.add(10, 20, 30);
+
+        for (int percentile : StartupStatistics.PERCENTILES) {
+            assertEquals(10, statistics.percentile(Metric.FIRST_TASK, percentile));
+            assertEquals(20, statistics.percentile(Metric.ENTRY_POINT, percentile));
+            assertEquals(30, statistics.percentile(Metric.TOTAL, percentile));
+        }
+    }
+
+    @Test
+    public void Percentiles_are_computed_by_the_nearest_rank() {
+
+        StartupStatistics statistics = new StartupStatistics(4);
+        statistics.add(400, 0, 0);
+        statistics.add(100, 0, 0);
+        statistics.add(300, 0, 0);
+        statistics.add(200, 0, 0);
+
+        assertEquals(100, statistics.percentile(Metric.FIRST_TASK, 1));
+        assertEquals(100, statistics.percentile(Metric.FIRST_TASK, 25));
+        assertEquals(200, statistics.percentile(Metric.FIRST_TASK, 26));
+        assertEquals(200, statistics.percentile(Metric.FIRST_TASK, 50));
+        assertEquals(400, statistics.percentile(Metric.FIRST_TASK, 90));
+        assertEquals(400, statistics.percentile(Metric.FIRST_TASK, 99));
+        assertEquals(400, statistics.percentile(Metric.FIRST_TASK, 100));
+    }
+
+    @Test
+    public void The_99th_percentile_of_a_few_samples_is_the_maximum() {
+
+        StartupStatistics statistics = new StartupStatistics(3);
+        statistics.add(5, 0, 0);
+        statistics.add(7, 0, 0);
+        statistics.add(6, 0, 0);
+
+        assertEquals(6, statistics.percentile(Metric.FIRST_TASK, 50));
+        assertEquals(7, statistics.percentile(Metric.FIRST_TASK, 99));
+    }
+
+    @Test
+    public void A_percentile_without_samples_is_rejected() {
+
+        assertThrows(IllegalStateException.class, () -> new StartupStatistics(1).percentile(Metric.TOTAL, 50));
+    }
+}